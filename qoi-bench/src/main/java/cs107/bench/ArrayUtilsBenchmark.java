@@ -0,0 +1,65 @@
+package cs107.bench;
+
+import cs107.ArrayUtils;
+import cs107.QOISpecification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the pixel formatting methods and of the "Quite Ok Image" hash function.
+ * The hash benchmarks hash every pixel of the image once per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ArrayUtilsBenchmark {
+
+    @Benchmark
+    public byte[][] imageToChannels(Corpus corpus, Throughput throughput) {
+        throughput.add(corpus);
+        return ArrayUtils.imageToChannels(corpus.argb);
+    }
+
+    @Benchmark
+    public int[][] channelsToImage(Corpus corpus, Throughput throughput) {
+        throughput.add(corpus);
+        return ArrayUtils.channelsToImage(corpus.channels, corpus.height, corpus.width);
+    }
+
+    @Benchmark
+    public int[] imageToPixels(Corpus corpus, Throughput throughput) {
+        throughput.add(corpus);
+        return ArrayUtils.imageToPixels(corpus.argb);
+    }
+
+    @Benchmark
+    public int[][] pixelsToImage(Corpus corpus, Throughput throughput) {
+        throughput.add(corpus);
+        return ArrayUtils.pixelsToImage(corpus.pixels, corpus.height, corpus.width);
+    }
+
+    @Benchmark
+    public int hash(Corpus corpus, Throughput throughput) {
+        throughput.add(corpus);
+        int result = 0;
+        for (byte[] pixel : corpus.channels) result += QOISpecification.hash(pixel);
+        return result;
+    }
+
+    @Benchmark
+    public int hashPacked(Corpus corpus, Throughput throughput) {
+        throughput.add(corpus);
+        int result = 0;
+        for (int pixel : corpus.pixels) result += QOISpecification.hash(pixel);
+        return result;
+    }
+}
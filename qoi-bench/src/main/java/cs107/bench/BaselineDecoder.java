@@ -0,0 +1,84 @@
+package cs107.bench;
+
+import cs107.QOISpecification;
+
+/**
+ * Decoder loop as it was before the opcode tables, testing the tag of every chunk in turn
+ * and adding the differences channel by channel, kept as the baseline of {@link DecoderBenchmark}.
+ * It decodes the same pixels as the current decoder
+ */
+final class BaselineDecoder {
+
+    // Hide default constructor
+    private BaselineDecoder() {}
+
+    /**
+     * Decode the given range of data into packed pixels (0xRRGGBBAA)
+     *
+     * @param data   (byte[]) - Data to decode
+     * @param from   (int) - Index in the data of the first chunk
+     * @param to     (int) - Index in the data right after the last chunk
+     * @param buffer (int[]) - Buffer where to store the decoded pixels
+     * @return (int) - The number of decoded pixels
+     */
+    static int decodeData(byte[] data, int from, int to, int[] buffer) {
+        int previousPixel = QOISpecification.PACKED_START_PIXEL;
+        int[] hashTable = new int[64];
+
+        int position = 0;
+        int index = from;
+
+        while (index < to) {
+            int chunk = data[index++];
+
+            // RGB
+            if (chunk == QOISpecification.QOI_OP_RGB_TAG) {
+                previousPixel = (data[index] & 0xFF) << 24 | (data[index + 1] & 0xFF) << 16
+                        | (data[index + 2] & 0xFF) << 8 | previousPixel & 0xFF;
+                index += 3;
+            }
+
+            // RGBA
+            else if (chunk == QOISpecification.QOI_OP_RGBA_TAG) {
+                previousPixel = (data[index] & 0xFF) << 24 | (data[index + 1] & 0xFF) << 16
+                        | (data[index + 2] & 0xFF) << 8 | data[index + 3] & 0xFF;
+                index += 4;
+            }
+
+            // INDEX
+            else if ((chunk & 0b11_00_00_00) == QOISpecification.QOI_OP_INDEX_TAG) {
+                previousPixel = hashTable[chunk];
+            }
+
+            // DIFF
+            else if ((chunk & 0b11_00_00_00) == QOISpecification.QOI_OP_DIFF_TAG) {
+                previousPixel = addDifference(previousPixel,
+                        (chunk >> 4 & 0b11) - 2, (chunk >> 2 & 0b11) - 2, (chunk & 0b11) - 2);
+            }
+
+            // LUMA
+            else if ((chunk & 0b11_00_00_00) == (QOISpecification.QOI_OP_LUMA_TAG & 0xFF)) {
+                int diffGreen = (chunk & 0b00_11_11_11) - 32;
+                int second = data[index++];
+                previousPixel = addDifference(previousPixel, (second >> 4 & 0b11_11) + diffGreen - 8,
+                        diffGreen, (second & 0b11_11) + diffGreen - 8);
+            }
+
+            // RUN
+            else {
+                int end = position + (chunk & 0b00_11_11_11);
+                while (position < end) buffer[position++] = previousPixel;
+            }
+
+            hashTable[QOISpecification.hash(previousPixel)] = previousPixel;
+            buffer[position++] = previousPixel;
+        }
+
+        return position;
+    }
+
+    private static int addDifference(int pixel, int diffRed, int diffGreen, int diffBlue) {
+        return ((pixel >>> 24) + diffRed & 0xFF) << 24 | ((pixel >>> 16) + diffGreen & 0xFF) << 16
+                | ((pixel >>> 8) + diffBlue & 0xFF) << 8 | pixel & 0xFF;
+    }
+}
@@ -0,0 +1,105 @@
+package cs107.bench;
+
+import cs107.QOISpecification;
+import cs107.RunScanner;
+import cs107.RunScanners;
+
+/**
+ * Encoder loop as it was before the packed hash, the single branch range tests and the wide chunk stores,
+ * kept as the baseline of {@link EncoderBenchmark}. It writes the same bytes as the current encoder
+ */
+final class BaselineEncoder {
+
+    private static final RunScanner RUNS = RunScanners.selected();
+
+    // Hide default constructor
+    private BaselineEncoder() {}
+
+    /**
+     * Encode the given packed pixels (0xRRGGBBAA) into the output buffer
+     *
+     * @param pixels (int[]) - Packed pixels to encode
+     * @param output (byte[]) - Buffer large enough to hold the worst case encoding
+     * @return (int) - Index in the output right after the last written byte
+     */
+    static int encodeData(int[] pixels, byte[] output) {
+        int[] hashTable = new int[64];
+        int previousPixel = QOISpecification.PACKED_START_PIXEL;
+        int counter = 0;
+        int position = 0;
+
+        for (int index = 0; index < pixels.length; index++) {
+            int pixel = pixels[index];
+
+            // RUN
+            if (pixel == previousPixel) {
+                int end = RUNS.scan(pixels, index + 1, pixels.length, pixel);
+                counter += end - index;
+
+                while (counter >= 62) {
+                    output[position++] = (byte) (QOISpecification.QOI_OP_RUN_TAG | 61);
+                    counter -= 62;
+                }
+
+                index = end - 1;
+                continue;
+            } else if (counter != 0) {
+                output[position++] = (byte) (QOISpecification.QOI_OP_RUN_TAG | (counter - 1));
+                counter = 0;
+            }
+
+            // INDEX
+            int hash = ((pixel >>> 24) * 3 + (pixel >>> 16 & 0xFF) * 5 + (pixel >>> 8 & 0xFF) * 7
+                    + (pixel & 0xFF) * 11) & 63;
+            if (hashTable[hash] == pixel) {
+                output[position++] = (byte) hash;
+                previousPixel = pixel;
+                continue;
+            }
+            hashTable[hash] = pixel;
+
+            if ((pixel & 0xFF) == (previousPixel & 0xFF)) {
+                int dr = (byte) ((pixel >>> 24) - (previousPixel >>> 24));
+                int dg = (byte) ((pixel >>> 16) - (previousPixel >>> 16));
+                int db = (byte) ((pixel >>> 8) - (previousPixel >>> 8));
+                int drg = dr - dg;
+                int dbg = db - dg;
+
+                // DIFF
+                if (dr >= -2 && dr <= 1 && dg >= -2 && dg <= 1 && db >= -2 && db <= 1) {
+                    output[position++] = (byte) (QOISpecification.QOI_OP_DIFF_TAG
+                            | (dr + 2) << 4 | (dg + 2) << 2 | (db + 2));
+                }
+
+                // LUMA
+                else if (dg >= -32 && dg <= 31 && drg >= -8 && drg <= 7 && dbg >= -8 && dbg <= 7) {
+                    output[position++] = (byte) (QOISpecification.QOI_OP_LUMA_TAG | (dg + 32));
+                    output[position++] = (byte) ((drg + 8) << 4 | (dbg + 8));
+                }
+
+                // RGB
+                else {
+                    output[position++] = QOISpecification.QOI_OP_RGB_TAG;
+                    output[position++] = (byte) (pixel >>> 24);
+                    output[position++] = (byte) (pixel >>> 16);
+                    output[position++] = (byte) (pixel >>> 8);
+                }
+            }
+
+            // RGBA
+            else {
+                output[position++] = QOISpecification.QOI_OP_RGBA_TAG;
+                output[position++] = (byte) (pixel >>> 24);
+                output[position++] = (byte) (pixel >>> 16);
+                output[position++] = (byte) (pixel >>> 8);
+                output[position++] = (byte) pixel;
+            }
+
+            previousPixel = pixel;
+        }
+
+        if (counter != 0) output[position++] = (byte) (QOISpecification.QOI_OP_RUN_TAG | (counter - 1));
+
+        return position;
+    }
+}
@@ -0,0 +1,105 @@
+package cs107.bench;
+
+import cs107.ArrayUtils;
+import cs107.Helper;
+import cs107.QOIEncoder;
+import cs107.QOISpecification;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+
+/**
+ * Images every benchmark runs on, in all the representations the codec works with.
+ * The images of the "references/" folder are read from the disk, the synthetic ones
+ * ("synthetic-SIZE") are generated once per trial.
+ * The folder can be changed with the system property "qoi.references".
+ */
+@State(Scope.Benchmark)
+public class Corpus {
+
+    @Param({"random", "dice", "cube", "beach", "EPFL", "synthetic-2048"})
+    public String image;
+
+    /** Image as returned by Helper.readImage */
+    public Helper.Image decoded;
+    /** ARGB pixels of the image */
+    public int[][] argb;
+    /** Packed pixels (0xRRGGBBAA) of the image */
+    public int[] pixels;
+    /** One byte[4] per pixel, as expected by QOIEncoder.encodeData */
+    public byte[][] channels;
+    /** Content of the "Quite Ok Image" file */
+    public byte[] file;
+    /** Chunks of the "Quite Ok Image" file, without the header and the EOF */
+    public byte[] data;
+    /** Buffer large enough to hold the worst case encoding of the image */
+    public byte[] output;
+
+    public int width;
+    public int height;
+
+    /** Size of the image in megapixels */
+    public double megapixels;
+    /** Size of the raw RGBA pixels in megabytes */
+    public double megabytes;
+
+    @Setup(Level.Trial)
+    public void load() {
+        decoded = image.startsWith("synthetic-")
+                ? synthetic(Integer.parseInt(image.substring("synthetic-".length())))
+                : Helper.readImage(references() + File.separator + image + ".png");
+
+        argb = decoded.data();
+        width = argb[0].length;
+        height = argb.length;
+        pixels = ArrayUtils.imageToPixels(argb);
+        channels = ArrayUtils.imageToChannels(argb);
+        file = QOIEncoder.qoiFile(decoded);
+        data = ArrayUtils.extract(file, QOISpecification.HEADER_SIZE,
+                file.length - QOISpecification.HEADER_SIZE - QOISpecification.QOI_EOF.length);
+        output = new byte[QOIEncoder.maxDataSize(pixels.length)];
+
+        megapixels = pixels.length / 1e6;
+        megabytes = pixels.length * 4 / 1e6;
+    }
+
+    private static String references() {
+        String folder = System.getProperty("qoi.references");
+        if (folder != null) return folder;
+        return new File("references").isDirectory() ? "references" : ".." + File.separator + "references";
+    }
+
+    /**
+     * Generate a deterministic image mixing smooth gradients, flat areas and noise,
+     * so that every chunk of the protocol shows up
+     *
+     * @param size (int) - Width and height of the image
+     * @return (Helper.Image) - The generated image
+     */
+    private static Helper.Image synthetic(int size) {
+        int[][] data = new int[size][size];
+        long seed = 0x9E37_79B9_7F4A_7C15L;
+
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                seed ^= seed << 13;
+                seed ^= seed >>> 7;
+                seed ^= seed << 17;
+
+                int r, g, b, a = 0xFF;
+                switch ((x / 64 + y / 64) % 4) {
+                    case 0 -> { r = x; g = y; b = x + y; }
+                    case 1 -> { r = 40; g = 90; b = 160; }
+                    case 2 -> { r = x + (int) (seed & 3); g = y + (int) (seed >> 2 & 7); b = 128; }
+                    default -> { r = (int) seed; g = (int) (seed >> 8); b = (int) (seed >> 16); a = (int) (seed >> 24) | 0x80; }
+                }
+                data[y][x] = (a & 0xFF) << 24 | (r & 0xFF) << 16 | (g & 0xFF) << 8 | b & 0xFF;
+            }
+        }
+        return Helper.generateImage(data, QOISpecification.RGBA, QOISpecification.sRGB);
+    }
+}
@@ -0,0 +1,67 @@
+package cs107.bench;
+
+import cs107.Helper;
+import cs107.QOIDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the "Quite Ok Image" decoder, the packed decoding being compared
+ * with the loop it replaced, see {@link BaselineDecoder}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class DecoderBenchmark {
+
+    /**
+     * Output buffer reused by the packed decoding benchmark
+     */
+    @State(Scope.Thread)
+    public static class Pixels {
+
+        public int[] buffer;
+
+        @Setup(Level.Trial)
+        public void allocate(Corpus corpus) {
+            buffer = new int[corpus.pixels.length];
+        }
+    }
+
+    @Benchmark
+    public byte[][] decodeData(Corpus corpus, Throughput throughput) {
+        throughput.add(corpus);
+        return QOIDecoder.decodeData(corpus.data, corpus.width, corpus.height);
+    }
+
+    @Benchmark
+    public int decodePackedData(Corpus corpus, Pixels pixels, Throughput throughput) {
+        throughput.add(corpus);
+        return QOIDecoder.decodeData(corpus.data, 0, corpus.data.length, pixels.buffer);
+    }
+
+    @Benchmark
+    public int decodePackedDataBaseline(Corpus corpus, Pixels pixels, Throughput throughput) {
+        throughput.add(corpus);
+        return BaselineDecoder.decodeData(corpus.data, 0, corpus.data.length, pixels.buffer);
+    }
+
+    @Benchmark
+    public Helper.Image decodeQoiFile(Corpus corpus, Throughput throughput) {
+        throughput.add(corpus);
+        return QOIDecoder.decodeQoiFile(corpus.file);
+    }
+}
@@ -0,0 +1,48 @@
+package cs107.bench;
+
+import cs107.QOIEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the "Quite Ok Image" encoder, the packed encoding being compared
+ * with the loop it replaced, see {@link BaselineEncoder}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class EncoderBenchmark {
+
+    @Benchmark
+    public byte[] encodeData(Corpus corpus, Throughput throughput) {
+        throughput.add(corpus);
+        return QOIEncoder.encodeData(corpus.channels);
+    }
+
+    @Benchmark
+    public int encodePackedData(Corpus corpus, Throughput throughput) {
+        throughput.add(corpus);
+        return QOIEncoder.encodeData(corpus.pixels, corpus.output, 0);
+    }
+
+    @Benchmark
+    public int encodePackedDataBaseline(Corpus corpus, Throughput throughput) {
+        throughput.add(corpus);
+        return BaselineEncoder.encodeData(corpus.pixels, corpus.output);
+    }
+
+    @Benchmark
+    public byte[] qoiFile(Corpus corpus, Throughput throughput) {
+        throughput.add(corpus);
+        return QOIEncoder.qoiFile(corpus.decoded);
+    }
+}
@@ -0,0 +1,70 @@
+package cs107.bench;
+
+import cs107.QOIEncoder;
+import cs107.RunScanner;
+import cs107.RunScanners;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the run scanners, alone and inside the encoder.
+ * The forked JVMs get the module "jdk.incubator.vector", the encoder benchmarks choose
+ * their scanner with the property "qoi.runScanner" since it is selected once at startup.
+ * Run heavy images ("EPFL", "synthetic-2048") show the difference, e.g. -p image=EPFL
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "--add-modules=jdk.incubator.vector"})
+public class RunScannerBenchmark {
+
+    @Benchmark
+    public int scanScalar(Corpus corpus, Throughput throughput) {
+        throughput.add(corpus);
+        return scanAll(RunScanners.scalar(), corpus.pixels);
+    }
+
+    @Benchmark
+    public int scanVector(Corpus corpus, Throughput throughput) {
+        throughput.add(corpus);
+        return scanAll(RunScanners.vector().orElseThrow(), corpus.pixels);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "--add-modules=jdk.incubator.vector", "-Dqoi.runScanner=scalar"})
+    public int encodeScalar(Corpus corpus, Throughput throughput) {
+        throughput.add(corpus);
+        return QOIEncoder.encodeData(corpus.pixels, corpus.output, 0);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "--add-modules=jdk.incubator.vector", "-Dqoi.runScanner=vector"})
+    public int encodeVector(Corpus corpus, Throughput throughput) {
+        throughput.add(corpus);
+        return QOIEncoder.encodeData(corpus.pixels, corpus.output, 0);
+    }
+
+    /**
+     * Look for runs the way the encoder does : compare every pixel to the previous one
+     * and skip the whole run when they are equal
+     */
+    private static int scanAll(RunScanner scanner, int[] pixels) {
+        int runs = 0;
+        for (int index = 1; index < pixels.length; index++) {
+            int end = scanner.scan(pixels, index, pixels.length, pixels[index - 1]);
+            if (end > index) {
+                runs++;
+                index = end;
+            }
+        }
+        return runs;
+    }
+}
@@ -0,0 +1,36 @@
+package cs107.bench;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Secondary results of the image benchmarks. JMH reports them as rates,
+ * that is megapixels per second and megabytes of raw RGBA pixels per second.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Throughput {
+
+    public double megapixels;
+
+    public double megabytes;
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        megapixels = 0;
+        megabytes = 0;
+    }
+
+    /**
+     * Account for one processed image
+     *
+     * @param corpus (Corpus) - The processed image
+     */
+    public void add(Corpus corpus) {
+        megapixels += corpus.megapixels;
+        megabytes += corpus.megabytes;
+    }
+}
@@ -0,0 +1,542 @@
+package cs107;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Utility class to manipulate arrays.
+ *
+ * @author Hamza REMMAL (hamza.remmal@epfl.ch)
+ * @version 1.2
+ * @apiNote First Task of the 2022 Mini Project
+ * @since 1.0
+ */
+public final class ArrayUtils {
+
+    /**
+     * DO NOT CHANGE THIS, MORE ON THAT IN WEEK 7.
+     */
+    private ArrayUtils() {
+    }
+
+    // ==================================================================================
+    // =========================== ARRAY EQUALITY METHODS ===============================
+    // ==================================================================================
+
+    /**
+     * Check if the content of both arrays is the same
+     *
+     * @param a1 (byte[]) - First array
+     * @param a2 (byte[]) - Second array
+     * @return (boolean) - true if both arrays have the same content (or both null), false otherwise
+     * @throws AssertionError if one of the parameters is null
+     */
+    public static boolean equals(byte[] a1, byte[] a2) {
+
+        assert a1 != null ^ a2 == null;
+        if (a1.length != a2.length) return false;
+
+
+        for (int i = 0; i < a1.length; i++) {
+            if (a1[i] != a2[i]) return false;
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Check if the content of both arrays is the same
+     *
+     * @param a1 (byte[][]) - First array
+     * @param a2 (byte[][]) - Second array
+     * @return (boolean) - true if both arrays have the same content (or both null), false otherwise
+     * @throws AssertionError if one of the parameters is null
+     */
+    public static boolean equals(byte[][] a1, byte[][] a2) {
+        assert a1 == null ^ a2 == null;
+        if (a1.length != a2.length) return false;
+
+
+        for (int i = 0; i < a1.length; i++) {
+
+            if (!equals(a1[i], a2[i])) return false;
+        }
+
+        return true;
+
+    }
+
+    // ==================================================================================
+    // ============================ ARRAY HASHING METHODS ===============================
+    // ==================================================================================
+
+    /**
+     * Multiplier of the 64 bits hashes, the golden ratio as a fixed point number
+     */
+    private static final long HASH_MULTIPLIER = 0x9E37_79B9_7F4A_7C15L;
+
+    /**
+     * Compute a 64 bits hash of the content of an array, reading it 8 bytes at a time.
+     * Unlike {@link java.util.Arrays#hashCode(byte[])}, it is wide enough to identify contents,
+     * for instance as the key of a cache
+     *
+     * @param array (byte[]) - Array to hash
+     * @return (long) - Hash of the content of the array
+     * @throws AssertionError if the array is null
+     */
+    public static long hash64(byte[] array) {
+        assert array != null;
+        return hash64(ByteBuffer.wrap(array));
+    }
+
+    /**
+     * Compute a 64 bits hash of the bytes between the position and the limit of a byte buffer,
+     * heap, direct or mapped, reading them 8 bytes at a time. The position of the buffer is left untouched.
+     * The hash is the same as the one of an array holding the same bytes
+     *
+     * @param buffer (ByteBuffer) - Buffer to hash
+     * @return (long) - Hash of the remaining content of the buffer
+     * @throws AssertionError if the buffer is null
+     */
+    public static long hash64(ByteBuffer buffer) {
+        assert buffer != null;
+
+        ByteBuffer words = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        int length = words.limit();
+        long hash = length * HASH_MULTIPLIER;
+        int index = 0;
+        for (; index <= length - 8; index += 8) hash = mix64(hash, words.getLong(index));
+        for (; index < length; index++) hash = mix64(hash, words.get(index));
+
+        return finish64(hash);
+    }
+
+    /**
+     * Compute a 64 bits hash of the content and the shape of a two dimensional array, row after row.
+     * Pairs of integers are mixed into four independent lanes, so the processor can work on
+     * several of them at once, the lanes being folded together at the end
+     *
+     * @param array (int[][]) - Array to hash, every row must be non null
+     * @return (long) - Hash of the shape and the content of the array
+     * @throws AssertionError if the array or one of its rows is null
+     */
+    public static long hash64(int[][] array) {
+        assert array != null;
+
+        long lane0 = array.length * HASH_MULTIPLIER;
+        long lane1 = ~lane0;
+        long lane2 = Long.rotateLeft(lane0, 17);
+        long lane3 = Long.rotateLeft(lane1, 47);
+
+        for (int[] row : array) {
+            assert row != null;
+
+            int index = 0;
+            for (; index <= row.length - 8; index += 8) {
+                lane0 = mix64(lane0, (long) row[index] << 32 | row[index + 1] & 0xFFFF_FFFFL);
+                lane1 = mix64(lane1, (long) row[index + 2] << 32 | row[index + 3] & 0xFFFF_FFFFL);
+                lane2 = mix64(lane2, (long) row[index + 4] << 32 | row[index + 5] & 0xFFFF_FFFFL);
+                lane3 = mix64(lane3, (long) row[index + 6] << 32 | row[index + 7] & 0xFFFF_FFFFL);
+            }
+            for (; index < row.length; index++) lane0 = mix64(lane0, row[index]);
+            // The length of every row separates the rows, {{1, 2}, {3}} and {{1}, {2, 3}} differ
+            lane1 = mix64(lane1, row.length);
+        }
+
+        long hash = Long.rotateLeft(lane0, 1) + Long.rotateLeft(lane1, 7) + Long.rotateLeft(lane2, 12) + Long.rotateLeft(lane3, 18);
+        return finish64(mix64(hash, lane0 ^ lane1 ^ lane2 ^ lane3));
+    }
+
+    static long mix64(long hash, long value) {
+        return Long.rotateLeft(hash ^ value * 0xC2B2_AE3D_27D4_EB4FL, 31) * HASH_MULTIPLIER;
+    }
+
+    static long finish64(long hash) {
+        // Spread every bit of the state over the whole hash
+        hash ^= hash >>> 33;
+        hash *= 0xFF51_AFD7_ED55_8CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CE_B9FE_1A85_EC53L;
+        return hash ^ hash >>> 33;
+    }
+
+    // ==================================================================================
+    // ============================ ARRAY WRAPPING METHODS ==============================
+    // ==================================================================================
+
+    /**
+     * Wrap the given value in an array
+     *
+     * @param value (byte) - value to wrap
+     * @return (byte[]) - array with one element (value)
+     */
+    public static byte[] wrap(byte value) {
+
+        return new byte[]{value};
+
+    }
+
+    // ==================================================================================
+    // ========================== INTEGER MANIPULATION METHODS ==========================
+    // ==================================================================================
+
+    /**
+     * Create an Integer using the given array. The input needs to be considered
+     * as "Big Endian"
+     * (See handout for the definition of "Big Endian")
+     *
+     * @param bytes (byte[]) - Array of 4 bytes
+     * @return (int) - Integer representation of the array
+     * @throws AssertionError if the input is null or the input's length is different from 4
+     */
+    public static int toInt(byte[] bytes) {
+        assert bytes != null && bytes.length == 4;
+
+        int result = 0;
+
+        result = result + (bytes[0] & 0b11_11_11_11);
+        for (int i = 1; i < 4; i++){
+            result = result << 8;
+            result = result + (bytes[i] & 0b11_11_11_11);
+        }
+
+        return result;
+    }
+
+    /**
+     * Separate the Integer (word) to 4 bytes. The Memory layout of this integer is "Big Endian"
+     * (See handout for the definition of "Big Endian")
+     *
+     * @param value (int) - The integer
+     * @return (byte[]) - Big Endian representation of the integer
+     */
+    public static byte[] fromInt(int value) {
+        byte[] result = new byte[4];
+
+        for (int i = 3; i >= 0; i--) {
+            result[i] = (byte) (value & 0b11111111);
+            value = value >> 8;
+        }
+        return result;
+
+    }
+
+    // ==================================================================================
+    // ========================== ARRAY CONCATENATION METHODS ===========================
+    // ==================================================================================
+
+    /**
+     * Concatenate a given sequence of bytes and stores them in an array
+     *
+     * @param bytes (byte ...) - Sequence of bytes to store in the array
+     * @return (byte[]) - Array representation of the sequence
+     * @throws AssertionError if the input is null
+     */
+    public static byte[] concat(byte... bytes) {
+        assert bytes != null;
+
+        byte[] result = new byte[bytes.length];
+
+        for (int i = 0; i < bytes.length; i++) {
+            result[i] = bytes[i];
+        }
+        return result;
+    }
+
+    /**
+     * Concatenate a given sequence of arrays into one array
+     *
+     * @param tabs (byte[] ...) - Sequence of arrays
+     * @return (byte[]) - Array representation of the sequence
+     * @throws AssertionError if the input is null
+     *                        or one of the inner arrays of input is null.
+     */
+    public static byte[] concat(byte[]... tabs) {
+
+        assert tabs != null;
+
+        for (byte[] tb : tabs) {
+            assert tb != null;
+        }
+
+
+        int l = 0;
+        for (byte[] tab : tabs) l += tab.length;
+        byte[] result = new byte[l];
+
+        int x = 0;
+        for (byte[] tab : tabs) {
+            for (int j = 0; j < tab.length; j++) {
+                result[x + j] = tab[j];
+            }
+            x += tab.length;
+        }
+        return result;
+
+    }
+
+    // ==================================================================================
+    // =========================== ARRAY EXTRACTION METHODS =============================
+    // ==================================================================================
+
+    /**
+     * Extract an array from another array
+     *
+     * @param input  (byte[]) - Array to extract from
+     * @param start  (int) - Index in the input array to start the extract from
+     * @param length (int) - The number of bytes to extract
+     * @return (byte[]) - The extracted array
+     * @throws AssertionError if the input is null or start and length are invalid.
+     *                        start + length should also be smaller than the input's length
+     */
+    public static byte[] extract(byte[] input, int start, int length) {
+
+        assert input.length != 0;
+        assert (start + length) <= input.length;
+        assert start >= 0 && length >= 0 && start < input.length;
+
+        byte[] result = new byte[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = input[i + start];
+        }
+        return result;
+
+    }
+
+    /**
+     * Create a partition of the input array.
+     * (See handout for more information on how this method works)
+     *
+     * @param input (byte[]) - The original array
+     * @param sizes (int ...) - Sizes of the partitions
+     * @return (byte[][]) - Array of input's partitions.
+     * The order of the partition is the same as the order in sizes
+     * @throws AssertionError if one of the parameters is null
+     *                        or the sum of the elements in sizes is different from the input's length
+     */
+    public static byte[][] partition(byte[] input, int... sizes) {
+
+        int sum = 0;
+        for (int sz : sizes) sum += sz;
+        assert input.length != 0 && sizes.length != 0 && input.length == sum;
+
+
+        int x = 0;
+        byte[][] result = new byte[sizes.length][];
+
+        for (int i = 0; i < sizes.length; i++) {
+            result[i] = new byte[sizes[i]];
+
+            for (int j = 0; j < sizes[i]; j++) {
+                result[i][j] = input[x + j];
+            }
+            x += sizes[i];
+        }
+
+        return result;
+
+    }
+
+    // ==================================================================================
+    // ============================== ARRAY FORMATTING METHODS ==========================
+    // ==================================================================================
+
+    /**
+     * Format a 2-dim integer array
+     * where each dimension is a direction in the image to
+     * a 2-dim byte array where the first dimension is the pixel
+     * and the second dimension is the channel.
+     * See handouts for more information on the format.
+     *
+     * @param input (int[][]) - image data
+     * @return (byte [][]) - formatted image data
+     * @throws AssertionError if the input is null
+     *                        or one of the inner arrays of input is null
+     */
+    public static byte[][] imageToChannels(int[][] input) {
+        assert input != null;
+        int inputLength = input[0].length;
+        for (int[] array : input) {
+            assert array != null;
+            assert array.length == inputLength;
+        }
+
+
+        // Only the byte[4] of every pixel is allocated, the channels are extracted from the int directly
+        byte[][] result = new byte[input.length * input[0].length][];
+        int index = 0;
+        for (int[] row : input) {
+            for (int argb : row) {
+                result[index++] = new byte[]{(byte) (argb >> 16), (byte) (argb >> 8), (byte) argb, (byte) (argb >> 24)};
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Format a 2-dim byte array where the first dimension is the pixel
+     * and the second is the channel to a 2-dim int array where the first
+     * dimension is the height and the second is the width
+     *
+     * @param input  (byte[][]) : linear representation of the image
+     * @param height (int) - Height of the resulting image
+     * @param width  (int) - Width of the resulting image
+     * @return (int[][]) - the image data
+     * @throws AssertionError if the input is null
+     *                        or one of the inner arrays of input is null
+     *                        or input's length differs from width * height
+     *                        or height is invalid
+     *                        or width is invalid
+     */
+    public static int[][] channelsToImage(byte[][] input, int height, int width) {
+        assert input != null;
+        assert input.length == height * width;
+        for (byte[] in : input) assert in != null && in.length == 4;
+
+
+        int[][] result = new int[height][width];
+
+        for (int i = 0; i < height; i++) {
+            int[] row = result[i];
+            for (int j = 0; j < width; j++) {
+                byte[] rgba = input[i * width + j];
+                row[j] = (rgba[3] & 0xFF) << 24 | (rgba[0] & 0xFF) << 16 | (rgba[1] & 0xFF) << 8 | rgba[2] & 0xFF;
+            }
+        }
+
+
+        return result;
+    }
+
+    // ==================================================================================
+    // ============================ PACKED PIXELS FORMATTING METHODS ====================
+    // ==================================================================================
+
+    /**
+     * Format a 2-dim integer array of ARGB pixels where each dimension is a direction
+     * in the image to a 1-dim integer array of RGBA packed pixels (0xRRGGBBAA)
+     *
+     * @param input (int[][]) - image data
+     * @return (int[]) - packed image data
+     * @throws AssertionError if the input is null
+     *                        or one of the inner arrays of input is null
+     */
+    public static int[] imageToPixels(int[][] input) {
+        assert input != null;
+        int width = input[0].length;
+
+        int[] result = new int[input.length * width];
+        int index = 0;
+        for (int[] row : input) {
+            assert row != null && row.length == width;
+            argbToRgba(row, 0, result, index, width);
+            index += width;
+        }
+        return result;
+    }
+
+    /**
+     * Format a 1-dim integer array of RGBA packed pixels (0xRRGGBBAA) to a 2-dim
+     * integer array of ARGB pixels where the first dimension is the height and the second is the width.
+     * Only the first width * height pixels are read, a reused buffer may be longer
+     *
+     * @param input  (int[]) - packed image data
+     * @param height (int) - Height of the resulting image
+     * @param width  (int) - Width of the resulting image
+     * @return (int[][]) - the image data
+     * @throws AssertionError if the input is null or input's length is less than width * height
+     */
+    public static int[][] pixelsToImage(int[] input, int height, int width) {
+        assert input != null;
+        assert height > 0 && width > 0 && input.length >= height * width;
+
+        int[][] result = new int[height][width];
+        int index = 0;
+        for (int[] row : result) {
+            rgbaToArgb(input, index, row, 0, width);
+            index += width;
+        }
+        return result;
+    }
+
+    /**
+     * Convert a range of ARGB pixels (0xAARRGGBB) to RGBA packed pixels (0xRRGGBBAA), like System.arraycopy.
+     * The loop only rotates every int, the JIT compiles it to vector rotations.
+     * The source and the destination can be the same array, at the same position
+     *
+     * @param source      (int[]) - ARGB pixels
+     * @param from        (int) - Index of the first pixel to convert
+     * @param destination (int[]) - Where to store the RGBA pixels
+     * @param to          (int) - Index in the destination of the first converted pixel
+     * @param length      (int) - Number of pixels to convert
+     * @throws AssertionError if one of the arrays is null or one of the ranges is invalid
+     */
+    public static void argbToRgba(int[] source, int from, int[] destination, int to, int length) {
+        assert source != null && destination != null;
+        assert from >= 0 && to >= 0 && length >= 0;
+        assert from + length <= source.length && to + length <= destination.length;
+
+        for (int i = 0; i < length; i++) {
+            destination[to + i] = Integer.rotateLeft(source[from + i], 8);
+        }
+    }
+
+    /**
+     * Convert a range of RGBA packed pixels (0xRRGGBBAA) to ARGB pixels (0xAARRGGBB), like System.arraycopy.
+     * The source and the destination can be the same array, at the same position
+     *
+     * @param source      (int[]) - RGBA pixels
+     * @param from        (int) - Index of the first pixel to convert
+     * @param destination (int[]) - Where to store the ARGB pixels
+     * @param to          (int) - Index in the destination of the first converted pixel
+     * @param length      (int) - Number of pixels to convert
+     * @throws AssertionError if one of the arrays is null or one of the ranges is invalid
+     */
+    public static void rgbaToArgb(int[] source, int from, int[] destination, int to, int length) {
+        assert source != null && destination != null;
+        assert from >= 0 && to >= 0 && length >= 0;
+        assert from + length <= source.length && to + length <= destination.length;
+
+        for (int i = 0; i < length; i++) {
+            destination[to + i] = Integer.rotateRight(source[from + i], 8);
+        }
+    }
+
+    /**
+     * Format a 2-dim byte array where the first dimension is the pixel and the
+     * second is the channel to a 1-dim integer array of RGBA packed pixels (0xRRGGBBAA)
+     *
+     * @param input (byte[][]) - linear representation of the image
+     * @return (int[]) - packed image data
+     * @throws AssertionError if the input is null or one of the pixels is not made of 4 channels
+     */
+    public static int[] channelsToPixels(byte[][] input) {
+        assert input != null;
+
+        int[] result = new int[input.length];
+        for (int i = 0; i < input.length; i++) {
+            result[i] = toInt(input[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Format a 1-dim integer array of RGBA packed pixels (0xRRGGBBAA) to a 2-dim byte array
+     * where the first dimension is the pixel and the second is the channel
+     *
+     * @param input (int[]) - packed image data
+     * @return (byte[][]) - linear representation of the image
+     * @throws AssertionError if the input is null
+     */
+    public static byte[][] pixelsToChannels(int[] input) {
+        assert input != null;
+
+        byte[][] result = new byte[input.length][];
+        for (int i = 0; i < input.length; i++) {
+            result[i] = fromInt(input[i]);
+        }
+        return result;
+    }
+
+}
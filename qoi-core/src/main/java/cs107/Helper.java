@@ -1,7 +1,6 @@
 package cs107;
 
 import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -41,7 +40,8 @@ public final class Helper {
     private Helper(){}
 
     /**
-     * Record to store all the information of a given image
+     * Record to store all the information of a given image.
+     * The hash is computed on demand, see {@link #hash64()}, nothing is cached since the pixels may be modified
      * @param data (int[][]) - ARGB stored pixels
      * @param channels (byte) - number of channels
      * @param color_space (byte) - color space
@@ -50,14 +50,24 @@ public final class Helper {
         @Override
         public boolean equals(Object obj) {
             if (obj instanceof Image im){
-                return Arrays.deepEquals(data, im.data) && (channels == im.channels) && (color_space == im.color_space);
+                return (channels == im.channels) && (color_space == im.color_space) && Arrays.deepEquals(data, im.data);
             }else
                 return false;
         }
 
+        /**
+         * Hash the image on 64 bits, the same fields as {@link #equals(Object)} :
+         * the pixels with {@link ArrayUtils#hash64(int[][])}, then the channels and the color space
+         * @return (long) - The hash of the image
+         */
+        public long hash64() {
+            long pixels = data == null ? 0 : ArrayUtils.hash64(data);
+            return ArrayUtils.finish64(ArrayUtils.mix64(pixels, (channels & 0xFF) << 8 | color_space & 0xFF));
+        }
+
         @Override
         public int hashCode() {
-            return Arrays.deepHashCode(data);
+            return Long.hashCode(hash64());
         }
     }
 
@@ -94,15 +104,9 @@ public final class Helper {
     public static Image readImage(String path) {
         try{
             var io = ImageIO.read(new File(path));
-            var width  = io.getWidth();
-            var height = io.getHeight();
-            var array = new int[height][width];
-            for(var x = 0; x < height;++x){
-                for(var y = 0 ;y < width; ++y){
-                    array[x][y] = io.getRGB(y, x);
-                }
-            }
-            var nbrChannels = (byte) (io.getColorModel().hasAlpha() ? 4 : 3);
+            // Read the raster directly into the rows instead of calling getRGB on every pixel
+            var array = ImageRasters.toArgbRows(io);
+            var nbrChannels = ImageRasters.channels(io);
             return new Image(array, nbrChannels, (byte) 0);
         }catch (IOException e){
             return fail("An error occurred while trying to read from : \"%s\"%n", path);
@@ -116,17 +120,16 @@ public final class Helper {
      * @param image (Image) - Image to store
      */
     public static void writeImage(String path, Image image) {
-        int type = switch (image.channels){
-            case 3 -> BufferedImage.TYPE_3BYTE_BGR;
-            case 4 -> BufferedImage.TYPE_4BYTE_ABGR;
-            default -> fail("Cannot write this image, image.channels() == %d", image.channels);
-        };
-        var buffer = new BufferedImage(image.data[0].length, image.data.length, type);
-        for(var x = 0; x < buffer.getHeight(); ++x){
-            for(var y = 0 ; y < buffer.getWidth(); ++y){
-                buffer.setRGB(y, x, image.data[x][y]);
-            }
+        if (image.channels != 3 && image.channels != 4){
+            fail("Cannot write this image, image.channels() == %d", image.channels);
+        }
+        var width = image.data[0].length;
+        var pixels = new int[image.data.length * width];
+        for(var x = 0; x < image.data.length; ++x){
+            System.arraycopy(image.data[x], 0, pixels, x * width, width);
         }
+        // Fill the raster directly instead of calling setRGB on every pixel
+        var buffer = ImageRasters.fromArgb(pixels, width, image.data.length, image.channels);
         var abs_path = res_folder + File.separator + path;
         try {
             ImageIO.write(buffer, "png", new File(abs_path));
@@ -160,9 +163,7 @@ public final class Helper {
     public static void write(String path, byte[] content){
         var abs_path = res_folder + File.separator + path;
         try(var output = new FileOutputStream(abs_path)){
-            for (var b : content){
-                output.write(b);
-            }
+            output.write(content);
         }catch (IOException e){
             fail("An error occurred while trying to write to : \"%s\"%n", abs_path);
         }
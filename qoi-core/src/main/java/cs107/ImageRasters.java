@@ -0,0 +1,252 @@
+package cs107;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.nio.IntBuffer;
+
+/**
+ * Conversions between {@link BufferedImage} and packed pixels reading and writing the backing
+ * {@link java.awt.image.DataBuffer} of the raster directly, instead of going through the color model
+ * for every pixel like {@link BufferedImage#getRGB(int, int)} and {@link BufferedImage#setRGB(int, int, int)}.
+ * <p>
+ * The images of type TYPE_4BYTE_ABGR, TYPE_3BYTE_BGR, TYPE_INT_ARGB, TYPE_INT_RGB and TYPE_BYTE_INDEXED
+ * are read from their raster, any other type falls back to a single bulk call to getRGB.
+ * The values are always the same as the ones getRGB returns.
+ */
+public final class ImageRasters {
+
+    // Hide default constructor
+    private ImageRasters() {}
+
+    // ==================================================================================
+    // =============================== READING METHODS ==================================
+    // ==================================================================================
+
+    /**
+     * Read the pixels of an image, row after row
+     *
+     * @param image (BufferedImage) - Image to read
+     * @return (int[]) - Packed pixels (0xAARRGGBB), as returned by getRGB
+     * @throws AssertionError if the image is null
+     */
+    public static int[] toArgb(BufferedImage image) {
+        assert image != null;
+
+        int[] pixels = new int[image.getWidth() * image.getHeight()];
+        read(image, pixels, null, false);
+        return pixels;
+    }
+
+    /**
+     * Read the pixels of an image straight into its rows, as stored by {@link Helper.Image}
+     *
+     * @param image (BufferedImage) - Image to read
+     * @return (int[][]) - Packed pixels (0xAARRGGBB) indexed by row then column, as returned by getRGB
+     * @throws AssertionError if the image is null
+     */
+    public static int[][] toArgbRows(BufferedImage image) {
+        assert image != null;
+
+        int[][] rows = new int[image.getHeight()][image.getWidth()];
+        read(image, null, rows, false);
+        return rows;
+    }
+
+    /**
+     * Read the pixels of an image, row after row, in the format expected by the encoder
+     *
+     * @param image (BufferedImage) - Image to read
+     * @return (PixelBuffer) - Packed pixels (0xRRGGBBAA)
+     * @throws AssertionError if the image is null
+     */
+    public static PixelBuffer toPixels(BufferedImage image) {
+        assert image != null;
+
+        PixelBuffer pixels = new PixelBuffer(image.getWidth(), image.getHeight());
+        read(image, pixels.data(), null, true);
+        return pixels;
+    }
+
+    /**
+     * Number of channels of the "Quite Ok Image" holding the given image
+     *
+     * @param image (BufferedImage) - Image to encode
+     * @return (byte) - 4 if the image has an alpha channel, 3 otherwise
+     */
+    public static byte channels(BufferedImage image) {
+        return image.getColorModel().hasAlpha() ? QOISpecification.RGBA : QOISpecification.RGB;
+    }
+
+    /**
+     * Read the pixels either row after row into a single array, or into one array per row
+     *
+     * @param pixels (int[]) - Array receiving all the rows, null to fill the rows instead
+     * @param rows   (int[][]) - Arrays receiving one row each, used only when pixels is null
+     */
+    private static void read(BufferedImage image, int[] pixels, int[][] rows, boolean rgba) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        WritableRaster raster = image.getRaster();
+        int translateX = raster.getSampleModelTranslateX();
+        int translateY = raster.getSampleModelTranslateY();
+
+        switch (image.getType()) {
+            case BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_BYTE_INDEXED -> {
+                ComponentSampleModel model = (ComponentSampleModel) raster.getSampleModel();
+                DataBufferByte buffer = (DataBufferByte) raster.getDataBuffer();
+                byte[] data = buffer.getData();
+                int stride = model.getScanlineStride();
+                int step = model.getPixelStride();
+                int base = buffer.getOffset() - translateY * stride - translateX * step;
+                int[] bands = model.getBandOffsets();
+
+                if (image.getType() == BufferedImage.TYPE_BYTE_INDEXED) {
+                    int[] palette = new int[256];
+                    ((IndexColorModel) image.getColorModel()).getRGBs(palette);
+                    if (rgba) ArrayUtils.argbToRgba(palette, 0, palette, 0, palette.length);
+
+                    for (int y = 0; y < height; y++) {
+                        int[] row = pixels != null ? pixels : rows[y];
+                        int position = pixels != null ? y * width : 0;
+                        int index = base + y * stride + bands[0];
+                        for (int x = 0; x < width; x++, index += step) {
+                            row[position++] = palette[data[index] & 0xFF];
+                        }
+                    }
+                } else {
+                    boolean alpha = bands.length == 4;
+                    int red = bands[0];
+                    int green = bands[1];
+                    int blue = bands[2];
+                    int opacity = alpha ? bands[3] : 0;
+
+                    for (int y = 0; y < height; y++) {
+                        int[] row = pixels != null ? pixels : rows[y];
+                        int position = pixels != null ? y * width : 0;
+                        int index = base + y * stride;
+                        for (int x = 0; x < width; x++, index += step) {
+                            int a = alpha ? data[index + opacity] & 0xFF : 0xFF;
+                            int r = data[index + red] & 0xFF;
+                            int g = data[index + green] & 0xFF;
+                            int b = data[index + blue] & 0xFF;
+                            row[position++] = rgba ? r << 24 | g << 16 | b << 8 | a : a << 24 | r << 16 | g << 8 | b;
+                        }
+                    }
+                }
+            }
+            case BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_RGB -> {
+                SinglePixelPackedSampleModel model = (SinglePixelPackedSampleModel) raster.getSampleModel();
+                DataBufferInt buffer = (DataBufferInt) raster.getDataBuffer();
+                int[] data = buffer.getData();
+                int stride = model.getScanlineStride();
+                int base = buffer.getOffset() - translateY * stride - translateX;
+                int opaque = image.getType() == BufferedImage.TYPE_INT_RGB ? 0xFF_00_00_00 : 0;
+
+                for (int y = 0; y < height; y++) {
+                    int[] row = pixels != null ? pixels : rows[y];
+                    int position = pixels != null ? y * width : 0;
+                    int index = base + y * stride;
+                    for (int x = 0; x < width; x++) {
+                        int argb = data[index++] | opaque;
+                        row[position++] = rgba ? Integer.rotateLeft(argb, 8) : argb;
+                    }
+                }
+            }
+            default -> {
+                if (pixels != null) {
+                    image.getRGB(0, 0, width, height, pixels, 0, width);
+                    if (rgba) ArrayUtils.argbToRgba(pixels, 0, pixels, 0, pixels.length);
+                } else {
+                    for (int y = 0; y < height; y++) {
+                        image.getRGB(0, y, width, 1, rows[y], 0, width);
+                        if (rgba) ArrayUtils.argbToRgba(rows[y], 0, rows[y], 0, width);
+                    }
+                }
+            }
+        }
+    }
+
+    // ==================================================================================
+    // =============================== WRITING METHODS ==================================
+    // ==================================================================================
+
+    /**
+     * Create an image from packed pixels (0xAARRGGBB), as setRGB would fill it
+     *
+     * @param pixels   (int[]) - Packed pixels, row after row
+     * @param width    (int) - Width of the image
+     * @param height   (int) - Height of the image
+     * @param channels (byte) - 4 for a TYPE_4BYTE_ABGR image, 3 for a TYPE_3BYTE_BGR image dropping the alpha
+     * @return (BufferedImage) - The new image
+     * @throws AssertionError if the size doesn't match or the number of channels is invalid
+     */
+    public static BufferedImage fromArgb(int[] pixels, int width, int height, byte channels) {
+        assert pixels != null && pixels.length == width * height;
+        return write(IntBuffer.wrap(pixels), width, height, channels, false);
+    }
+
+    /**
+     * Create an image from the packed pixels produced by the decoder
+     *
+     * @param pixels   (PixelBuffer) - Packed pixels (0xRRGGBBAA)
+     * @param channels (byte) - 4 for a TYPE_4BYTE_ABGR image, 3 for a TYPE_3BYTE_BGR image dropping the alpha
+     * @return (BufferedImage) - The new image
+     * @throws AssertionError if the pixels are null or the number of channels is invalid
+     */
+    public static BufferedImage fromPixels(PixelBuffer pixels, byte channels) {
+        assert pixels != null;
+        return write(IntBuffer.wrap(pixels.data()), pixels.width(), pixels.height(), channels, true);
+    }
+
+    /**
+     * Create an image from the packed pixels produced by the decoder, read from a buffer such as
+     * the read-only view of {@link QOIImageCache.Entry#pixels()}
+     *
+     * @param pixels   (IntBuffer) - Packed pixels (0xRRGGBBAA), row after row from the index 0 of the buffer
+     * @param width    (int) - Width of the image
+     * @param height   (int) - Height of the image
+     * @param channels (byte) - 4 for a TYPE_4BYTE_ABGR image, 3 for a TYPE_3BYTE_BGR image dropping the alpha
+     * @return (BufferedImage) - The new image
+     * @throws AssertionError if the size doesn't match or the number of channels is invalid
+     */
+    public static BufferedImage fromPixels(IntBuffer pixels, int width, int height, byte channels) {
+        assert pixels != null && pixels.limit() == width * height;
+        return write(pixels, width, height, channels, true);
+    }
+
+    private static BufferedImage write(IntBuffer pixels, int width, int height, byte channels, boolean rgba) {
+        assert channels == QOISpecification.RGB || channels == QOISpecification.RGBA;
+
+        BufferedImage image = new BufferedImage(width, height,
+                channels == QOISpecification.RGBA ? BufferedImage.TYPE_4BYTE_ABGR : BufferedImage.TYPE_3BYTE_BGR);
+        // Freshly created images have a compact raster : no offset, no padding, bytes in A B G R or B G R order
+        byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+
+        int index = 0;
+        int count = width * height;
+        if (channels == QOISpecification.RGBA) {
+            for (int i = 0; i < count; i++) {
+                int pixel = pixels.get(i);
+                int argb = rgba ? Integer.rotateRight(pixel, 8) : pixel;
+                data[index++] = (byte) (argb >>> 24);
+                data[index++] = (byte) argb;
+                data[index++] = (byte) (argb >>> 8);
+                data[index++] = (byte) (argb >>> 16);
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                int pixel = pixels.get(i);
+                int argb = rgba ? Integer.rotateRight(pixel, 8) : pixel;
+                data[index++] = (byte) argb;
+                data[index++] = (byte) (argb >>> 8);
+                data[index++] = (byte) (argb >>> 16);
+            }
+        }
+        return image;
+    }
+}
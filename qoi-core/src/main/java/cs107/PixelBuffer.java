@@ -0,0 +1,42 @@
+package cs107;
+
+import java.util.Arrays;
+
+/**
+ * Record to store the pixels of an image as packed integers, one per pixel.
+ * Each integer holds the channels of the pixel as 0xRRGGBBAA and the pixels
+ * are stored row after row.
+ * @param data (int[]) - RGBA packed pixels
+ * @param width (int) - width of the image
+ * @param height (int) - height of the image
+ */
+public record PixelBuffer(int[] data, int width, int height) {
+
+    public PixelBuffer {
+        assert data != null;
+        assert width > 0 && height > 0;
+        assert data.length == width * height;
+    }
+
+    /**
+     * Allocate an empty buffer for the given dimensions
+     * @param width (int) - width of the image
+     * @param height (int) - height of the image
+     */
+    public PixelBuffer(int width, int height) {
+        this(new int[width * height], width, height);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof PixelBuffer pb) {
+            return width == pb.width && height == pb.height && Arrays.equals(data, pb.data);
+        } else
+            return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(data);
+    }
+}
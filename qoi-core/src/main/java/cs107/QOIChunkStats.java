@@ -0,0 +1,272 @@
+package cs107;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Record to store what one or several "Quite Ok Image" files are made of :
+ * the number of chunks of every kind, the pixels covered by the runs, the hash table collisions and the sizes,
+ * along with the time spent encoding or decoding them.
+ * <p>
+ * The chunks are counted by a {@link Counter} as the encoder writes them or the decoder reads them, only when
+ * a listener is set, so that a measured file is never walked twice. A collision is a chunk other than QOI_OP_INDEX
+ * and QOI_OP_RUN storing its pixel in a slot of the hash table already written.
+ * @param images (long) - number of files
+ * @param pixels (long) - number of pixels
+ * @param bytes (long) - size of the files, headers and end markers included
+ * @param runs (long) - number of QOI_OP_RUN chunks
+ * @param runPixels (long) - number of pixels encoded by the QOI_OP_RUN chunks
+ * @param indexes (long) - number of QOI_OP_INDEX chunks
+ * @param diffs (long) - number of QOI_OP_DIFF chunks
+ * @param lumas (long) - number of QOI_OP_LUMA chunks
+ * @param rgbs (long) - number of QOI_OP_RGB chunks
+ * @param rgbas (long) - number of QOI_OP_RGBA chunks
+ * @param collisions (long) - number of hash table slots overwritten with another pixel
+ * @param nanos (long) - time spent encoding or decoding, 0 if not measured
+ */
+public record QOIChunkStats(long images, long pixels, long bytes, long runs, long runPixels, long indexes,
+                            long diffs, long lumas, long rgbs, long rgbas, long collisions, long nanos) {
+
+    /**
+     * Statistics of no file at all, neutral element of {@link #plus(QOIChunkStats)}
+     */
+    public static final QOIChunkStats EMPTY = new QOIChunkStats(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    // ==================================================================================
+    // ============================== ANALYSIS METHODS ==================================
+    // ==================================================================================
+
+    /**
+     * Read the statistics back from a "Quite Ok Image" file
+     *
+     * @param content (byte[]) - Content of the file
+     * @return (QOIChunkStats) - Statistics of the file, without encoding time
+     * @throws AssertionError if content is null or is not a valid "Quite Ok Image" file
+     */
+    public static QOIChunkStats of(byte[] content) {
+        assert content != null;
+        return of(content, 0, content.length, 0);
+    }
+
+    /**
+     * Read the statistics back from a "Quite Ok Image" file stored in a range of an array
+     *
+     * @param content (byte[]) - Array holding the file
+     * @param offset  (int) - Index of the first byte of the file
+     * @param length  (int) - Size of the file
+     * @param nanos   (long) - Time spent encoding or decoding the file, 0 if not measured
+     * @return (QOIChunkStats) - Statistics of the file
+     * @throws AssertionError if the range is invalid
+     * @throws RuntimeException if the range doesn't hold a valid "Quite Ok Image" file
+     */
+    public static QOIChunkStats of(byte[] content, int offset, int length, long nanos) {
+        assert content != null && offset >= 0 && offset + length <= content.length;
+        return of(ByteBuffer.wrap(content, offset, length), nanos);
+    }
+
+    /**
+     * Read the statistics back from a "Quite Ok Image" file held between the position and the limit
+     * of a byte buffer, heap, direct or mapped. The position is not moved
+     *
+     * @param content (ByteBuffer) - Buffer holding the file
+     * @param nanos   (long) - Time spent encoding or decoding the file, 0 if not measured
+     * @return (QOIChunkStats) - Statistics of the file
+     * @throws AssertionError if content is null
+     * @throws RuntimeException if content is not a valid "Quite Ok Image" file
+     */
+    public static QOIChunkStats of(ByteBuffer content, long nanos) {
+        assert content != null;
+
+        ByteBuffer data = content.slice();
+        int length = data.limit();
+        QOIDecoder.checkEndMarker(data, 0, length);
+        QOIHeader header = QOIHeader.of(data);
+        int end = length - QOISpecification.QOI_EOF.length;
+
+        // The chunks are walked by the step of the decoder, without storing any pixel
+        Counter counter = new Counter();
+        int[] hashTable = new int[64];
+        int previousPixel = QOISpecification.PACKED_START_PIXEL;
+        int index = QOISpecification.HEADER_SIZE;
+        while (index < end) {
+            int chunk = data.get(index) & 0xFF;
+            previousPixel = QOIDecoder.decodeChunk(data, index, chunk, previousPixel, hashTable, counter);
+            index += QOIDecoder.CHUNK_SIZES[chunk];
+        }
+
+        return counter.toStats(header.pixelCount(), length, nanos);
+    }
+
+    /**
+     * Add up the statistics of two sets of files
+     *
+     * @param other (QOIChunkStats) - Statistics to add
+     * @return (QOIChunkStats) - Statistics of both sets
+     */
+    public QOIChunkStats plus(QOIChunkStats other) {
+        assert other != null;
+        return new QOIChunkStats(images + other.images, pixels + other.pixels, bytes + other.bytes,
+                runs + other.runs, runPixels + other.runPixels, indexes + other.indexes, diffs + other.diffs,
+                lumas + other.lumas, rgbs + other.rgbs, rgbas + other.rgbas, collisions + other.collisions,
+                nanos + other.nanos);
+    }
+
+    // ==================================================================================
+    // ================================ CHUNK COUNTER ===================================
+    // ==================================================================================
+
+    /**
+     * Counter of the chunks of one file, fed with every chunk as the encoder writes it or the decoder reads it.
+     * A counter is not thread safe, it is owned by the context measuring the file and reset before every file
+     */
+    static final class Counter {
+
+        // Chunk counters by opcode, in the order of the QOIDecoder.OP_ constants
+        private final long[] chunks = new long[6];
+        private long runPixels;
+        private long collisions;
+        // Slots of the hash table written since the start of the file
+        private long written;
+
+        /**
+         * Count one chunk
+         *
+         * @param chunk (int) - Tag byte of the chunk, as an unsigned value
+         * @param pixel (int) - Packed pixel (0xRRGGBBAA) of the chunk
+         */
+        void count(int chunk, int pixel) {
+            int opcode = QOIDecoder.OPCODES[chunk];
+            long slot = 1L << QOISpecification.hash(pixel);
+            chunks[opcode]++;
+
+            if (opcode == QOIDecoder.OP_RUN) {
+                runPixels += QOIDecoder.PIXEL_COUNTS[chunk];
+            } else if (opcode != QOIDecoder.OP_INDEX && (written & slot) != 0) {
+                collisions++;
+            }
+            written |= slot;
+        }
+
+        /**
+         * Forget the chunks counted so far, to count a new file
+         */
+        void reset() {
+            Arrays.fill(chunks, 0);
+            runPixels = 0;
+            collisions = 0;
+            written = 0;
+        }
+
+        /**
+         * @param pixels (long) - Number of pixels of the file
+         * @param bytes  (long) - Size of the file, header and end marker included
+         * @param nanos  (long) - Time spent encoding or decoding the file, 0 if not measured
+         * @return (QOIChunkStats) - Statistics of the counted file
+         */
+        QOIChunkStats toStats(long pixels, long bytes, long nanos) {
+            return new QOIChunkStats(1, pixels, bytes, chunks[QOIDecoder.OP_RUN], runPixels,
+                    chunks[QOIDecoder.OP_INDEX], chunks[QOIDecoder.OP_DIFF], chunks[QOIDecoder.OP_LUMA],
+                    chunks[QOIDecoder.OP_RGB], chunks[QOIDecoder.OP_RGBA], collisions, nanos);
+        }
+    }
+
+    // ==================================================================================
+    // =============================== DERIVED METRICS ==================================
+    // ==================================================================================
+
+    /**
+     * @return (long) - Total number of chunks
+     */
+    public long chunks() {
+        return runs + indexes + diffs + lumas + rgbs + rgbas;
+    }
+
+    /**
+     * @return (double) - Average number of pixels of a QOI_OP_RUN chunk, 0 without runs
+     */
+    public double averageRunLength() {
+        return runs == 0 ? 0 : (double) runPixels / runs;
+    }
+
+    /**
+     * @return (double) - Share of the pixels outside of runs found in the hash table, 0 without such pixels
+     */
+    public double indexHitRate() {
+        long looked = pixels - runPixels;
+        return looked == 0 ? 0 : (double) indexes / looked;
+    }
+
+    /**
+     * @return (double) - Average size of a pixel in the files, in bytes
+     */
+    public double bytesPerPixel() {
+        return pixels == 0 ? 0 : (double) bytes / pixels;
+    }
+
+    /**
+     * @return (double) - Encoded or decoded pixels per second, 0 if the time was not measured
+     */
+    public double pixelsPerSecond() {
+        return nanos == 0 ? 0 : pixels * 1e9 / nanos;
+    }
+
+    /**
+     * @return (double) - Encoded or decoded megapixels per second, 0 if the time was not measured
+     */
+    public double megapixelsPerSecond() {
+        return pixelsPerSecond() / 1e6;
+    }
+
+    /**
+     * @return (double) - Megabytes of files written or read per second, 0 if the time was not measured
+     */
+    public double megabytesPerSecond() {
+        return nanos == 0 ? 0 : bytes * 1e3 / nanos;
+    }
+
+    // ==================================================================================
+    // ============================== BYTES PER OPCODE ==================================
+    // ==================================================================================
+
+    /**
+     * @return (long) - Bytes taken by the QOI_OP_RUN chunks
+     */
+    public long runBytes() {
+        return runs;
+    }
+
+    /**
+     * @return (long) - Bytes taken by the QOI_OP_INDEX chunks
+     */
+    public long indexBytes() {
+        return indexes;
+    }
+
+    /**
+     * @return (long) - Bytes taken by the QOI_OP_DIFF chunks
+     */
+    public long diffBytes() {
+        return diffs;
+    }
+
+    /**
+     * @return (long) - Bytes taken by the QOI_OP_LUMA chunks
+     */
+    public long lumaBytes() {
+        return 2 * lumas;
+    }
+
+    /**
+     * @return (long) - Bytes taken by the QOI_OP_RGB chunks
+     */
+    public long rgbBytes() {
+        return 4 * rgbs;
+    }
+
+    /**
+     * @return (long) - Bytes taken by the QOI_OP_RGBA chunks
+     */
+    public long rgbaBytes() {
+        return 5 * rgbas;
+    }
+}
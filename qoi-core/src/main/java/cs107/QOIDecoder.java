@@ -0,0 +1,827 @@
+package cs107;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static cs107.Helper.Image;
+
+/**
+ * "Quite Ok Image" Decoder
+ *
+ * @author Hamza REMMAL (hamza.remmal@epfl.ch)
+ * @version 1.2
+ * @apiNote Third task of the 2022 Mini Project
+ * @since 1.0
+ */
+public final class QOIDecoder {
+
+    /**
+     * DO NOT CHANGE THIS, MORE ON THAT IN WEEK 7.
+     */
+    private QOIDecoder() {
+    }
+
+    /**
+     * End marker read as a big endian long
+     */
+    private static final long EOF = 1L;
+
+    // ==================================================================================
+    // =========================== QUITE OK IMAGE HEADER ================================
+    // ==================================================================================
+
+    /**
+     * Extract useful information from the "Quite Ok Image" header
+     *
+     * @param header (byte[]) - A "Quite Ok Image" header
+     * @return (int[]) - Array such as its content is {width, height, channels, color space}
+     * @throws AssertionError if header is null
+     * @throws RuntimeException See handouts section 6.1, checked by {@link QOIHeader}
+     */
+    public static int[] decodeHeader(byte[] header) {
+        assert header != null;
+        if (header.length != QOISpecification.HEADER_SIZE) {
+            Helper.fail("Corrupted \"Quite Ok Image\" header : %d bytes instead of %d",
+                    header.length, QOISpecification.HEADER_SIZE);
+        }
+
+        return toArray(QOIHeader.of(header));
+    }
+
+    /**
+     * Extract useful information from the "Quite Ok Image" header at the position of a byte buffer.
+     * The position of the buffer is left untouched
+     *
+     * @param content (ByteBuffer) - Buffer holding a "Quite Ok Image" header from its position
+     * @return (int[]) - Array such as its content is {width, height, channels, color space}
+     * @throws AssertionError if content is null
+     * @throws RuntimeException if the header is incomplete or corrupted
+     */
+    public static int[] decodeHeader(ByteBuffer content) {
+        assert content != null;
+        return toArray(QOIHeader.of(content));
+    }
+
+    private static int[] toArray(QOIHeader header) {
+        return new int[]{header.width(), header.height(), header.channels(), header.colorSpace()};
+    }
+
+    // ==================================================================================
+    // =========================== ATOMIC DECODING METHODS ==============================
+    // ==================================================================================
+
+    /**
+     * Store the pixel in the buffer and return the number of consumed bytes
+     *
+     * @param buffer   (byte[][]) - Buffer where to store the pixel
+     * @param input    (byte[]) - Stream of bytes to read from
+     * @param alpha    (byte) - Alpha component of the pixel
+     * @param position (int) - Index in the buffer
+     * @param idx      (int) - Index in the input
+     * @return (int) - The number of consumed bytes
+     * @throws AssertionError See handouts section 6.2.1
+     */
+    public static int decodeQoiOpRGB(byte[][] buffer, byte[] input, byte alpha, int position, int idx) {
+        assert buffer != null && input != null;
+        assert position >= 0 && position < buffer.length;
+        assert idx >= 0 && idx < input.length;
+
+        assert input.length - idx >= 3;
+
+        for (int i = 0; i < 3; i++) {
+            buffer[position][i] = input[idx + i];
+        }
+        buffer[position][3] = alpha;
+
+        return 3;
+    }
+
+    /**
+     * Store the pixel in the buffer and return the number of consumed bytes
+     *
+     * @param buffer   (byte[][]) - Buffer where to store the pixel
+     * @param input    (byte[]) - Stream of bytes to read from
+     * @param position (int) - Index in the buffer
+     * @param idx      (int) - Index in the input
+     * @return (int) - The number of consumed bytes
+     * @throws AssertionError See handouts section 6.2.2
+     */
+    public static int decodeQoiOpRGBA(byte[][] buffer, byte[] input, int position, int idx) {
+        assert buffer != null && input != null;
+        assert position >= 0 && position < buffer.length;
+        assert idx >= 0 && idx < input.length;
+
+        assert input.length - idx >= 4;
+
+        for (int i = 0; i < 4; i++) {
+            buffer[position][i] = input[idx + i];
+        }
+
+        return 4;
+    }
+
+    /**
+     * Create a new pixel following the "QOI_OP_DIFF" schema.
+     *
+     * @param previousPixel (byte[]) - The previous pixel
+     * @param chunk         (byte) - A "QOI_OP_DIFF" data chunk
+     * @return (byte[]) - The newly created pixel
+     * @throws AssertionError See handouts section 6.2.4
+     */
+    public static byte[] decodeQoiOpDiff(byte[] previousPixel, byte chunk) {
+        byte[] result = new byte[4];
+
+        byte selector = 0b00_11_00_00;
+        for (int i = 0; i < 3; i++) {
+            int offset = 4 - i * 2;
+            result[i] = (byte) (((selector & chunk) >> offset) + previousPixel[i] - 2);
+            selector = (byte) (selector >> 2);
+        }
+        result[3] = previousPixel[3];
+
+        return result;
+    }
+
+    /**
+     * Create a new pixel following the "QOI_OP_LUMA" schema
+     *
+     * @param previousPixel (byte[]) - The previous pixel
+     * @param data          (byte[]) - A "QOI_OP_LUMA" data chunk
+     * @return (byte[]) - The newly created pixel
+     * @throws AssertionError See handouts section 6.2.5
+     */
+    public static byte[] decodeQoiOpLuma(byte[] previousPixel, byte[] data) {
+        assert previousPixel != null && data != null;
+        assert previousPixel.length == 4;
+        assert (data[0] & QOISpecification.QOI_OP_LUMA_TAG) == QOISpecification.QOI_OP_LUMA_TAG;
+
+        byte[] result = new byte[4];
+        byte diff_green = (byte) ((data[0] & 0b00_11_11_11) - 32);
+        byte diff_red = (byte) (((data[1] & 0b11_11_00_00) >> 4) + diff_green - 8);
+        byte diff_blue = (byte) ((data[1] & 0b00_00_11_11) + diff_green - 8);
+
+        result[0] = (byte) (previousPixel[0] + diff_red);
+        result[1] = (byte) (previousPixel[1] + diff_green);
+        result[2] = (byte) (previousPixel[2] + diff_blue);
+        result[3] = previousPixel[3];
+
+
+        return result;
+    }
+
+    /**
+     * Store the given pixel in the buffer multiple times
+     *
+     * @param buffer   (byte[][]) - Buffer where to store the pixel
+     * @param pixel    (byte[]) - The pixel to store
+     * @param chunk    (byte) - a QOI_OP_RUN data chunk
+     * @param position (int) - Index in buffer to start writing from
+     * @return (int) - number of written pixels in buffer
+     * @throws AssertionError See handouts section 6.2.6
+     */
+    public static int decodeQoiOpRun(byte[][] buffer, byte[] pixel, byte chunk, int position) {
+        int result = 0b00_11_11_11 & chunk;
+        assert buffer != null;
+        assert position >= 0 && position < buffer.length;
+        assert pixel != null && pixel.length == 4;
+        assert buffer.length >= result + position;
+
+        for (int i = position; i <= result + position; i++) {
+            buffer[i] = pixel;
+        }
+
+        return result;
+    }
+
+    // ==================================================================================
+    // ========================= GLOBAL DECODING METHODS ================================
+    // ==================================================================================
+
+    /**
+     * Decode the given data using the "Quite Ok Image" Protocol
+     *
+     * @param data   (byte[]) - Data to decode
+     * @param width  (int) - The width of the expected output
+     * @param height (int) - The height of the expected output
+     * @return (byte[][]) - Decoded "Quite Ok Image"
+     * @throws AssertionError See handouts section 6.3
+     */
+    public static byte[][] decodeData(byte[] data, int width, int height) {
+        assert data != null;
+        assert width > 0 && height > 0;
+
+        int[] buffer = new int[width * height];
+        int position = decodeData(data, 0, data.length, buffer);
+
+        assert position == width * height;
+
+        return ArrayUtils.pixelsToChannels(buffer);
+    }
+
+    /**
+     * Decode the given range of data using the "Quite Ok Image" Protocol into packed pixels (0xRRGGBBAA)
+     *
+     * @param data   (byte[]) - Data to decode
+     * @param from   (int) - Index in the data of the first chunk
+     * @param to     (int) - Index in the data right after the last chunk
+     * @param buffer (int[]) - Buffer where to store the decoded pixels
+     * @return (int) - The number of decoded pixels
+     * @throws AssertionError if the range is invalid or the buffer is too small
+     */
+    public static int decodeData(byte[] data, int from, int to, int[] buffer) {
+        return decodeData(data, from, to, buffer, 0);
+    }
+
+    /**
+     * Decode the given range of data using the "Quite Ok Image" Protocol into packed pixels (0xRRGGBBAA),
+     * storing them from the given position in the buffer
+     *
+     * @param data   (byte[]) - Data to decode
+     * @param from   (int) - Index in the data of the first chunk
+     * @param to     (int) - Index in the data right after the last chunk
+     * @param buffer (int[]) - Buffer where to store the decoded pixels
+     * @param start  (int) - Index in the buffer of the first decoded pixel
+     * @return (int) - The number of decoded pixels
+     * @throws AssertionError if the range is invalid or the buffer is too small
+     */
+    public static int decodeData(byte[] data, int from, int to, int[] buffer, int start) {
+        return decodeData(data, from, to, buffer, start, QOISpecification.PACKED_START_PIXEL, new int[64]);
+    }
+
+    /**
+     * Decode the given range of data starting from the given decoder state, as if all the chunks
+     * before the range were already decoded
+     *
+     * @param data          (byte[]) - Data to decode
+     * @param from          (int) - Index in the data of the first chunk
+     * @param to            (int) - Index in the data right after the last chunk
+     * @param buffer        (int[]) - Buffer where to store the decoded pixels
+     * @param start         (int) - Index in the buffer of the first decoded pixel
+     * @param previousPixel (int) - Packed pixel decoded right before the range
+     * @param hashTable     (int[]) - Hash table of the decoder at the start of the range, updated in place
+     * @return (int) - The number of decoded pixels
+     * @throws AssertionError if the range is invalid
+     * @throws RuntimeException if the chunks hold more pixels than the buffer
+     */
+    static int decodeData(byte[] data, int from, int to, int[] buffer, int start, int previousPixel, int[] hashTable) {
+        assert data != null && buffer != null;
+        assert from >= 0 && from <= to && to <= data.length;
+        assert start >= 0 && start <= buffer.length;
+        assert hashTable != null && hashTable.length == 64;
+
+        int position = start;
+        int index = from;
+
+        // Same step as decodeChunk, read straight from the array : a call and a ByteBuffer access per chunk
+        // cost 15 to 25% of the speed, and testing the tags in turn is predicted better than a switch on OPCODES
+        while (index < to) {
+            int chunk = data[index++];
+
+            if (chunk == QOISpecification.QOI_OP_RGB_TAG) {
+                previousPixel = (int) INT.get(data, index - 1) << 8 | previousPixel & 0xFF;
+                index += 3;
+            } else if (chunk == QOISpecification.QOI_OP_RGBA_TAG) {
+                previousPixel = (int) INT.get(data, index);
+                index += 4;
+            } else if (chunk >= 0) {
+                previousPixel = chunk < 0x40 ? hashTable[chunk] : addPacked(previousPixel, OPERANDS[chunk]);
+            } else if (chunk < (byte) 0xC0) {
+                previousPixel = addPacked(addPacked(previousPixel, OPERANDS[chunk & 0xFF]),
+                        LUMA_RED_BLUE[data[index++] & 0xFF]);
+            } else {
+                int count = chunk & 0b00_11_11_11;
+                if (count >= buffer.length - position) tooManyPixels(buffer.length);
+                int end = position + count;
+                while (position < end) buffer[position++] = previousPixel;
+            }
+
+            hashTable[QOISpecification.hash(previousPixel)] = previousPixel;
+            if (position == buffer.length) tooManyPixels(buffer.length);
+            buffer[position++] = previousPixel;
+        }
+
+        return position - start;
+    }
+
+    /**
+     * Decode the chunks between the position and the limit of a byte buffer, heap, direct or mapped,
+     * into packed pixels (0xRRGGBBAA). The bytes are read in place and the position is moved to the limit
+     *
+     * @param data   (ByteBuffer) - Data to decode
+     * @param buffer (int[]) - Buffer where to store the decoded pixels
+     * @param start  (int) - Index in the buffer of the first decoded pixel
+     * @return (int) - The number of decoded pixels
+     * @throws AssertionError if the data is null or the buffer is too small
+     */
+    public static int decodeData(ByteBuffer data, int[] buffer, int start) {
+        assert data != null;
+
+        ByteBuffer view = data.slice().order(ByteOrder.BIG_ENDIAN);
+        int decoded = decodeData(view, 0, view.limit(), buffer, start, QOISpecification.PACKED_START_PIXEL, new int[64]);
+        data.position(data.limit());
+
+        return decoded;
+    }
+
+    /**
+     * Decode the given range of a byte buffer starting from the given decoder state.
+     * The buffer is read with absolute accesses, its position and limit are left untouched
+     *
+     * @param data          (ByteBuffer) - Data to decode, heap, direct or mapped, in big endian order
+     * @param from          (int) - Index in the data of the first chunk
+     * @param to            (int) - Index in the data right after the last chunk
+     * @param buffer        (int[]) - Buffer where to store the decoded pixels
+     * @param start         (int) - Index in the buffer of the first decoded pixel
+     * @param previousPixel (int) - Packed pixel decoded right before the range
+     * @param hashTable     (int[]) - Hash table of the decoder at the start of the range, updated in place
+     * @return (int) - The number of decoded pixels
+     * @throws AssertionError if the range is invalid
+     * @throws RuntimeException if the chunks hold more pixels than the buffer
+     */
+    static int decodeData(ByteBuffer data, int from, int to, int[] buffer, int start, int previousPixel, int[] hashTable) {
+        return decodeData(data, from, to, buffer, start, previousPixel, hashTable, null);
+    }
+
+    /**
+     * Decode the given range of a byte buffer starting from the given decoder state and count its chunks,
+     * see {@link #decodeData(ByteBuffer, int, int, int[], int, int, int[])}
+     *
+     * @param data          (ByteBuffer) - Data to decode, heap, direct or mapped, in big endian order
+     * @param from          (int) - Index in the data of the first chunk
+     * @param to            (int) - Index in the data right after the last chunk
+     * @param buffer        (int[]) - Buffer where to store the decoded pixels
+     * @param start         (int) - Index in the buffer of the first decoded pixel
+     * @param previousPixel (int) - Packed pixel decoded right before the range
+     * @param hashTable     (int[]) - Hash table of the decoder at the start of the range, updated in place
+     * @param counter       (QOIChunkStats.Counter) - Counter of the chunks of the range, null when nothing is measured
+     * @return (int) - The number of decoded pixels
+     * @throws AssertionError if the range is invalid
+     * @throws RuntimeException if the chunks hold more pixels than the buffer
+     */
+    static int decodeData(ByteBuffer data, int from, int to, int[] buffer, int start, int previousPixel, int[] hashTable,
+                          QOIChunkStats.Counter counter) {
+        assert data != null && buffer != null && data.order() == ByteOrder.BIG_ENDIAN;
+        assert from >= 0 && from <= to && to <= data.limit();
+        assert start >= 0 && start <= buffer.length;
+        assert hashTable != null && hashTable.length == 64;
+
+        // Heap buffers go through the array loop when nothing is measured
+        if (counter == null && data.hasArray()) {
+            int offset = data.arrayOffset();
+            return decodeData(data.array(), offset + from, offset + to, buffer, start, previousPixel, hashTable);
+        }
+
+        int position = start;
+        int index = from;
+
+        while (index < to) {
+            int chunk = data.get(index) & 0xFF;
+            int count = PIXEL_COUNTS[chunk];
+            if (count > buffer.length - position) tooManyPixels(buffer.length);
+
+            previousPixel = decodeChunk(data, index, chunk, previousPixel, hashTable, counter);
+            index += CHUNK_SIZES[chunk];
+
+            if (count == 1) {
+                buffer[position++] = previousPixel;
+            } else {
+                Arrays.fill(buffer, position, position + count, previousPixel);
+                position += count;
+            }
+        }
+
+        return position - start;
+    }
+
+    // ==================================================================================
+    // ========================== REGION DECODING METHODS ===============================
+    // ==================================================================================
+
+    /**
+     * Decode only a rectangle of a "Quite Ok Image" file into packed pixels (0xRRGGBBAA).
+     * The chunks are still walked in order from the start of the file to keep the decoder state,
+     * but only the pixels inside the rectangle are stored and no chunk after its last pixel is read.
+     * The file may thus be truncated anywhere after the chunk of the last pixel of the rectangle
+     *
+     * @param content (byte[]) - Content of the file to decode
+     * @param x       (int) - Column of the left side of the rectangle
+     * @param y       (int) - Row of the top side of the rectangle
+     * @param width   (int) - Width of the rectangle
+     * @param height  (int) - Height of the rectangle
+     * @return (PixelBuffer) - Decoded pixels of the rectangle
+     * @throws AssertionError if content is null, the rectangle is empty or not inside the image,
+     *                        or the file is corrupted
+     */
+    public static PixelBuffer decodeRegion(byte[] content, int x, int y, int width, int height) {
+        assert content != null && content.length >= QOISpecification.HEADER_SIZE;
+
+        int[] decodedHeader = decodeHeader(ArrayUtils.extract(content, 0, QOISpecification.HEADER_SIZE));
+        assertRegion(decodedHeader, x, y, width, height);
+
+        PixelBuffer pixels = new PixelBuffer(width, height);
+        int decoded = decodeRegion(content, QOISpecification.HEADER_SIZE, content.length, decodedHeader[0],
+                x, y, width, height, pixels.data(), 0,
+                QOISpecification.PACKED_START_PIXEL, new int[64]);
+        checkPixelCount(decoded, pixels.data().length);
+
+        return pixels;
+    }
+
+    /**
+     * Decode only a rectangle of a "Quite Ok Image" file held from the position of a byte buffer,
+     * heap, direct or mapped, into packed pixels (0xRRGGBBAA). Only the bytes up to the chunk of the last
+     * pixel of the rectangle are read, the position of the buffer is left untouched
+     *
+     * @param content (ByteBuffer) - Content of the file to decode, from its position
+     * @param x       (int) - Column of the left side of the rectangle
+     * @param y       (int) - Row of the top side of the rectangle
+     * @param width   (int) - Width of the rectangle
+     * @param height  (int) - Height of the rectangle
+     * @return (PixelBuffer) - Decoded pixels of the rectangle
+     * @throws AssertionError if content is null, the rectangle is empty or not inside the image,
+     *                        or the file is corrupted
+     */
+    public static PixelBuffer decodeRegion(ByteBuffer content, int x, int y, int width, int height) {
+        int[] decodedHeader = decodeHeader(content);
+        assertRegion(decodedHeader, x, y, width, height);
+
+        ByteBuffer view = content.slice().order(ByteOrder.BIG_ENDIAN);
+        PixelBuffer pixels = new PixelBuffer(width, height);
+        int decoded = decodeRegion(view, QOISpecification.HEADER_SIZE, view.limit(), decodedHeader[0],
+                x, y, width, height, pixels.data(), 0,
+                QOISpecification.PACKED_START_PIXEL, new int[64]);
+        checkPixelCount(decoded, pixels.data().length);
+
+        return pixels;
+    }
+
+    /**
+     * Decode only consecutive whole rows of a "Quite Ok Image" file, for instance the first ones for a preview.
+     * No chunk after the last row is read, see {@link #decodeRegion(byte[], int, int, int, int)}
+     *
+     * @param content  (byte[]) - Content of the file to decode
+     * @param firstRow (int) - Index of the first row to decode
+     * @param rowCount (int) - Number of rows to decode
+     * @return (PixelBuffer) - Decoded pixels of the rows
+     * @throws AssertionError if content is null, the rows are not inside the image or the file is corrupted
+     */
+    public static PixelBuffer decodeRows(byte[] content, int firstRow, int rowCount) {
+        assert content != null && content.length >= QOISpecification.HEADER_SIZE;
+
+        int width = ArrayUtils.toInt(ArrayUtils.extract(content, 4, 4));
+        return decodeRegion(content, 0, firstRow, width, rowCount);
+    }
+
+    /**
+     * Decode only consecutive whole rows of a "Quite Ok Image" file held from the position of a byte buffer.
+     * No chunk after the last row is read, the position of the buffer is left untouched
+     *
+     * @param content  (ByteBuffer) - Content of the file to decode, from its position
+     * @param firstRow (int) - Index of the first row to decode
+     * @param rowCount (int) - Number of rows to decode
+     * @return (PixelBuffer) - Decoded pixels of the rows
+     * @throws AssertionError if content is null, the rows are not inside the image or the file is corrupted
+     */
+    public static PixelBuffer decodeRows(ByteBuffer content, int firstRow, int rowCount) {
+        int width = decodeHeader(content)[0];
+        return decodeRegion(content, 0, firstRow, width, rowCount);
+    }
+
+    private static void assertRegion(int[] decodedHeader, int x, int y, int width, int height) {
+        assert width > 0 && height > 0;
+        assert x >= 0 && y >= 0;
+        assert x + width <= decodedHeader[0] && y + height <= decodedHeader[1];
+    }
+
+    /**
+     * Decode the chunks of an image from the given decoder state, storing only the pixels of the given rectangle,
+     * row after row. The decoding stops right after the chunk holding the last pixel of the rectangle
+     *
+     * @param data          (byte[]) - Data to decode
+     * @param from          (int) - Index in the data of the first chunk to decode
+     * @param to            (int) - Index in the data after which no chunk may be read
+     * @param imageWidth    (int) - Width of the image
+     * @param x             (int) - Column of the left side of the rectangle
+     * @param y             (int) - Row of the top side of the rectangle
+     * @param width         (int) - Width of the rectangle
+     * @param height        (int) - Height of the rectangle
+     * @param buffer        (int[]) - Buffer where to store the pixels of the rectangle
+     * @param position      (int) - Index in the image of the first pixel of the chunk at from
+     * @param previousPixel (int) - Packed pixel decoded right before the chunk at from
+     * @param hashTable     (int[]) - Hash table of the decoder before the chunk at from, updated in place
+     * @return (int) - The number of stored pixels, less than width * height only if the data ends too early
+     */
+    static int decodeRegion(byte[] data, int from, int to, int imageWidth, int x, int y, int width, int height,
+                            int[] buffer, int position, int previousPixel, int[] hashTable) {
+        assert data != null;
+        return decodeRegion(ByteBuffer.wrap(data), from, to, imageWidth, x, y, width, height,
+                buffer, position, previousPixel, hashTable);
+    }
+
+    /**
+     * Decode the chunks of an image held in a byte buffer from the given decoder state, storing only the pixels
+     * of the given rectangle, row after row. The buffer is read with absolute accesses, its position and limit
+     * are left untouched
+     *
+     * @param data          (ByteBuffer) - Data to decode, heap, direct or mapped, in big endian order
+     * @param from          (int) - Index in the data of the first chunk to decode
+     * @param to            (int) - Index in the data after which no chunk may be read
+     * @param imageWidth    (int) - Width of the image
+     * @param x             (int) - Column of the left side of the rectangle
+     * @param y             (int) - Row of the top side of the rectangle
+     * @param width         (int) - Width of the rectangle
+     * @param height        (int) - Height of the rectangle
+     * @param buffer        (int[]) - Buffer where to store the pixels of the rectangle
+     * @param position      (int) - Index in the image of the first pixel of the chunk at from
+     * @param previousPixel (int) - Packed pixel decoded right before the chunk at from
+     * @param hashTable     (int[]) - Hash table of the decoder before the chunk at from, updated in place
+     * @return (int) - The number of stored pixels, less than width * height only if the data ends too early
+     */
+    static int decodeRegion(ByteBuffer data, int from, int to, int imageWidth, int x, int y, int width, int height,
+                            int[] buffer, int position, int previousPixel, int[] hashTable) {
+        assert data != null && buffer != null && buffer.length >= width * height;
+        assert data.order() == ByteOrder.BIG_ENDIAN;
+        assert from >= 0 && from <= to && to <= data.limit();
+        assert hashTable != null && hashTable.length == 64 && position <= y * imageWidth + x;
+
+        // Positions are indices of pixels in the whole image, [next, limit) is what is left of the current row
+        int next = y * imageWidth + x;
+        int limit = next + width;
+        int last = (y + height - 1) * imageWidth + x + width;
+        int stored = 0;
+        int index = from;
+
+        while (position < last && index < to) {
+            int chunk = data.get(index) & 0xFF;
+            int count = PIXEL_COUNTS[chunk];
+
+            previousPixel = decodeChunk(data, index, chunk, previousPixel, hashTable);
+            index += CHUNK_SIZES[chunk];
+
+            position += count;
+            while (position > next && next < last) {
+                int end = Math.min(position, limit);
+                for (int i = Math.max(position - count, next); i < end; i++) buffer[stored++] = previousPixel;
+                if (end < limit) break;
+                next += imageWidth;
+                limit += imageWidth;
+            }
+        }
+
+        return stored;
+    }
+
+    // ==================================================================================
+    // ============================== OPCODE LOOKUP TABLES ==============================
+    // ==================================================================================
+
+    static final byte OP_INDEX = 0;
+    static final byte OP_DIFF = 1;
+    static final byte OP_LUMA = 2;
+    static final byte OP_RUN = 3;
+    static final byte OP_RGB = 4;
+    static final byte OP_RGBA = 5;
+
+    /**
+     * Kind of chunk started by each of the 256 possible tag bytes
+     */
+    static final byte[] OPCODES = new byte[256];
+
+    /**
+     * Precomputed operand of each tag byte : the index for QOI_OP_INDEX, the packed channel differences
+     * for QOI_OP_DIFF, the packed green difference applied to every channel for QOI_OP_LUMA
+     * and the number of pixels for QOI_OP_RUN
+     */
+    static final int[] OPERANDS = new int[256];
+
+    /**
+     * Packed red and blue differences relative to the green one, for each second byte of a QOI_OP_LUMA chunk
+     */
+    static final int[] LUMA_RED_BLUE = new int[256];
+
+    /**
+     * Big endian view of the data, so that the color bytes of a chunk are read with a single bounds checked load
+     */
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    /**
+     * Size in bytes of the chunk started by each tag byte
+     */
+    static final byte[] CHUNK_SIZES = new byte[256];
+
+    /**
+     * Number of pixels of the chunk started by each tag byte : the length of the run for QOI_OP_RUN, 1 otherwise
+     */
+    static final int[] PIXEL_COUNTS = new int[256];
+
+    static {
+        for (int chunk = 0; chunk < 256; chunk++) {
+            switch (chunk >> 6) {
+                case 0 -> {
+                    OPCODES[chunk] = OP_INDEX;
+                    OPERANDS[chunk] = chunk;
+                }
+                case 1 -> {
+                    OPCODES[chunk] = OP_DIFF;
+                    OPERANDS[chunk] = packDifference((chunk >> 4 & 0b11) - 2, (chunk >> 2 & 0b11) - 2, (chunk & 0b11) - 2);
+                }
+                case 2 -> {
+                    int diffGreen = (chunk & 0b00_11_11_11) - 32;
+                    OPCODES[chunk] = OP_LUMA;
+                    OPERANDS[chunk] = packDifference(diffGreen, diffGreen, diffGreen);
+                }
+                default -> {
+                    OPCODES[chunk] = OP_RUN;
+                    OPERANDS[chunk] = (chunk & 0b00_11_11_11) + 1;
+                }
+            }
+            LUMA_RED_BLUE[chunk] = packDifference((chunk >> 4) - 8, 0, (chunk & 0b11_11) - 8);
+        }
+        OPCODES[QOISpecification.QOI_OP_RGB_TAG & 0xFF] = OP_RGB;
+        OPCODES[QOISpecification.QOI_OP_RGBA_TAG & 0xFF] = OP_RGBA;
+
+        for (int chunk = 0; chunk < 256; chunk++) {
+            CHUNK_SIZES[chunk] = switch (OPCODES[chunk]) {
+                case OP_RGB -> 4;
+                case OP_RGBA -> 5;
+                case OP_LUMA -> 2;
+                default -> 1;
+            };
+            PIXEL_COUNTS[chunk] = OPCODES[chunk] == OP_RUN ? OPERANDS[chunk] : 1;
+        }
+    }
+
+    private static int packDifference(int diffRed, int diffGreen, int diffBlue) {
+        return (diffRed & 0xFF) << 24 | (diffGreen & 0xFF) << 16 | (diffBlue & 0xFF) << 8;
+    }
+
+    /**
+     * Add two packed pixels channel by channel, each channel wrapping around on its own
+     *
+     * @param pixel      (int) - Packed pixel (0xRRGGBBAA)
+     * @param difference (int) - Packed differences, as stored in the lookup tables
+     * @return (int) - The new packed pixel
+     */
+    static int addPacked(int pixel, int difference) {
+        return ((pixel & 0x7F_7F_7F_7F) + (difference & 0x7F_7F_7F_7F)) ^ ((pixel ^ difference) & 0x80_80_80_80);
+    }
+
+    // ==================================================================================
+    // ============================= CHUNK DECODING METHOD ==============================
+    // ==================================================================================
+
+    /**
+     * Decode a single chunk. Every decoder of the codec goes through this method, so that they all interpret
+     * the chunks and update the hash table the same way. As in the specification, the decoded pixel is stored
+     * at its hash after every chunk, QOI_OP_INDEX and QOI_OP_RUN included.
+     * The chunk is {@link #CHUNK_SIZES} bytes long and stands for {@link #PIXEL_COUNTS} pixels
+     *
+     * @param data          (ByteBuffer) - Data holding the chunk, heap, direct or mapped, in big endian order,
+     *                      read with absolute accesses
+     * @param index         (int) - Index in the data of the tag byte of the chunk
+     * @param chunk         (int) - Tag byte of the chunk, as an unsigned value
+     * @param previousPixel (int) - Packed pixel decoded right before the chunk
+     * @param hashTable     (int[]) - Hash table of the decoder, updated in place
+     * @return (int) - The packed pixel (0xRRGGBBAA) decoded from the chunk
+     */
+    static int decodeChunk(ByteBuffer data, int index, int chunk, int previousPixel, int[] hashTable) {
+        return decodeChunk(data, index, chunk, previousPixel, hashTable, null);
+    }
+
+    /**
+     * Decode a single chunk and count it, see {@link #decodeChunk(ByteBuffer, int, int, int, int[])}
+     *
+     * @param data          (ByteBuffer) - Data holding the chunk, in big endian order
+     * @param index         (int) - Index in the data of the tag byte of the chunk
+     * @param chunk         (int) - Tag byte of the chunk, as an unsigned value
+     * @param previousPixel (int) - Packed pixel decoded right before the chunk
+     * @param hashTable     (int[]) - Hash table of the decoder, updated in place
+     * @param counter       (QOIChunkStats.Counter) - Counter of the chunks of the file, null when nothing is measured
+     * @return (int) - The packed pixel (0xRRGGBBAA) decoded from the chunk
+     */
+    static int decodeChunk(ByteBuffer data, int index, int chunk, int previousPixel, int[] hashTable,
+                           QOIChunkStats.Counter counter) {
+        int operand = OPERANDS[chunk];
+        int pixel = switch (OPCODES[chunk]) {
+            // Big endian read of the tag and the 3 color bytes, the tag is replaced by the previous alpha
+            case OP_RGB -> data.getInt(index) << 8 | previousPixel & 0xFF;
+            case OP_RGBA -> data.getInt(index + 1);
+            case OP_INDEX -> hashTable[operand];
+            case OP_DIFF -> addPacked(previousPixel, operand);
+            case OP_LUMA -> addPacked(addPacked(previousPixel, operand), LUMA_RED_BLUE[data.get(index + 1) & 0xFF]);
+            default -> previousPixel;
+        };
+        hashTable[QOISpecification.hash(pixel)] = pixel;
+        if (counter != null) counter.count(chunk, pixel);
+        return pixel;
+    }
+
+    private static void tooManyPixels(int expected) {
+        Helper.fail("Corrupted \"Quite Ok Image\" data : the chunks hold more than the %d expected pixels", expected);
+    }
+
+    /**
+     * Check that the chunks of a file held exactly the pixels of its image, whether assertions are enabled or not
+     *
+     * @param decoded  (int) - Number of decoded pixels
+     * @param expected (int) - Number of pixels of the image
+     * @throws RuntimeException if the numbers differ
+     */
+    static void checkPixelCount(int decoded, int expected) {
+        if (decoded != expected) {
+            Helper.fail("Corrupted \"Quite Ok Image\" file : %d pixels decoded instead of %d", decoded, expected);
+        }
+    }
+
+    /**
+     * Check that a file ends with the "End Of File" marker, whether assertions are enabled or not
+     *
+     * @param data   (ByteBuffer) - Big endian data holding the file, read with absolute accesses
+     * @param offset (int) - Index in the data of the first byte of the file
+     * @param end    (int) - Index in the data right after the last byte of the file
+     * @throws RuntimeException if the file is too short to hold a header and the marker, or doesn't end with it
+     */
+    static void checkEndMarker(ByteBuffer data, int offset, int end) {
+        int marker = end - QOISpecification.QOI_EOF.length;
+        if (marker - offset < QOISpecification.HEADER_SIZE || data.getLong(marker) != EOF) {
+            Helper.fail("Corrupted \"Quite Ok Image\" file : missing \"End Of File\" marker");
+        }
+    }
+
+    // ==================================================================================
+    // ============================== FILE DECODING METHODS =============================
+    // ==================================================================================
+
+    /**
+     * Decode a file using the "Quite Ok Image" Protocol
+     *
+     * @param content (byte[]) - Content of the file to decode
+     * @return (Image) - Decoded image
+     * @throws AssertionError if content is null or is not a valid "Quite Ok Image" file
+     */
+    public static Image decodeQoiFile(byte[] content) {
+        assert content != null;
+        return decodeQoiFile(ByteBuffer.wrap(content));
+    }
+
+    /**
+     * Decode a file held between the position and the limit of a byte buffer, heap, direct or mapped.
+     * The position is moved to the limit
+     *
+     * @param content (ByteBuffer) - Content of the file to decode
+     * @return (Image) - Decoded image
+     * @throws AssertionError if content is null or is not a valid "Quite Ok Image" file
+     */
+    public static Image decodeQoiFile(ByteBuffer content) {
+        assert content != null;
+
+        int[] decodedHeader = decodeHeader(content);
+        PixelBuffer pixels = decodePixels(content, decodedHeader);
+        int[][] data = ArrayUtils.pixelsToImage(pixels.data(), pixels.height(), pixels.width());
+
+        return Helper.generateImage(data, (byte) decodedHeader[2], (byte) decodedHeader[3]);
+    }
+
+    /**
+     * Decode a file held between the position and the limit of a byte buffer, heap, direct or mapped,
+     * into packed pixels (0xRRGGBBAA). The bytes are read in place and the position is moved to the limit
+     *
+     * @param content (ByteBuffer) - Content of the file to decode
+     * @return (PixelBuffer) - Decoded pixels
+     * @throws AssertionError if content is null or is not a valid "Quite Ok Image" file
+     */
+    public static PixelBuffer decodePixels(ByteBuffer content) {
+        assert content != null;
+        return decodePixels(content, decodeHeader(content));
+    }
+
+    /**
+     * Decode a file using the "Quite Ok Image" Protocol into packed pixels (0xRRGGBBAA)
+     *
+     * @param content (byte[]) - Content of the file to decode
+     * @return (PixelBuffer) - Decoded pixels
+     * @throws AssertionError if content is null or is not a valid "Quite Ok Image" file
+     */
+    public static PixelBuffer decodePixels(byte[] content) {
+        assert content != null;
+        return decodePixels(ByteBuffer.wrap(content));
+    }
+
+    private static PixelBuffer decodePixels(ByteBuffer content, int[] decodedHeader) {
+        ByteBuffer view = content.slice().order(ByteOrder.BIG_ENDIAN);
+        int length = view.limit();
+        checkEndMarker(view, 0, length);
+
+        int count = QOIHeader.arrayPixelCount(decodedHeader[0], decodedHeader[1]);
+        PixelBuffer pixels = new PixelBuffer(new int[count], decodedHeader[0], decodedHeader[1]);
+        int position = decodeData(view, QOISpecification.HEADER_SIZE, length - QOISpecification.QOI_EOF.length,
+                pixels.data(), 0, QOISpecification.PACKED_START_PIXEL, new int[64]);
+        checkPixelCount(position, count);
+        content.position(content.limit());
+
+        return pixels;
+    }
+}
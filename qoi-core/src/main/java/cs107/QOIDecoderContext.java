@@ -0,0 +1,242 @@
+package cs107;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Reusable "Quite Ok Image" decoder owning its hash table and its pixel buffer.
+ * The pixel buffer only grows, so once it fits the largest image decoded, decoding allocates nothing.
+ * <p>
+ * A context is not thread safe, it must be confined to one thread at a time, for instance through
+ * {@link #forCurrentThread()} or an object pool. The decoded pixels stay in {@link #pixels()} until the next call.
+ */
+public final class QOIDecoderContext {
+
+    private static final ThreadLocal<QOIDecoderContext> LOCAL = ThreadLocal.withInitial(QOIDecoderContext::new);
+
+    /**
+     * Magic number "qoif" read as a big endian integer
+     */
+    private static final int MAGIC = ArrayUtils.toInt(QOISpecification.QOI_MAGIC);
+
+    private final int[] hashTable = new int[64];
+    private int[] pixels = new int[0];
+    private int width;
+    private int height;
+    private byte channels;
+    private byte colorSpace;
+    private final QOIChunkStats.Counter counter = new QOIChunkStats.Counter();
+    private Consumer<QOIChunkStats> listener = null;
+
+    /**
+     * Create a context with an empty pixel buffer, it grows with the first images
+     */
+    public QOIDecoderContext() {}
+
+    /**
+     * Context of the calling thread, created on first use
+     *
+     * @return (QOIDecoderContext) - The context owned by the calling thread
+     */
+    public static QOIDecoderContext forCurrentThread() {
+        return LOCAL.get();
+    }
+
+    // ==================================================================================
+    // ============================== DECODING METHODS ==================================
+    // ==================================================================================
+
+    /**
+     * Decode a whole "Quite Ok Image" file into the pixel buffer
+     *
+     * @param content (byte[]) - Content of the file
+     * @return (int) - Number of decoded pixels, see {@link #pixels()}
+     * @throws AssertionError if content is null
+     * @throws RuntimeException if content is not a valid "Quite Ok Image" file
+     */
+    public int decode(byte[] content) {
+        assert content != null;
+        return decode(content, 0, content.length);
+    }
+
+    /**
+     * Decode a "Quite Ok Image" file stored in a range of an array into the pixel buffer
+     *
+     * @param content (byte[]) - Array holding the file
+     * @param offset  (int) - Index of the first byte of the file
+     * @param length  (int) - Size of the file
+     * @return (int) - Number of decoded pixels, see {@link #pixels()}
+     * @throws AssertionError if the range is invalid
+     * @throws RuntimeException if the range doesn't hold a valid "Quite Ok Image" file
+     */
+    public int decode(byte[] content, int offset, int length) {
+        assert content != null;
+        assert offset >= 0 && length >= 0 && offset + length <= content.length;
+
+        // Without listener, nothing is measured
+        if (listener == null) return decodeFile(content, offset, length, null);
+
+        counter.reset();
+        long start = System.nanoTime();
+        int count = decodeFile(content, offset, length, counter);
+        long nanos = System.nanoTime() - start;
+        listener.accept(counter.toStats(count, length, nanos));
+
+        return count;
+    }
+
+    private int decodeFile(byte[] content, int offset, int length, QOIChunkStats.Counter counter) {
+        ByteBuffer data = ByteBuffer.wrap(content);
+        QOIDecoder.checkEndMarker(data, offset, offset + length);
+        int end = offset + length - QOISpecification.QOI_EOF.length;
+
+        int count = readHeader(readInt(content, offset), readInt(content, offset + 4), readInt(content, offset + 8),
+                content[offset + 12], content[offset + 13]);
+
+        int decoded = QOIDecoder.decodeData(data, offset + QOISpecification.HEADER_SIZE, end,
+                pixels, 0, QOISpecification.PACKED_START_PIXEL, hashTable, counter);
+        QOIDecoder.checkPixelCount(decoded, count);
+
+        return count;
+    }
+
+    /**
+     * Decode a "Quite Ok Image" file held between the position and the limit of a byte buffer,
+     * heap, direct or mapped, into the pixel buffer. The position is moved to the limit
+     *
+     * @param content (ByteBuffer) - Buffer holding the file
+     * @return (int) - Number of decoded pixels, see {@link #pixels()}
+     * @throws AssertionError if content is null
+     * @throws RuntimeException if content doesn't hold a valid "Quite Ok Image" file
+     */
+    public int decode(ByteBuffer content) {
+        assert content != null;
+
+        // Without listener, nothing is measured
+        if (listener == null) return decodeFile(content, null);
+
+        int length = content.remaining();
+        counter.reset();
+        long start = System.nanoTime();
+        int count = decodeFile(content, counter);
+        long nanos = System.nanoTime() - start;
+        listener.accept(counter.toStats(count, length, nanos));
+
+        return count;
+    }
+
+    private int decodeFile(ByteBuffer content, QOIChunkStats.Counter counter) {
+        ByteBuffer data = content.order() == ByteOrder.BIG_ENDIAN ? content : content.duplicate().order(ByteOrder.BIG_ENDIAN);
+        int offset = content.position();
+        QOIDecoder.checkEndMarker(data, offset, content.limit());
+        int end = content.limit() - QOISpecification.QOI_EOF.length;
+
+        int count = readHeader(data.getInt(offset), data.getInt(offset + 4), data.getInt(offset + 8),
+                data.get(offset + 12), data.get(offset + 13));
+
+        int decoded = QOIDecoder.decodeData(data, offset + QOISpecification.HEADER_SIZE, end, pixels, 0,
+                QOISpecification.PACKED_START_PIXEL, hashTable, counter);
+        QOIDecoder.checkPixelCount(decoded, count);
+        content.position(content.limit());
+
+        return count;
+    }
+
+    /**
+     * Set the listener receiving the statistics of every file decoded from now on by this context,
+     * see {@link QOIChunkStats}. The chunks are counted while they are decoded, so the measured time includes
+     * the counting but the file is read only once
+     *
+     * @param listener (Consumer) - Listener to call after every decoding, null to stop measuring
+     */
+    public void setListener(Consumer<QOIChunkStats> listener) {
+        this.listener = listener;
+    }
+
+    // ==================================================================================
+    // =============================== OUTPUT METHODS ===================================
+    // ==================================================================================
+
+    /**
+     * @return (int[]) - Buffer holding the last decoded pixels (0xRRGGBBAA) in its first width * height entries,
+     * overwritten by the next call
+     */
+    public int[] pixels() {
+        return pixels;
+    }
+
+    /**
+     * @return (int) - Width of the last decoded image
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * @return (int) - Height of the last decoded image
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * @return (byte) - Number of channels of the last decoded image
+     */
+    public byte channels() {
+        return channels;
+    }
+
+    /**
+     * @return (byte) - Color space of the last decoded image
+     */
+    public byte colorSpace() {
+        return colorSpace;
+    }
+
+    /**
+     * @return (PixelBuffer) - Copy of the last decoded pixels
+     */
+    public PixelBuffer toPixelBuffer() {
+        return new PixelBuffer(Arrays.copyOf(pixels, width * height), width, height);
+    }
+
+    /**
+     * @return (Helper.Image) - Copy of the last decoded image
+     */
+    public Helper.Image toImage() {
+        return Helper.generateImage(ArrayUtils.pixelsToImage(pixels, height, width), channels, colorSpace);
+    }
+
+    /**
+     * Reset the decoder to the state expected at the start of an image, keeping the pixel buffer
+     */
+    public void reset() {
+        Arrays.fill(hashTable, 0);
+        width = 0;
+        height = 0;
+        channels = 0;
+        colorSpace = 0;
+    }
+
+    private int readHeader(int magic, int width, int height, byte channels, byte colorSpace) {
+        if (magic != MAGIC) Helper.fail("Corrupted \"Quite Ok Image\" header : invalid magic number");
+        int count = new QOIHeader(width, height, channels, colorSpace).arrayPixelCount();
+
+        reset();
+        this.width = width;
+        this.height = height;
+        this.channels = channels;
+        this.colorSpace = colorSpace;
+
+        // The previous pixels are never kept, no need to copy them
+        if (pixels.length < count) pixels = new int[count];
+        return count;
+    }
+
+    private static int readInt(byte[] content, int index) {
+        return (content[index] & 0xFF) << 24 | (content[index + 1] & 0xFF) << 16
+                | (content[index + 2] & 0xFF) << 8 | content[index + 3] & 0xFF;
+    }
+}
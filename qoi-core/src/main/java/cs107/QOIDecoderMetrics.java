@@ -0,0 +1,153 @@
+package cs107;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Listener adding up the statistics of every file decoded by the contexts it is given to,
+ * see {@link QOIDecoderContext#setListener(Consumer)}.
+ * It can be shared by several contexts and threads, and exposed as a JMX bean to follow the decoder
+ * from any JMX console.
+ */
+public final class QOIDecoderMetrics implements Consumer<QOIChunkStats>, QOIDecoderMetricsMBean {
+
+    private final AtomicReference<QOIChunkStats> total = new AtomicReference<>(QOIChunkStats.EMPTY);
+
+    /**
+     * Add the statistics of a decoded file
+     *
+     * @param stats (QOIChunkStats) - Statistics of the file
+     */
+    @Override
+    public void accept(QOIChunkStats stats) {
+        assert stats != null;
+        total.accumulateAndGet(stats, QOIChunkStats::plus);
+    }
+
+    /**
+     * @return (QOIChunkStats) - Statistics of all the files decoded so far
+     */
+    public QOIChunkStats snapshot() {
+        return total.get();
+    }
+
+    /**
+     * Forget every file decoded so far
+     */
+    @Override
+    public void reset() {
+        total.set(QOIChunkStats.EMPTY);
+    }
+
+    /**
+     * Register the metrics in the platform MBean server
+     *
+     * @param name (String) - Object name of the bean, for instance "cs107:type=QOIDecoder"
+     * @throws RuntimeException if the name is invalid or already registered
+     */
+    public void register(String name) {
+        assert name != null;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(name));
+        } catch (JMException e) {
+            Helper.fail("An error occurred while trying to register the metrics as : \"%s\"%n", name);
+        }
+    }
+
+    // ==================================================================================
+    // =============================== BEAN ATTRIBUTES ==================================
+    // ==================================================================================
+
+    @Override
+    public long getImages() {
+        return total.get().images();
+    }
+
+    @Override
+    public long getPixels() {
+        return total.get().pixels();
+    }
+
+    @Override
+    public long getBytes() {
+        return total.get().bytes();
+    }
+
+    @Override
+    public long getRunChunks() {
+        return total.get().runs();
+    }
+
+    @Override
+    public long getIndexChunks() {
+        return total.get().indexes();
+    }
+
+    @Override
+    public long getDiffChunks() {
+        return total.get().diffs();
+    }
+
+    @Override
+    public long getLumaChunks() {
+        return total.get().lumas();
+    }
+
+    @Override
+    public long getRgbChunks() {
+        return total.get().rgbs();
+    }
+
+    @Override
+    public long getRgbaChunks() {
+        return total.get().rgbas();
+    }
+
+    @Override
+    public long getRunBytes() {
+        return total.get().runBytes();
+    }
+
+    @Override
+    public long getIndexBytes() {
+        return total.get().indexBytes();
+    }
+
+    @Override
+    public long getDiffBytes() {
+        return total.get().diffBytes();
+    }
+
+    @Override
+    public long getLumaBytes() {
+        return total.get().lumaBytes();
+    }
+
+    @Override
+    public long getRgbBytes() {
+        return total.get().rgbBytes();
+    }
+
+    @Override
+    public long getRgbaBytes() {
+        return total.get().rgbaBytes();
+    }
+
+    @Override
+    public double getDecodeMillis() {
+        return total.get().nanos() / 1e6;
+    }
+
+    @Override
+    public double getMegabytesPerSecond() {
+        return total.get().megabytesPerSecond();
+    }
+
+    @Override
+    public double getMegapixelsPerSecond() {
+        return total.get().megapixelsPerSecond();
+    }
+}
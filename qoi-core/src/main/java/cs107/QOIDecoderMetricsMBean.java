@@ -0,0 +1,46 @@
+package cs107;
+
+/**
+ * Management interface of {@link QOIDecoderMetrics}, every attribute adds up all the files decoded
+ * since the creation or the last reset of the metrics
+ */
+public interface QOIDecoderMetricsMBean {
+
+    long getImages();
+
+    long getPixels();
+
+    long getBytes();
+
+    long getRunChunks();
+
+    long getIndexChunks();
+
+    long getDiffChunks();
+
+    long getLumaChunks();
+
+    long getRgbChunks();
+
+    long getRgbaChunks();
+
+    long getRunBytes();
+
+    long getIndexBytes();
+
+    long getDiffBytes();
+
+    long getLumaBytes();
+
+    long getRgbBytes();
+
+    long getRgbaBytes();
+
+    double getDecodeMillis();
+
+    double getMegabytesPerSecond();
+
+    double getMegapixelsPerSecond();
+
+    void reset();
+}
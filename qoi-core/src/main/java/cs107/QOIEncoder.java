@@ -0,0 +1,411 @@
+package cs107;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * "Quite Ok Image" Encoder
+ *
+ * @author Hamza REMMAL (hamza.remmal@epfl.ch)
+ * @version 1.2
+ * @apiNote Second task of the 2022 Mini Project
+ * @since 1.0
+ */
+public final class QOIEncoder {
+
+    /**
+     * DO NOT CHANGE THIS, MORE ON THAT IN WEEK 7.
+     */
+    private QOIEncoder() {
+    }
+
+    // ==================================================================================
+    // ============================ QUITE OK IMAGE HEADER ===============================
+    // ==================================================================================
+
+    /**
+     * Generate a "Quite Ok Image" header using the following parameters
+     *
+     * @param image (Helper.Image) - Image to use
+     * @return (byte[]) - Corresponding "Quite Ok Image" Header
+     * @throws AssertionError if the colorspace or the number of channels is corrupted or if the image is null.
+     *                        (See the "Quite Ok Image" Specification or the handouts of the project for more information)
+     */
+    public static byte[] qoiHeader(Helper.Image image) {
+
+        assert image != null;
+
+        return qoiHeader(image.data()[0].length, image.data().length, image.channels(), image.color_space());
+    }
+
+    /**
+     * Generate a "Quite Ok Image" header using the following parameters
+     *
+     * @param width      (int) - Width of the image
+     * @param height     (int) - Height of the image
+     * @param channels   (byte) - Number of channels of the image
+     * @param colorSpace (byte) - Color space of the image
+     * @return (byte[]) - Corresponding "Quite Ok Image" Header
+     * @throws AssertionError if the colorspace, the number of channels or the dimensions are corrupted.
+     */
+    public static byte[] qoiHeader(int width, int height, byte channels, byte colorSpace) {
+
+        assert width > 0 && height > 0;
+        assert channels == QOISpecification.RGB || channels == QOISpecification.RGBA;
+        assert colorSpace == QOISpecification.sRGB || colorSpace == QOISpecification.ALL;
+
+        return ArrayUtils.concat(QOISpecification.QOI_MAGIC, ArrayUtils.fromInt(width), ArrayUtils.fromInt(height),
+                ArrayUtils.wrap(channels), ArrayUtils.wrap(colorSpace));
+    }
+
+    /**
+     * Write a "Quite Ok Image" header directly into the output buffer, without allocating it
+     *
+     * @param width      (int) - Width of the image
+     * @param height     (int) - Height of the image
+     * @param channels   (byte) - Number of channels of the image
+     * @param colorSpace (byte) - Color space of the image
+     * @param output     (byte[]) - Buffer where to write the header
+     * @param position   (int) - Index in the output to start writing from
+     * @return (int) - Index in the output right after the header
+     * @throws AssertionError if the colorspace, the number of channels or the dimensions are corrupted.
+     */
+    static int writeHeader(int width, int height, byte channels, byte colorSpace, byte[] output, int position) {
+        assert width > 0 && height > 0;
+        assert channels == QOISpecification.RGB || channels == QOISpecification.RGBA;
+        assert colorSpace == QOISpecification.sRGB || colorSpace == QOISpecification.ALL;
+        assert output != null && position >= 0 && output.length - position >= QOISpecification.HEADER_SIZE;
+
+        System.arraycopy(QOISpecification.QOI_MAGIC, 0, output, position, QOISpecification.QOI_MAGIC.length);
+        for (int i = 0; i < 4; i++) {
+            output[position + 4 + i] = (byte) (width >>> 24 - 8 * i);
+            output[position + 8 + i] = (byte) (height >>> 24 - 8 * i);
+        }
+        output[position + 12] = channels;
+        output[position + 13] = colorSpace;
+
+        return position + QOISpecification.HEADER_SIZE;
+    }
+
+    // ==================================================================================
+    // ============================ ATOMIC ENCODING METHODS =============================
+    // ==================================================================================
+
+    /**
+     * Encode the given pixel using the QOI_OP_RGB schema
+     *
+     * @param pixel (byte[]) - The Pixel to encode
+     * @return (byte[]) - Encoding of the pixel using the QOI_OP_RGB schema
+     * @throws AssertionError if the pixel's length is not 4
+     */
+    public static byte[] qoiOpRGB(byte[] pixel) {
+
+        assert pixel.length == 4;
+
+        byte[] result = new byte[4];
+
+        result[0] = QOISpecification.QOI_OP_RGB_TAG;
+        for (int i = 0; i < 3; i++) result[i + 1] = pixel[i];
+
+        return result;
+    }
+
+    /**
+     * Encode the given pixel using the QOI_OP_RGBA schema
+     *
+     * @param pixel (byte[]) - The pixel to encode
+     * @return (byte[]) Encoding of the pixel using the QOI_OP_RGBA schema
+     * @throws AssertionError if the pixel's length is not 4
+     */
+    public static byte[] qoiOpRGBA(byte[] pixel) {
+
+        assert pixel.length == 4;
+
+        byte[] result = new byte[5];
+
+        result[0] = QOISpecification.QOI_OP_RGBA_TAG;
+        for (int i = 0; i < 4; i++) result[i + 1] = pixel[i];
+
+        return result;
+    }
+
+    /**
+     * Encode the index using the QOI_OP_INDEX schema
+     *
+     * @param index (byte) - Index of the pixel
+     * @return (byte[]) - Encoding of the index using the QOI_OP_INDEX schema
+     * @throws AssertionError if the index is outside the range of all possible indices
+     */
+    public static byte[] qoiOpIndex(byte index) {
+        assert index >= 0 && index <= 63;
+        return ArrayUtils.wrap(index);
+    }
+
+    /**
+     * Encode the difference between 2 pixels using the QOI_OP_DIFF schema
+     *
+     * @param diff (byte[]) - The difference between 2 pixels
+     * @return (byte[]) - Encoding of the given difference
+     * @throws AssertionError if diff doesn't respect the constraints or diff's length is not 3
+     *                        (See the handout for the constraints)
+     */
+    public static byte[] qoiOpDiff(byte[] diff) {
+        assert diff != null;
+        assert diff.length == 3;
+        for (byte di : diff) assert di <= 1 && di >= -2;
+
+
+        byte result = QOISpecification.QOI_OP_DIFF_TAG;
+        for (int i = diff.length - 1; i >= 0; i--) {
+            byte x = (byte) ((diff[2 - i] + 2) << 2 * i);
+            result = (byte) (result | x);
+        }
+
+
+        return ArrayUtils.wrap(result);
+    }
+
+    /**
+     * Encode the difference between 2 pixels using the QOI_OP_LUMA schema
+     *
+     * @param diff (byte[]) - The difference between 2 pixels
+     * @return (byte[]) - Encoding of the given difference
+     * @throws AssertionError if diff doesn't respect the constraints
+     *                        or diff's length is not 3
+     *                        (See the handout for the constraints)
+     */
+    public static byte[] qoiOpLuma(byte[] diff) {
+        assert diff != null;
+        assert diff.length == 3;
+        assert diff[1] > -33 && diff[1] < 32;
+        for (int i = 0; i < diff.length; i += 2) assert diff[i] - diff[1] > -9 && diff[i] - diff[1] < 8;
+
+        byte[] result = new byte[2];
+        result[0] = (byte) (QOISpecification.QOI_OP_LUMA_TAG + (32 + diff[1]));
+        result[1] = (byte) (((diff[0] - diff[1] + 8) << 4) + diff[2] - diff[1] + 8);
+
+        return result;
+    }
+
+    /**
+     * Encode the number of similar pixels using the QOI_OP_RUN schema
+     *
+     * @param count (byte) - Number of similar pixels
+     * @return (byte[]) - Encoding of count
+     * @throws AssertionError if count is not between 0 (exclusive) and 63 (exclusive)
+     */
+    public static byte[] qoiOpRun(byte count) {
+        assert count >= 1 && count <= 62;
+        byte result = (byte) (QOISpecification.QOI_OP_RUN_TAG + (count - 1));
+
+        return ArrayUtils.wrap(result);
+    }
+
+    // ==================================================================================
+    // ============================== GLOBAL ENCODING METHODS  ==========================
+    // ==================================================================================
+
+    /**
+     * Encode the given image using the "Quite Ok Image" Protocol
+     * (See handout for more information about the "Quite Ok Image" protocol)
+     *
+     * @param image (byte[][]) - Formatted image to encode
+     * @return (byte[]) - "Quite Ok Image" representation of the image
+     */
+    public static byte[] encodeData(byte[][] image) {
+        assert image != null;
+        for (byte[] im : image) assert im != null && im.length == 4;
+
+        return encodeData(ArrayUtils.channelsToPixels(image));
+    }
+
+    /**
+     * Encode the given packed pixels using the "Quite Ok Image" Protocol
+     *
+     * @param image (PixelBuffer) - Packed pixels to encode
+     * @return (byte[]) - "Quite Ok Image" representation of the image
+     */
+    public static byte[] encodeData(PixelBuffer image) {
+        assert image != null;
+
+        return encodeData(image.data());
+    }
+
+    /**
+     * Encode the given image using the "Quite Ok Image" Protocol directly into the output buffer
+     *
+     * @param image    (byte[][]) - Formatted image to encode
+     * @param output   (byte[]) - Buffer where to write the encoded chunks
+     * @param position (int) - Index in the output to start writing from
+     * @return (int) - Index in the output right after the last written byte
+     * @throws AssertionError if the image is invalid or the output is too small to hold the worst case encoding
+     */
+    public static int encodeData(byte[][] image, byte[] output, int position) {
+        assert image != null;
+        for (byte[] im : image) assert im != null && im.length == 4;
+
+        return encodeData(ArrayUtils.channelsToPixels(image), output, position);
+    }
+
+    /**
+     * Encode the given packed pixels (0xRRGGBBAA) using the "Quite Ok Image" Protocol directly into the output buffer
+     *
+     * @param pixels   (int[]) - Packed pixels to encode
+     * @param output   (byte[]) - Buffer where to write the encoded chunks
+     * @param position (int) - Index in the output to start writing from
+     * @return (int) - Index in the output right after the last written byte
+     * @throws AssertionError if the pixels are null or the output is too small to hold the worst case encoding
+     */
+    public static int encodeData(int[] pixels, byte[] output, int position) {
+        assert pixels != null && output != null;
+        assert position >= 0 && output.length - position >= maxDataSize(pixels.length);
+
+        QOIEncoderState state = new QOIEncoderState();
+        position = state.encode(pixels, 0, pixels.length, output, position);
+
+        return state.finish(output, position);
+    }
+
+    /**
+     * Encode the given packed pixels (0xRRGGBBAA) using the "Quite Ok Image" Protocol into a byte buffer,
+     * heap, direct or mapped. The chunks are written from the position of the buffer, which is moved after them
+     *
+     * @param pixels (int[]) - Packed pixels to encode
+     * @param output (ByteBuffer) - Buffer where to write the encoded chunks
+     * @return (int) - The number of written bytes
+     * @throws AssertionError if the pixels are null or the remaining space is too small to hold the worst case encoding
+     */
+    public static int encodeData(int[] pixels, ByteBuffer output) {
+        assert pixels != null && output != null;
+        assert output.remaining() >= maxDataSize(pixels.length);
+
+        int start = output.position();
+        QOIEncoderState state = new QOIEncoderState();
+        state.encode(pixels, 0, pixels.length, output);
+        state.finish(output);
+
+        return output.position() - start;
+    }
+
+    /**
+     * Creates the representation in memory of the "Quite Ok Image" file.
+     *
+     * @param image (Helper.Image) - Image to encode
+     * @return (byte[]) - Binary representation of the "Quite Ok File" of the image
+     * @throws AssertionError if the image is null
+     * @apiNote THE FILE IS NOT CREATED YET, THIS IS JUST ITS REPRESENTATION.
+     * TO CREATE THE FILE, YOU'LL NEED TO CALL Helper::write
+     */
+    public static byte[] qoiFile(Helper.Image image) {
+        assert image != null;
+
+        int[][] data = image.data();
+        PixelBuffer pixels = new PixelBuffer(ArrayUtils.imageToPixels(data), data[0].length, data.length);
+
+        return qoiFile(pixels, image.channels(), image.color_space());
+    }
+
+    /**
+     * Creates the representation in memory of the "Quite Ok Image" file from packed pixels.
+     *
+     * @param pixels     (PixelBuffer) - Packed pixels to encode
+     * @param channels   (byte) - Number of channels of the image
+     * @param colorSpace (byte) - Color space of the image
+     * @return (byte[]) - Binary representation of the "Quite Ok File" of the image
+     * @throws AssertionError if the pixels are null or the header parameters are corrupted
+     */
+    public static byte[] qoiFile(PixelBuffer pixels, byte channels, byte colorSpace) {
+        assert pixels != null;
+
+        byte[] output = new byte[maxFileSize(pixels.data().length)];
+
+        int position = writeBytes(qoiHeader(pixels.width(), pixels.height(), channels, colorSpace), output, 0);
+        position = encodeData(pixels.data(), output, position);
+        position = writeBytes(QOISpecification.QOI_EOF, output, position);
+
+        return position == output.length ? output : Arrays.copyOf(output, position);
+    }
+
+    /**
+     * Write the "Quite Ok Image" file of the given packed pixels into a byte buffer, heap, direct or mapped.
+     * The file is written from the position of the buffer, which is moved after it
+     *
+     * @param pixels     (PixelBuffer) - Packed pixels to encode
+     * @param channels   (byte) - Number of channels of the image
+     * @param colorSpace (byte) - Color space of the image
+     * @param output     (ByteBuffer) - Buffer where to write the file
+     * @return (int) - The number of written bytes
+     * @throws AssertionError if the pixels are null, the header parameters are corrupted
+     *                        or the remaining space is smaller than {@link #maxFileSize(int)}
+     */
+    public static int qoiFile(PixelBuffer pixels, byte channels, byte colorSpace, ByteBuffer output) {
+        assert pixels != null && output != null;
+        assert output.remaining() >= maxFileSize(pixels.data().length);
+
+        int start = output.position();
+        output.put(qoiHeader(pixels.width(), pixels.height(), channels, colorSpace));
+        encodeData(pixels.data(), output);
+        output.put(QOISpecification.QOI_EOF);
+
+        return output.position() - start;
+    }
+
+    /**
+     * Write the "Quite Ok Image" file of the given image into a byte buffer, heap, direct or mapped.
+     * The file is written from the position of the buffer, which is moved after it
+     *
+     * @param image  (Helper.Image) - Image to encode
+     * @param output (ByteBuffer) - Buffer where to write the file
+     * @return (int) - The number of written bytes
+     * @throws AssertionError if the image is null or the remaining space is smaller than {@link #maxFileSize(int)}
+     */
+    public static int qoiFile(Helper.Image image, ByteBuffer output) {
+        assert image != null;
+
+        int[][] data = image.data();
+        PixelBuffer pixels = new PixelBuffer(ArrayUtils.imageToPixels(data), data[0].length, data.length);
+
+        return qoiFile(pixels, image.channels(), image.color_space(), output);
+    }
+
+    private static byte[] encodeData(int[] pixels) {
+        byte[] output = new byte[maxDataSize(pixels.length)];
+        int position = encodeData(pixels, output, 0);
+
+        return position == output.length ? output : Arrays.copyOf(output, position);
+    }
+
+    // ==================================================================================
+    // ============================== BUFFER SIZING METHODS =============================
+    // ==================================================================================
+
+    /**
+     * Compute the worst case size of the encoded data, every pixel being stored as a QOI_OP_RGBA chunk
+     *
+     * @param pixels (int) - Number of pixels to encode
+     * @return (int) - Maximal number of bytes the encoded pixels can take
+     * @throws AssertionError if the size doesn't fit in an array
+     */
+    public static int maxDataSize(int pixels) {
+        assert pixels >= 0;
+        long size = 5L * pixels;
+        assert size <= Integer.MAX_VALUE - QOISpecification.HEADER_SIZE - QOISpecification.QOI_EOF.length;
+        return (int) size;
+    }
+
+    /**
+     * Compute the worst case size of a whole "Quite Ok Image" file : header, encoded data and end marker
+     *
+     * @param pixels (int) - Number of pixels to encode
+     * @return (int) - Maximal number of bytes the file can take
+     * @throws AssertionError if the size doesn't fit in an array
+     */
+    public static int maxFileSize(int pixels) {
+        return QOISpecification.HEADER_SIZE + maxDataSize(pixels) + QOISpecification.QOI_EOF.length;
+    }
+
+    private static int writeBytes(byte[] bytes, byte[] output, int position) {
+        System.arraycopy(bytes, 0, output, position, bytes.length);
+        return position + bytes.length;
+    }
+}
@@ -0,0 +1,201 @@
+package cs107;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Reusable "Quite Ok Image" encoder owning its hash table, its pixel scratch buffer and its output buffer.
+ * The buffers only grow, so once they fit the largest image encoded, encoding allocates nothing.
+ * <p>
+ * A context is not thread safe, it must be confined to one thread at a time, for instance through
+ * {@link #forCurrentThread()} or an object pool. The encoded file stays in {@link #output()} until the next call.
+ */
+public final class QOIEncoderContext {
+
+    private static final ThreadLocal<QOIEncoderContext> LOCAL = ThreadLocal.withInitial(QOIEncoderContext::new);
+
+    private final QOIEncoderState state = new QOIEncoderState();
+    private final QOIChunkStats.Counter counter = new QOIChunkStats.Counter();
+    private int[] pixels = new int[0];
+    private byte[] output = new byte[0];
+    private int size = 0;
+    private Consumer<QOIChunkStats> listener = null;
+
+    /**
+     * Create a context with empty buffers, they grow with the first images
+     */
+    public QOIEncoderContext() {}
+
+    /**
+     * Context of the calling thread, created on first use
+     *
+     * @return (QOIEncoderContext) - The context owned by the calling thread
+     */
+    public static QOIEncoderContext forCurrentThread() {
+        return LOCAL.get();
+    }
+
+    // ==================================================================================
+    // ============================== ENCODING METHODS ==================================
+    // ==================================================================================
+
+    /**
+     * Encode packed pixels (0xRRGGBBAA) as a whole "Quite Ok Image" file into the output buffer
+     *
+     * @param pixels     (int[]) - Packed pixels, row after row
+     * @param width      (int) - Width of the image
+     * @param height     (int) - Height of the image
+     * @param channels   (byte) - Number of channels of the image
+     * @param colorSpace (byte) - Color space of the image
+     * @return (int) - Size of the file, see {@link #output()}
+     * @throws AssertionError if the pixels don't match the size or the header parameters are corrupted
+     */
+    public int encode(int[] pixels, int width, int height, byte channels, byte colorSpace) {
+        assert pixels != null && pixels.length == width * height;
+
+        return encode(pixels, pixels.length, width, height, channels, colorSpace);
+    }
+
+    /**
+     * Encode packed pixels as a whole "Quite Ok Image" file into the output buffer
+     *
+     * @param pixels     (PixelBuffer) - Packed pixels (0xRRGGBBAA)
+     * @param channels   (byte) - Number of channels of the image
+     * @param colorSpace (byte) - Color space of the image
+     * @return (int) - Size of the file, see {@link #output()}
+     * @throws AssertionError if the pixels are null or the header parameters are corrupted
+     */
+    public int encode(PixelBuffer pixels, byte channels, byte colorSpace) {
+        assert pixels != null;
+        return encode(pixels.data(), pixels.width(), pixels.height(), channels, colorSpace);
+    }
+
+    /**
+     * Encode an image as a whole "Quite Ok Image" file into the output buffer.
+     * The pixels are packed in the scratch buffer of the context
+     *
+     * @param image (Helper.Image) - Image to encode
+     * @return (int) - Size of the file, see {@link #output()}
+     * @throws AssertionError if the image is null
+     */
+    public int encode(Helper.Image image) {
+        assert image != null;
+
+        int[][] data = image.data();
+        int width = data[0].length;
+        int count = data.length * width;
+        if (pixels.length < count) pixels = new int[count];
+
+        int index = 0;
+        for (int[] row : data) {
+            assert row.length == width;
+            ArrayUtils.argbToRgba(row, 0, pixels, index, width);
+            index += width;
+        }
+
+        // The scratch buffer can be longer than the image, encode exactly its pixels
+        return encode(pixels, count, width, data.length, image.channels(), image.color_space());
+    }
+
+    private int encode(int[] pixels, int count, int width, int height, byte channels, byte colorSpace) {
+        // Without listener, nothing is measured
+        if (listener == null) return encodeFile(pixels, count, width, height, channels, colorSpace);
+
+        counter.reset();
+        long start = System.nanoTime();
+        int size = encodeFile(pixels, count, width, height, channels, colorSpace);
+        long nanos = System.nanoTime() - start;
+        listener.accept(counter.toStats(count, size, nanos));
+
+        return size;
+    }
+
+    private int encodeFile(int[] pixels, int count, int width, int height, byte channels, byte colorSpace) {
+        reset();
+        ensureOutput(QOIEncoder.maxFileSize(count));
+
+        int position = QOIEncoder.writeHeader(width, height, channels, colorSpace, output, 0);
+        position = state.encode(pixels, 0, count, output, position);
+        position = state.finish(output, position);
+        System.arraycopy(QOISpecification.QOI_EOF, 0, output, position, QOISpecification.QOI_EOF.length);
+
+        size = position + QOISpecification.QOI_EOF.length;
+        return size;
+    }
+
+    /**
+     * Set the listener receiving the statistics of every file encoded from now on, see {@link QOIChunkStats}.
+     * The chunks are counted as they are written, so the measured time includes the counting
+     * but the encoded file is never read again
+     *
+     * @param listener (Consumer) - Listener to call after every encoding, null to stop measuring
+     */
+    public void setListener(Consumer<QOIChunkStats> listener) {
+        this.listener = listener;
+        state.setProfile(listener == null ? null : counter);
+    }
+
+    // ==================================================================================
+    // =============================== OUTPUT METHODS ===================================
+    // ==================================================================================
+
+    /**
+     * @return (byte[]) - Buffer holding the last encoded file in its first {@link #size()} bytes,
+     * overwritten by the next call
+     */
+    public byte[] output() {
+        return output;
+    }
+
+    /**
+     * @return (int) - Size of the last encoded file
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return (ByteBuffer) - Read only view of the last encoded file, valid until the next call
+     */
+    public ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(output, 0, size).asReadOnlyBuffer();
+    }
+
+    /**
+     * @return (byte[]) - Copy of the last encoded file
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(output, size);
+    }
+
+    /**
+     * Write the last encoded file to the given stream
+     *
+     * @param stream (OutputStream) - Where to write the file
+     * @throws RuntimeException if the stream fails
+     */
+    public void writeTo(OutputStream stream) {
+        assert stream != null;
+        try {
+            stream.write(output, 0, size);
+        } catch (IOException e) {
+            Helper.fail("An error occurred while trying to write the encoded image");
+        }
+    }
+
+    /**
+     * Reset the encoder to the state expected at the start of an image, keeping the buffers
+     */
+    public void reset() {
+        state.reset();
+        size = 0;
+    }
+
+    private void ensureOutput(int capacity) {
+        // The previous content is never kept, no need to copy it
+        if (output.length < capacity) output = new byte[capacity];
+    }
+}
@@ -0,0 +1,132 @@
+package cs107;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Listener adding up the statistics of every file encoded by the contexts it is given to,
+ * see {@link QOIEncoderContext#setListener(Consumer)}. It can be shared by several contexts and threads,
+ * and exposed as a JMX bean to follow the encoder from any JMX console.
+ */
+public final class QOIEncoderMetrics implements Consumer<QOIChunkStats>, QOIEncoderMetricsMBean {
+
+    private final AtomicReference<QOIChunkStats> total = new AtomicReference<>(QOIChunkStats.EMPTY);
+
+    /**
+     * Add the statistics of an encoded file
+     *
+     * @param stats (QOIChunkStats) - Statistics of the file
+     */
+    @Override
+    public void accept(QOIChunkStats stats) {
+        assert stats != null;
+        total.accumulateAndGet(stats, QOIChunkStats::plus);
+    }
+
+    /**
+     * @return (QOIChunkStats) - Statistics of all the files encoded so far
+     */
+    public QOIChunkStats snapshot() {
+        return total.get();
+    }
+
+    /**
+     * Forget every file encoded so far
+     */
+    @Override
+    public void reset() {
+        total.set(QOIChunkStats.EMPTY);
+    }
+
+    /**
+     * Register the metrics in the platform MBean server
+     *
+     * @param name (String) - Object name of the bean, for instance "cs107:type=QOIEncoder"
+     * @throws RuntimeException if the name is invalid or already registered
+     */
+    public void register(String name) {
+        assert name != null;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(name));
+        } catch (JMException e) {
+            Helper.fail("An error occurred while trying to register the metrics as : \"%s\"%n", name);
+        }
+    }
+
+    // ==================================================================================
+    // =============================== BEAN ATTRIBUTES ==================================
+    // ==================================================================================
+
+    @Override
+    public long getImages() {
+        return total.get().images();
+    }
+
+    @Override
+    public long getPixels() {
+        return total.get().pixels();
+    }
+
+    @Override
+    public long getBytes() {
+        return total.get().bytes();
+    }
+
+    @Override
+    public long getRunChunks() {
+        return total.get().runs();
+    }
+
+    @Override
+    public long getIndexChunks() {
+        return total.get().indexes();
+    }
+
+    @Override
+    public long getDiffChunks() {
+        return total.get().diffs();
+    }
+
+    @Override
+    public long getLumaChunks() {
+        return total.get().lumas();
+    }
+
+    @Override
+    public long getRgbChunks() {
+        return total.get().rgbs();
+    }
+
+    @Override
+    public long getRgbaChunks() {
+        return total.get().rgbas();
+    }
+
+    @Override
+    public long getCollisions() {
+        return total.get().collisions();
+    }
+
+    @Override
+    public double getAverageRunLength() {
+        return total.get().averageRunLength();
+    }
+
+    @Override
+    public double getIndexHitRate() {
+        return total.get().indexHitRate();
+    }
+
+    @Override
+    public double getBytesPerPixel() {
+        return total.get().bytesPerPixel();
+    }
+
+    @Override
+    public double getEncodeMillis() {
+        return total.get().nanos() / 1e6;
+    }
+}
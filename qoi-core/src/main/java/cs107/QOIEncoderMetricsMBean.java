@@ -0,0 +1,38 @@
+package cs107;
+
+/**
+ * Management interface of {@link QOIEncoderMetrics}, every attribute adds up all the files encoded
+ * since the creation or the last reset of the metrics
+ */
+public interface QOIEncoderMetricsMBean {
+
+    long getImages();
+
+    long getPixels();
+
+    long getBytes();
+
+    long getRunChunks();
+
+    long getIndexChunks();
+
+    long getDiffChunks();
+
+    long getLumaChunks();
+
+    long getRgbChunks();
+
+    long getRgbaChunks();
+
+    long getCollisions();
+
+    double getAverageRunLength();
+
+    double getIndexHitRate();
+
+    double getBytesPerPixel();
+
+    double getEncodeMillis();
+
+    void reset();
+}
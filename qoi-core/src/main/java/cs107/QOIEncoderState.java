@@ -0,0 +1,218 @@
+package cs107;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * State of a "Quite Ok Image" encoder between two calls : the previous pixel,
+ * the 64 entries hash table and the length of the current run.
+ * Encoding an image in several consecutive ranges of pixels with the same state
+ * produces exactly the same chunks as encoding it in one go.
+ */
+final class QOIEncoderState {
+
+    /**
+     * Number of pixels encoded at a time in the staging array when the output has no accessible array
+     */
+    private static final int STRIPE = 8192;
+
+    /**
+     * Run scanner selected at startup, see {@link RunScanners}
+     */
+    private static final RunScanner RUNS = RunScanners.selected();
+
+    /**
+     * Big endian views of the output, so that a chunk is written with a single bounds checked store
+     */
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle SHORT = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+
+    private final int[] hashTable = new int[64];
+    private int previousPixel = QOISpecification.PACKED_START_PIXEL;
+    private int counter = 0;
+    private QOIChunkStats.Counter profile = null;
+
+    /**
+     * Count every chunk written from now on, see {@link QOIChunkStats.Counter}
+     *
+     * @param profile (QOIChunkStats.Counter) - Counter of the chunks, null to stop counting
+     */
+    void setProfile(QOIChunkStats.Counter profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Reset the state to the one expected at the start of an image
+     */
+    void reset() {
+        Arrays.fill(hashTable, 0);
+        previousPixel = QOISpecification.PACKED_START_PIXEL;
+        counter = 0;
+    }
+
+    /**
+     * Encode the given range of packed pixels (0xRRGGBBAA) directly into the output buffer.
+     * A run still going on at the end of the range is kept pending, see {@link #finish(byte[], int)}.
+     * Writing the run left pending by a previous range may take one byte more than the worst case of the range
+     *
+     * @param pixels   (int[]) - Packed pixels to encode
+     * @param from     (int) - Index of the first pixel to encode
+     * @param to       (int) - Index right after the last pixel to encode
+     * @param output   (byte[]) - Buffer where to write the encoded chunks
+     * @param position (int) - Index in the output to start writing from
+     * @return (int) - Index in the output right after the last written byte
+     * @throws AssertionError if the range is invalid or the output is too small to hold the worst case encoding
+     */
+    int encode(int[] pixels, int from, int to, byte[] output, int position) {
+        assert pixels != null && output != null;
+        assert from >= 0 && from <= to && to <= pixels.length;
+        assert position >= 0 && output.length - position >= QOIEncoder.maxDataSize(to - from);
+
+        int[] hashTable = this.hashTable;
+        int previousPixel = this.previousPixel;
+        int counter = this.counter;
+        QOIChunkStats.Counter profile = this.profile;
+
+        for (int index = from; index < to; index++) {
+            int pixel = pixels[index];
+
+            // RUN : measure the whole run at once, a chunk is written every 62 pixels
+            if (pixel == previousPixel) {
+                int end = RUNS.scan(pixels, index + 1, to, pixel);
+                counter += end - index;
+
+                while (counter >= 62) {
+                    output[position++] = (byte) (QOISpecification.QOI_OP_RUN_TAG | 61);
+                    if (profile != null) profile.count(QOISpecification.QOI_OP_RUN_TAG & 0xFF | 61, pixel);
+                    counter -= 62;
+                }
+
+                index = end - 1;
+                continue;
+            } else if (counter != 0) {
+                output[position++] = (byte) (QOISpecification.QOI_OP_RUN_TAG | (counter - 1));
+                if (profile != null) profile.count(QOISpecification.QOI_OP_RUN_TAG & 0xFF | (counter - 1), previousPixel);
+                counter = 0;
+            }
+
+            // INDEX
+            int hash = QOISpecification.hash(pixel);
+            if (hashTable[hash] == pixel) {
+                output[position++] = (byte) hash;
+                if (profile != null) profile.count(hash, pixel);
+
+                previousPixel = pixel;
+                continue;
+            } else {
+                // Unlike the decoder, INDEX and RUN store nothing, as in the reference encoder : INDEX finds the pixel
+                // already stored, and a leading RUN of the start pixel leaves its slot empty, so the files match byte
+                // for byte. The extra slot the decoder fills is never read by an INDEX this encoder emits
+                hashTable[hash] = pixel;
+            }
+
+            int tag = position;
+            if ((pixel & 0xFF) == (previousPixel & 0xFF)) {
+                int dr = (byte) ((pixel >>> 24) - (previousPixel >>> 24));
+                int dg = (byte) ((pixel >>> 16) - (previousPixel >>> 16));
+                int db = (byte) ((pixel >>> 8) - (previousPixel >>> 8));
+                int drg = dr - dg;
+                int dbg = db - dg;
+
+                // DIFF : a difference is in range when its offset fits in the bits of the field, one branch for all
+                if (((dr + 2) | (dg + 2) | (db + 2)) >>> 2 == 0) {
+                    output[position++] = (byte) (QOISpecification.QOI_OP_DIFF_TAG
+                            | (dr + 2) << 4 | (dg + 2) << 2 | (db + 2));
+                }
+
+                // LUMA
+                else if (((dg + 32) >>> 6 | (drg + 8) >>> 4 | (dbg + 8) >>> 4) == 0) {
+                    SHORT.set(output, position, (short) ((QOISpecification.QOI_OP_LUMA_TAG | (dg + 32)) << 8
+                            | (drg + 8) << 4 | (dbg + 8)));
+                    position += 2;
+                }
+
+                // RGB
+                else {
+                    INT.set(output, position, QOISpecification.QOI_OP_RGB_TAG << 24 | pixel >>> 8);
+                    position += 4;
+                }
+            }
+
+            // RGBA
+            else {
+                INT.set(output, position, QOISpecification.QOI_OP_RGBA_TAG << 24 | pixel >>> 8);
+                output[position + 4] = (byte) pixel;
+                position += 5;
+            }
+
+            if (profile != null) profile.count(output[tag] & 0xFF, pixel);
+            previousPixel = pixel;
+        }
+
+        this.previousPixel = previousPixel;
+        this.counter = counter;
+
+        return position;
+    }
+
+    /**
+     * Encode the given range of packed pixels (0xRRGGBBAA) into the byte buffer, from its position.
+     * Heap buffers are written in place, direct and mapped buffers through a small staging array,
+     * a stripe of pixels at a time. The position of the buffer is moved after the last written byte
+     *
+     * @param pixels (int[]) - Packed pixels to encode
+     * @param from   (int) - Index of the first pixel to encode
+     * @param to     (int) - Index right after the last pixel to encode
+     * @param output (ByteBuffer) - Buffer where to write the encoded chunks
+     * @throws AssertionError if the range is invalid or the output is too small to hold the worst case encoding
+     */
+    void encode(int[] pixels, int from, int to, ByteBuffer output) {
+        assert pixels != null && output != null;
+        assert from >= 0 && from <= to && to <= pixels.length;
+        assert output.remaining() >= QOIEncoder.maxDataSize(to - from);
+
+        if (output.hasArray()) {
+            int offset = output.arrayOffset();
+            output.position(encode(pixels, from, to, output.array(), offset + output.position()) - offset);
+            return;
+        }
+
+        byte[] scratch = new byte[QOIEncoder.maxDataSize(Math.min(STRIPE, to - from)) + 1];
+        for (int start = from; start < to; start += STRIPE) {
+            int length = encode(pixels, start, Math.min(start + STRIPE, to), scratch, 0);
+            output.put(scratch, 0, length);
+        }
+    }
+
+    /**
+     * Write the pending run, if any, into the byte buffer. To be called once the last pixel of the image is encoded
+     *
+     * @param output (ByteBuffer) - Buffer where to write the chunk, from its position
+     */
+    void finish(ByteBuffer output) {
+        if (counter != 0) {
+            output.put((byte) (QOISpecification.QOI_OP_RUN_TAG | (counter - 1)));
+            if (profile != null) profile.count(QOISpecification.QOI_OP_RUN_TAG & 0xFF | (counter - 1), previousPixel);
+            counter = 0;
+        }
+    }
+
+    /**
+     * Write the pending run, if any. To be called once the last pixel of the image is encoded
+     *
+     * @param output   (byte[]) - Buffer where to write the chunk
+     * @param position (int) - Index in the output to start writing from
+     * @return (int) - Index in the output right after the last written byte
+     */
+    int finish(byte[] output, int position) {
+        if (counter != 0) {
+            output[position++] = (byte) (QOISpecification.QOI_OP_RUN_TAG | (counter - 1));
+            if (profile != null) profile.count(QOISpecification.QOI_OP_RUN_TAG & 0xFF | (counter - 1), previousPixel);
+            counter = 0;
+        }
+        return position;
+    }
+}
@@ -0,0 +1,174 @@
+package cs107;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File input and output of "Quite Ok Image" files without intermediate copies.
+ * Files are read by mapping them in memory, the decoder working directly on the mapping,
+ * and written with a single channel write of the encoded buffer.
+ * @apiNote A mapping stays valid until it is garbage collected, even after the channel is closed
+ */
+public final class QOIFiles {
+
+    // Hide default constructor
+    private QOIFiles() {}
+
+    // ==================================================================================
+    // =============================== READING METHODS ==================================
+    // ==================================================================================
+
+    /**
+     * Map a whole file in memory, read only
+     *
+     * @param path (Path) - Path to the file
+     * @return (MappedByteBuffer) - Content of the file, in big endian order
+     * @throws RuntimeException if the file cannot be read
+     */
+    public static MappedByteBuffer map(Path path) {
+        assert path != null;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            return Helper.fail("An error occurred while trying to map : \"%s\"%n", path);
+        }
+    }
+
+    /**
+     * Map a "Quite Ok Image" file and decode it into packed pixels (0xRRGGBBAA)
+     *
+     * @param path (Path) - Path to the file
+     * @return (PixelBuffer) - Decoded pixels
+     * @throws AssertionError if the file is not a valid "Quite Ok Image" file
+     * @throws RuntimeException if the file cannot be read
+     */
+    public static PixelBuffer decodePixels(Path path) {
+        return QOIDecoder.decodePixels(map(path));
+    }
+
+    /**
+     * Map a "Quite Ok Image" file and decode it
+     *
+     * @param path (Path) - Path to the file
+     * @return (Helper.Image) - Decoded image
+     * @throws AssertionError if the file is not a valid "Quite Ok Image" file
+     * @throws RuntimeException if the file cannot be read
+     */
+    public static Helper.Image decodeQoiFile(Path path) {
+        return QOIDecoder.decodeQoiFile(map(path));
+    }
+
+    /**
+     * Map a "Quite Ok Image" file and decode only a rectangle of it into packed pixels (0xRRGGBBAA).
+     * The pages of the file after the chunk of the last pixel of the rectangle are never touched
+     *
+     * @param path   (Path) - Path to the file
+     * @param x      (int) - Column of the left side of the rectangle
+     * @param y      (int) - Row of the top side of the rectangle
+     * @param width  (int) - Width of the rectangle
+     * @param height (int) - Height of the rectangle
+     * @return (PixelBuffer) - Decoded pixels of the rectangle
+     * @throws AssertionError if the rectangle is not inside the image or the file is corrupted
+     * @throws RuntimeException if the file cannot be read
+     */
+    public static PixelBuffer decodeRegion(Path path, int x, int y, int width, int height) {
+        return QOIDecoder.decodeRegion(map(path), x, y, width, height);
+    }
+
+    /**
+     * Map a "Quite Ok Image" file and decode only consecutive whole rows of it into packed pixels (0xRRGGBBAA)
+     *
+     * @param path     (Path) - Path to the file
+     * @param firstRow (int) - Index of the first row to decode
+     * @param rowCount (int) - Number of rows to decode
+     * @return (PixelBuffer) - Decoded pixels of the rows
+     * @throws AssertionError if the rows are not inside the image or the file is corrupted
+     * @throws RuntimeException if the file cannot be read
+     */
+    public static PixelBuffer decodeRows(Path path, int firstRow, int rowCount) {
+        return QOIDecoder.decodeRows(map(path), firstRow, rowCount);
+    }
+
+    // ==================================================================================
+    // =============================== WRITING METHODS ==================================
+    // ==================================================================================
+
+    /**
+     * Write the given buffers one after the other with gathering writes, replacing the file
+     *
+     * @param path    (Path) - Path to the file
+     * @param content (ByteBuffer...) - Content of the file, from the position to the limit of every buffer
+     * @throws RuntimeException if the file cannot be written
+     */
+    public static void write(Path path, ByteBuffer... content) {
+        assert path != null && content != null;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long remaining = 0;
+            for (ByteBuffer buffer : content) remaining += buffer.remaining();
+            while (remaining > 0) remaining -= channel.write(content);
+        } catch (IOException e) {
+            Helper.fail("An error occurred while trying to write to : \"%s\"%n", path);
+        }
+    }
+
+    /**
+     * Write the given range of bytes, replacing the file
+     *
+     * @param path    (Path) - Path to the file
+     * @param content (byte[]) - Bytes to write
+     * @param from    (int) - Index of the first byte to write
+     * @param length  (int) - Number of bytes to write
+     * @throws RuntimeException if the file cannot be written
+     */
+    public static void write(Path path, byte[] content, int from, int length) {
+        assert content != null;
+        write(path, ByteBuffer.wrap(content, from, length));
+    }
+
+    /**
+     * Encode the given packed pixels and write them as a "Quite Ok Image" file.
+     * The file is encoded in a worst case sized buffer and written without trimming it first
+     *
+     * @param path       (Path) - Path to the file
+     * @param pixels     (PixelBuffer) - Packed pixels to encode
+     * @param channels   (byte) - Number of channels of the image
+     * @param colorSpace (byte) - Color space of the image
+     * @throws AssertionError if the pixels are null or the header parameters are corrupted
+     * @throws RuntimeException if the file cannot be written
+     */
+    public static void writeQoiFile(Path path, PixelBuffer pixels, byte channels, byte colorSpace) {
+        assert pixels != null;
+
+        byte[] header = QOIEncoder.qoiHeader(pixels.width(), pixels.height(), channels, colorSpace);
+        byte[] output = new byte[QOIEncoder.maxFileSize(pixels.data().length)];
+
+        System.arraycopy(header, 0, output, 0, header.length);
+        int position = QOIEncoder.encodeData(pixels.data(), output, header.length);
+        System.arraycopy(QOISpecification.QOI_EOF, 0, output, position, QOISpecification.QOI_EOF.length);
+
+        write(path, output, 0, position + QOISpecification.QOI_EOF.length);
+    }
+
+    /**
+     * Encode the given image and write it as a "Quite Ok Image" file
+     *
+     * @param path  (Path) - Path to the file
+     * @param image (Helper.Image) - Image to encode
+     * @throws AssertionError if the image is null
+     * @throws RuntimeException if the file cannot be written
+     */
+    public static void writeQoiFile(Path path, Helper.Image image) {
+        assert image != null;
+
+        int[][] data = image.data();
+        PixelBuffer pixels = new PixelBuffer(ArrayUtils.imageToPixels(data), data[0].length, data.length);
+        writeQoiFile(path, pixels, image.channels(), image.color_space());
+    }
+}
@@ -0,0 +1,188 @@
+package cs107;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Record to store the header of a "Quite Ok Image" file.
+ * The probing methods only read the first {@link QOISpecification#HEADER_SIZE} bytes of a file,
+ * the pixel data is never touched.
+ * @param width (int) - width of the image
+ * @param height (int) - height of the image
+ * @param channels (byte) - number of channels of the image
+ * @param colorSpace (byte) - color space of the image
+ */
+public record QOIHeader(int width, int height, byte channels, byte colorSpace) {
+
+    /**
+     * Magic number "qoif" read as a big endian integer
+     */
+    private static final int MAGIC = ArrayUtils.toInt(QOISpecification.QOI_MAGIC);
+
+    /**
+     * Check the fields of the header, whether assertions are enabled or not
+     *
+     * @throws RuntimeException if a dimension isn't positive, or the channels or the color space are unknown
+     */
+    public QOIHeader {
+        if (width <= 0 || height <= 0) {
+            Helper.fail("Corrupted \"Quite Ok Image\" header : invalid size %d x %d", width, height);
+        }
+        if (channels != QOISpecification.RGB && channels != QOISpecification.RGBA) {
+            Helper.fail("Corrupted \"Quite Ok Image\" header : invalid number of channels %d", channels);
+        }
+        if (colorSpace != QOISpecification.ALL && colorSpace != QOISpecification.sRGB) {
+            Helper.fail("Corrupted \"Quite Ok Image\" header : invalid color space %d", colorSpace);
+        }
+    }
+
+    /**
+     * @return (long) - Number of pixels of the image
+     */
+    public long pixelCount() {
+        return (long) width * height;
+    }
+
+    /**
+     * @return (int) - Number of pixels of the image, to size the single array holding them
+     * @throws RuntimeException if the image has 2^31 pixels or more
+     */
+    public int arrayPixelCount() {
+        return arrayPixelCount(width, height);
+    }
+
+    /**
+     * Number of pixels of an image held in a single array, whether assertions are enabled or not
+     *
+     * @param width  (int) - Width of the image
+     * @param height (int) - Height of the image
+     * @return (int) - Number of pixels of the image
+     * @throws RuntimeException if the image has 2^31 pixels or more
+     */
+    static int arrayPixelCount(int width, int height) {
+        long count = (long) width * height;
+        if (count > Integer.MAX_VALUE) {
+            Helper.fail("\"Quite Ok Image\" of %d x %d pixels too large for a single array", width, height);
+        }
+        return (int) count;
+    }
+
+    /**
+     * @return (boolean) - true if the image has an alpha channel
+     */
+    public boolean hasAlpha() {
+        return channels == QOISpecification.RGBA;
+    }
+
+    // ==================================================================================
+    // =============================== PROBING METHODS ==================================
+    // ==================================================================================
+
+    /**
+     * Read the header at the start of the content of a "Quite Ok Image" file, without copying it
+     *
+     * @param content (byte[]) - Content of the file, only its first bytes are needed
+     * @return (QOIHeader) - Header of the file
+     * @throws AssertionError if content is null
+     * @throws RuntimeException if the header is incomplete or corrupted
+     */
+    public static QOIHeader of(byte[] content) {
+        assert content != null;
+        return of(ByteBuffer.wrap(content));
+    }
+
+    /**
+     * Read the header at the position of a byte buffer, heap, direct or mapped.
+     * The position of the buffer is left untouched
+     *
+     * @param content (ByteBuffer) - Buffer holding a "Quite Ok Image" header from its position
+     * @return (QOIHeader) - Header of the file
+     * @throws AssertionError if content is null
+     * @throws RuntimeException if the header is incomplete or corrupted
+     */
+    public static QOIHeader of(ByteBuffer content) {
+        assert content != null;
+        if (content.remaining() < QOISpecification.HEADER_SIZE) {
+            Helper.fail("Corrupted \"Quite Ok Image\" header : %d bytes instead of %d",
+                    content.remaining(), QOISpecification.HEADER_SIZE);
+        }
+
+        ByteBuffer view = content.order() == ByteOrder.BIG_ENDIAN ? content : content.duplicate().order(ByteOrder.BIG_ENDIAN);
+        int offset = content.position();
+        if (view.getInt(offset) != MAGIC) Helper.fail("Corrupted \"Quite Ok Image\" header : invalid magic number");
+
+        return new QOIHeader(view.getInt(offset + 4), view.getInt(offset + 8), view.get(offset + 12), view.get(offset + 13));
+    }
+
+    /**
+     * Read the header of a "Quite Ok Image" file, reading only its first bytes
+     *
+     * @param path (Path) - Path to the file
+     * @return (QOIHeader) - Header of the file
+     * @throws AssertionError if path is null
+     * @throws RuntimeException if the file cannot be read, is too short or its header is corrupted
+     */
+    public static QOIHeader probe(Path path) {
+        assert path != null;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return probe(channel);
+        } catch (IOException e) {
+            return Helper.fail("An error occurred while trying to read : \"%s\"%n", path);
+        }
+    }
+
+    /**
+     * Read the header of a "Quite Ok Image" file from the current position of a channel.
+     * The channel is left open, right after the header
+     *
+     * @param channel (ReadableByteChannel) - Channel to read from
+     * @return (QOIHeader) - Header of the file
+     * @throws AssertionError if channel is null
+     * @throws RuntimeException if the channel cannot be read, ends before the end of the header
+     * or the header is corrupted
+     */
+    public static QOIHeader probe(ReadableByteChannel channel) {
+        assert channel != null;
+
+        ByteBuffer header = ByteBuffer.allocate(QOISpecification.HEADER_SIZE);
+        try {
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) break;
+            }
+        } catch (IOException e) {
+            return Helper.fail("An error occurred while trying to read the header");
+        }
+
+        return of(header.flip());
+    }
+
+    /**
+     * Read the header of a "Quite Ok Image" file from a stream.
+     * The stream is left open, right after the header
+     *
+     * @param stream (InputStream) - Stream to read from
+     * @return (QOIHeader) - Header of the file
+     * @throws AssertionError if stream is null
+     * @throws RuntimeException if the stream cannot be read, ends before the end of the header
+     * or the header is corrupted
+     */
+    public static QOIHeader probe(InputStream stream) {
+        assert stream != null;
+
+        byte[] header;
+        try {
+            header = stream.readNBytes(QOISpecification.HEADER_SIZE);
+        } catch (IOException e) {
+            return Helper.fail("An error occurred while trying to read the header");
+        }
+
+        return of(header);
+    }
+}
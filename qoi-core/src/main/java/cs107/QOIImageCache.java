@@ -0,0 +1,300 @@
+package cs107;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Bounded cache of decoded "Quite Ok Image" files, so that files read again and again are decoded once.
+ * <p>
+ * Files are identified either by their path, last modification time and size, so that a modified file is
+ * decoded again, or by their content : a 64 bits hash, see {@link ArrayUtils#hash64(byte[])}, finds the candidate
+ * and a copy of the content kept with the image confirms it, so two contents sharing a hash never share an image.
+ * The cache is bounded by the memory taken by the decoded pixels, the least recently used images
+ * being evicted first. With soft values, the garbage collector may also drop images under memory pressure,
+ * they are then decoded again on their next use.
+ * <p>
+ * A cache can be shared by several threads. Two threads missing the same image at the same time
+ * may both decode it, the result being the same either way.
+ */
+public final class QOIImageCache {
+
+    /**
+     * Decoded image held by the cache. The pixels are shared by every user of the entry,
+     * so they are only handed out as a read-only view or as a copy
+     */
+    public static final class Entry {
+
+        private final QOIHeader header;
+        private final PixelBuffer pixels;
+
+        private Entry(QOIHeader header, PixelBuffer pixels) {
+            this.header = header;
+            this.pixels = pixels;
+        }
+
+        /**
+         * @return (QOIHeader) - Header of the file
+         */
+        public QOIHeader header() {
+            return header;
+        }
+
+        /**
+         * @return (IntBuffer) - Read-only view of the decoded pixels (0xRRGGBBAA), row after row
+         */
+        public IntBuffer pixels() {
+            return IntBuffer.wrap(pixels.data()).asReadOnlyBuffer();
+        }
+
+        /**
+         * @return (long) - Approximate number of bytes taken by the entry
+         */
+        public long weight() {
+            return 4L * pixels.data().length + OVERHEAD;
+        }
+
+        /**
+         * Copy the pixels out of the cache, the returned image can be modified freely
+         *
+         * @return (Helper.Image) - Copy of the decoded image
+         */
+        public Helper.Image toImage() {
+            int[][] data = ArrayUtils.pixelsToImage(pixels.data(), pixels.height(), pixels.width());
+            return Helper.generateImage(data, header.channels(), header.colorSpace());
+        }
+    }
+
+    /**
+     * Counters of a cache since its creation
+     *
+     * @param hits      (long) - Number of images found in the cache
+     * @param misses    (long) - Number of images decoded because they were not in the cache
+     * @param evictions (long) - Number of images evicted to stay under the capacity
+     * @param collected (long) - Number of soft values dropped by the garbage collector
+     * @param size      (int) - Number of images currently held
+     * @param weight    (long) - Approximate number of bytes currently held
+     */
+    public record Stats(long hits, long misses, long evictions, long collected, int size, long weight) {
+
+        /**
+         * @return (double) - Share of the requests served from the cache, 0 if there was none
+         */
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+
+    /**
+     * Approximate number of bytes taken by an entry besides its pixels : objects, map node, key
+     */
+    private static final long OVERHEAD = 256;
+
+    private record PathKey(Path path, long modified, long size) {}
+
+    private record ContentKey(long hash, int length) {}
+
+    /**
+     * Value of the map, holding the entry strongly or softly, the content it was decoded from for
+     * a content key, and what is needed to remove it once collected
+     */
+    private static final class Slot extends SoftReference<Entry> {
+
+        final Object key;
+        final byte[] content;
+        final long weight;
+        final Entry strong;
+
+        Slot(Object key, byte[] content, Entry entry, boolean soft, ReferenceQueue<Entry> queue) {
+            super(entry, soft ? queue : null);
+            this.key = key;
+            this.content = content;
+            this.weight = entry.weight() + (content == null ? 0 : content.length);
+            this.strong = soft ? null : entry;
+        }
+
+        Entry entry() {
+            return strong != null ? strong : get();
+        }
+    }
+
+    private final long capacity;
+    private final boolean softValues;
+    private final ReferenceQueue<Entry> queue = new ReferenceQueue<>();
+    private final LinkedHashMap<Object, Slot> slots = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Guarded by slots
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long collected;
+
+    /**
+     * Create a cache holding its images strongly
+     *
+     * @param capacity (long) - Maximum number of bytes of decoded images held
+     */
+    public QOIImageCache(long capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * Create a cache
+     *
+     * @param capacity   (long) - Maximum number of bytes of decoded images held
+     * @param softValues (boolean) - true to let the garbage collector drop images under memory pressure
+     */
+    public QOIImageCache(long capacity, boolean softValues) {
+        assert capacity >= 0;
+        this.capacity = capacity;
+        this.softValues = softValues;
+    }
+
+    // ==================================================================================
+    // =============================== LOOKUP METHODS ===================================
+    // ==================================================================================
+
+    /**
+     * Decoded image of a file, decoded only if it is not in the cache or has been modified since
+     *
+     * @param path (Path) - Path to the "Quite Ok Image" file
+     * @return (Entry) - Decoded image
+     * @throws AssertionError if the file is not a valid "Quite Ok Image" file
+     * @throws RuntimeException if the file cannot be read
+     */
+    public Entry get(Path path) {
+        assert path != null;
+
+        Path absolute = path.toAbsolutePath().normalize();
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(absolute, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return Helper.fail("An error occurred while trying to read : \"%s\"%n", path);
+        }
+        PathKey key = new PathKey(absolute, attributes.lastModifiedTime().toMillis(), attributes.size());
+
+        Entry cached = lookup(key, null);
+        if (cached != null) return cached;
+
+        return store(key, null, decode(QOIFiles.map(absolute)));
+    }
+
+    /**
+     * Decoded image of the content of a file, decoded only if the same content is not in the cache.
+     * The cache keeps its own copy of the content, to compare it with the contents of the same hash
+     *
+     * @param content (byte[]) - Content of the "Quite Ok Image" file
+     * @return (Entry) - Decoded image
+     * @throws AssertionError if content is null or is not a valid "Quite Ok Image" file
+     */
+    public Entry get(byte[] content) {
+        assert content != null;
+        return get(content, ArrayUtils.hash64(content));
+    }
+
+    /**
+     * Decoded image of the content of a file whose hash is already known
+     *
+     * @param content (byte[]) - Content of the "Quite Ok Image" file
+     * @param hash    (long) - Hash of the content
+     * @return (Entry) - Decoded image
+     */
+    Entry get(byte[] content, long hash) {
+        ContentKey key = new ContentKey(hash, content.length);
+
+        Entry cached = lookup(key, content);
+        if (cached != null) return cached;
+
+        return store(key, content.clone(), decode(ByteBuffer.wrap(content)));
+    }
+
+    /**
+     * Drop every image from the cache, keeping the counters
+     */
+    public void clear() {
+        synchronized (slots) {
+            slots.clear();
+            weight = 0;
+        }
+    }
+
+    /**
+     * @return (Stats) - Snapshot of the counters of the cache
+     */
+    public Stats stats() {
+        synchronized (slots) {
+            purge();
+            return new Stats(hits, misses, evictions, collected, slots.size(), weight);
+        }
+    }
+
+    // ==================================================================================
+    // =============================== HELPER METHODS ===================================
+    // ==================================================================================
+
+    private static Entry decode(ByteBuffer content) {
+        QOIHeader header = QOIHeader.of(content);
+        return new Entry(header, QOIDecoder.decodePixels(content));
+    }
+
+    private Entry lookup(Object key, byte[] content) {
+        synchronized (slots) {
+            purge();
+            Slot slot = slots.get(key);
+            Entry entry = slot == null ? null : slot.entry();
+            // A content key only finds a candidate, the content itself must be the same
+            if (entry != null && content != null && !Arrays.equals(slot.content, content)) entry = null;
+            if (entry != null) {
+                hits++;
+                return entry;
+            }
+            misses++;
+            return null;
+        }
+    }
+
+    private Entry store(Object key, byte[] content, Entry entry) {
+        Slot stored = new Slot(key, content, entry, softValues, queue);
+        // An image larger than the whole cache would only evict everything else
+        if (stored.weight > capacity) return entry;
+
+        synchronized (slots) {
+            purge();
+            Slot previous = slots.put(key, stored);
+            if (previous != null) weight -= previous.weight;
+            weight += stored.weight;
+
+            Iterator<Slot> eldest = slots.values().iterator();
+            while (weight > capacity) {
+                Slot slot = eldest.next();
+                eldest.remove();
+                weight -= slot.weight;
+                evictions++;
+            }
+        }
+        return entry;
+    }
+
+    private void purge() {
+        // Remove the slots whose entry was collected, unless the key was stored again since
+        for (Reference<? extends Entry> reference; (reference = queue.poll()) != null; ) {
+            Slot slot = (Slot) reference;
+            if (slots.remove(slot.key, slot)) {
+                weight -= slot.weight;
+                collected++;
+            }
+        }
+    }
+}
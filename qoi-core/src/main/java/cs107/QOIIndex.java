@@ -0,0 +1,464 @@
+package cs107;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static cs107.QOIDecoder.CHUNK_SIZES;
+import static cs107.QOIDecoder.PIXEL_COUNTS;
+
+/**
+ * Seek index of a "Quite Ok Image" file, stored apart from the file in a sidecar.
+ * Every given number of rows, the index holds a checkpoint of the decoder right before the chunk
+ * holding the first pixel of the row : the offset of the chunk, the index of its first pixel,
+ * the previous pixel and the 64 entries hash table, along with a hash of the bytes from the chunk
+ * up to the next checkpoint.
+ * <p>
+ * Decoding rows or a rectangle through the index starts from the last checkpoint above it, so only
+ * the rows between the checkpoint and the end of the region are decoded, whatever their place in the image.
+ * The file itself is left untouched and stays readable by any decoder. Before decoding, the size of the file
+ * and the hashes of the bytes about to be decoded are compared with the index, a file changed since it was
+ * indexed is rejected rather than decoded into wrong pixels.
+ * <p>
+ * Sidecar layout, big endian : the magic "qoix", the size of the indexed file, its width and height,
+ * the number of rows between checkpoints and the number of checkpoints, then for every checkpoint
+ * its offset, its first pixel, its previous pixel, the 64 bits hash of its bytes and its 64 hash table entries.
+ */
+public final class QOIIndex {
+
+    /**
+     * Magic Number of an index sidecar
+     */
+    public static final byte[] INDEX_MAGIC = new byte[]{'q', 'o', 'i', 'x'};
+
+    /**
+     * Extension appended to the name of a "Quite Ok Image" file to name its sidecar
+     */
+    public static final String SIDECAR_EXTENSION = ".idx";
+
+    /**
+     * Size of the header of an index sidecar
+     */
+    private static final int HEADER_SIZE = INDEX_MAGIC.length + 5 * 4;
+
+    /**
+     * Size of a checkpoint in an index sidecar
+     */
+    private static final int CHECKPOINT_SIZE = (3 + 64) * 4 + 8;
+
+    private final int fileSize;
+    private final int width;
+    private final int height;
+    private final int rowsPerCheckpoint;
+    private final int[] offsets;
+    private final int[] positions;
+    private final int[] previousPixels;
+    private final long[] spanHashes;
+    private final int[] hashTables;
+
+    private QOIIndex(int fileSize, int width, int height, int rowsPerCheckpoint, int[] offsets, int[] positions,
+                     int[] previousPixels, long[] spanHashes, int[] hashTables) {
+        this.fileSize = fileSize;
+        this.width = width;
+        this.height = height;
+        this.rowsPerCheckpoint = rowsPerCheckpoint;
+        this.offsets = offsets;
+        this.positions = positions;
+        this.previousPixels = previousPixels;
+        this.spanHashes = spanHashes;
+        this.hashTables = hashTables;
+    }
+
+    // ==================================================================================
+    // ================================ INDEX BUILDING ==================================
+    // ==================================================================================
+
+    /**
+     * Build the index of a "Quite Ok Image" file, walking its chunks once
+     *
+     * @param content           (byte[]) - Content of the file
+     * @param rowsPerCheckpoint (int) - Number of rows between two checkpoints
+     * @return (QOIIndex) - Index of the file
+     * @throws AssertionError if content is null or rowsPerCheckpoint isn't positive
+     * @throws RuntimeException if the file is corrupted
+     */
+    public static QOIIndex build(byte[] content, int rowsPerCheckpoint) {
+        assert content != null;
+        return build(ByteBuffer.wrap(content), rowsPerCheckpoint);
+    }
+
+    /**
+     * Build the index of a "Quite Ok Image" file held between the position and the limit of a byte buffer,
+     * heap, direct or mapped, walking its chunks once. The position of the buffer is left untouched
+     *
+     * @param content           (ByteBuffer) - Content of the file
+     * @param rowsPerCheckpoint (int) - Number of rows between two checkpoints
+     * @return (QOIIndex) - Index of the file
+     * @throws AssertionError if content is null or rowsPerCheckpoint isn't positive
+     * @throws RuntimeException if the file is corrupted
+     */
+    public static QOIIndex build(ByteBuffer content, int rowsPerCheckpoint) {
+        assert content != null && rowsPerCheckpoint > 0;
+
+        ByteBuffer data = content.slice().order(ByteOrder.BIG_ENDIAN);
+        QOIDecoder.checkEndMarker(data, 0, data.limit());
+        QOIHeader header = QOIHeader.of(data);
+        int width = header.width();
+        int count = (header.height() - 1) / rowsPerCheckpoint + 1;
+        int end = data.limit() - QOISpecification.QOI_EOF.length;
+
+        int[] offsets = new int[count];
+        int[] positions = new int[count];
+        int[] previousPixels = new int[count];
+        int[] hashTables = new int[count * 64];
+
+        int[] hashTable = new int[64];
+        int previousPixel = QOISpecification.PACKED_START_PIXEL;
+        int position = 0;
+        int index = QOISpecification.HEADER_SIZE;
+        int checkpoint = 0;
+        long target = 0;
+
+        while (checkpoint < count) {
+            if (index >= end) {
+                Helper.fail("Corrupted \"Quite Ok Image\" file : the chunks end before the row %d",
+                        (long) checkpoint * rowsPerCheckpoint);
+            }
+            int chunk = data.get(index) & 0xFF;
+            int pixels = PIXEL_COUNTS[chunk];
+
+            // A long run may hold the first pixel of several checkpoint rows, they all start before it
+            while (checkpoint < count && target < position + pixels) {
+                offsets[checkpoint] = index;
+                positions[checkpoint] = position;
+                previousPixels[checkpoint] = previousPixel;
+                System.arraycopy(hashTable, 0, hashTables, checkpoint * 64, 64);
+                checkpoint++;
+                target = (long) checkpoint * rowsPerCheckpoint * width;
+            }
+
+            previousPixel = QOIDecoder.decodeChunk(data, index, chunk, previousPixel, hashTable);
+            index += CHUNK_SIZES[chunk];
+            position += pixels;
+        }
+
+        long[] spanHashes = new long[count];
+        for (checkpoint = 0; checkpoint < count; checkpoint++) {
+            spanHashes[checkpoint] = ArrayUtils.hash64(span(data, offsets, checkpoint));
+        }
+
+        return new QOIIndex(data.limit(), width, header.height(), rowsPerCheckpoint,
+                offsets, positions, previousPixels, spanHashes, hashTables);
+    }
+
+    /**
+     * Bytes of the file decoded from a checkpoint, up to the next checkpoint or the end of the file
+     */
+    private static ByteBuffer span(ByteBuffer data, int[] offsets, int checkpoint) {
+        int end = checkpoint + 1 < offsets.length ? offsets[checkpoint + 1] : data.limit();
+        return data.slice(offsets[checkpoint], end - offsets[checkpoint]);
+    }
+
+    /**
+     * Map a "Quite Ok Image" file and build its index
+     *
+     * @param path              (Path) - Path to the file
+     * @param rowsPerCheckpoint (int) - Number of rows between two checkpoints
+     * @return (QOIIndex) - Index of the file
+     * @throws AssertionError if rowsPerCheckpoint isn't positive
+     * @throws RuntimeException if the file cannot be read or is corrupted
+     */
+    public static QOIIndex build(Path path, int rowsPerCheckpoint) {
+        return build(QOIFiles.map(path), rowsPerCheckpoint);
+    }
+
+    // ==================================================================================
+    // ================================ INDEX SIDECAR ===================================
+    // ==================================================================================
+
+    /**
+     * Path of the sidecar of a "Quite Ok Image" file, next to it
+     *
+     * @param path (Path) - Path to the "Quite Ok Image" file
+     * @return (Path) - Path to its sidecar
+     */
+    public static Path sidecarOf(Path path) {
+        assert path != null && path.getFileName() != null;
+        return path.resolveSibling(path.getFileName() + SIDECAR_EXTENSION);
+    }
+
+    /**
+     * Serialize the index in the sidecar layout
+     *
+     * @return (byte[]) - Content of the sidecar
+     */
+    public byte[] toByteArray() {
+        int count = offsets.length;
+        ByteBuffer output = ByteBuffer.allocate(HEADER_SIZE + count * CHECKPOINT_SIZE);
+
+        output.put(INDEX_MAGIC).putInt(fileSize).putInt(width).putInt(height).putInt(rowsPerCheckpoint).putInt(count);
+        for (int checkpoint = 0; checkpoint < count; checkpoint++) {
+            output.putInt(offsets[checkpoint]).putInt(positions[checkpoint]).putInt(previousPixels[checkpoint]);
+            output.putLong(spanHashes[checkpoint]);
+            output.asIntBuffer().put(hashTables, checkpoint * 64, 64);
+            output.position(output.position() + 64 * 4);
+        }
+
+        return output.array();
+    }
+
+    /**
+     * Read an index from the content of its sidecar
+     *
+     * @param content (byte[]) - Content of the sidecar
+     * @return (QOIIndex) - The index
+     * @throws AssertionError if content is null
+     * @throws RuntimeException if the content is not a valid index sidecar
+     */
+    public static QOIIndex of(byte[] content) {
+        assert content != null;
+        return of(ByteBuffer.wrap(content));
+    }
+
+    /**
+     * Read an index from the content of its sidecar held between the position and the limit of a byte buffer.
+     * The position is moved to the limit
+     *
+     * @param content (ByteBuffer) - Content of the sidecar
+     * @return (QOIIndex) - The index
+     * @throws AssertionError if content is null
+     * @throws RuntimeException if the content is not a valid index sidecar
+     */
+    public static QOIIndex of(ByteBuffer content) {
+        assert content != null;
+
+        ByteBuffer input = content.slice().order(ByteOrder.BIG_ENDIAN);
+        if (input.remaining() < HEADER_SIZE) {
+            Helper.fail("Corrupted \"Quite Ok Image\" index : %d bytes for a header of %d", input.remaining(), HEADER_SIZE);
+        }
+        if (input.getInt() != ArrayUtils.toInt(INDEX_MAGIC)) {
+            Helper.fail("Corrupted \"Quite Ok Image\" index : invalid magic number");
+        }
+
+        int fileSize = input.getInt();
+        int width = input.getInt();
+        int height = input.getInt();
+        int rowsPerCheckpoint = input.getInt();
+        int count = input.getInt();
+        if (width <= 0 || height <= 0 || rowsPerCheckpoint <= 0) {
+            Helper.fail("Corrupted \"Quite Ok Image\" index : invalid size %d x %d or %d rows per checkpoint",
+                    width, height, rowsPerCheckpoint);
+        }
+        if (count != (height - 1) / rowsPerCheckpoint + 1 || input.remaining() != (long) count * CHECKPOINT_SIZE) {
+            Helper.fail("Corrupted \"Quite Ok Image\" index : %d checkpoints in %d bytes for %d rows by %d",
+                    count, input.remaining(), height, rowsPerCheckpoint);
+        }
+
+        int[] offsets = new int[count];
+        int[] positions = new int[count];
+        int[] previousPixels = new int[count];
+        long[] spanHashes = new long[count];
+        int[] hashTables = new int[count * 64];
+        for (int checkpoint = 0; checkpoint < count; checkpoint++) {
+            offsets[checkpoint] = input.getInt();
+            positions[checkpoint] = input.getInt();
+            previousPixels[checkpoint] = input.getInt();
+            spanHashes[checkpoint] = input.getLong();
+            input.asIntBuffer().get(hashTables, checkpoint * 64, 64);
+            input.position(input.position() + 64 * 4);
+
+            // The checkpoints follow each other in the chunks and in the pixels of the file
+            int previousOffset = checkpoint == 0 ? QOISpecification.HEADER_SIZE - 1 : offsets[checkpoint - 1];
+            int previousPosition = checkpoint == 0 ? -1 : positions[checkpoint - 1];
+            if (offsets[checkpoint] <= previousOffset || positions[checkpoint] < previousPosition
+                    || offsets[checkpoint] > fileSize - QOISpecification.QOI_EOF.length
+                    || positions[checkpoint] > (long) checkpoint * rowsPerCheckpoint * width) {
+                Helper.fail("Corrupted \"Quite Ok Image\" index : invalid checkpoint %d", checkpoint);
+            }
+        }
+        content.position(content.limit());
+
+        return new QOIIndex(fileSize, width, height, rowsPerCheckpoint, offsets, positions, previousPixels,
+                spanHashes, hashTables);
+    }
+
+    /**
+     * Write the index into a sidecar file, usually {@link #sidecarOf(Path)} of the indexed file
+     *
+     * @param path (Path) - Path to the sidecar
+     * @throws RuntimeException if the file cannot be written
+     */
+    public void write(Path path) {
+        QOIFiles.write(path, ByteBuffer.wrap(toByteArray()));
+    }
+
+    /**
+     * Read an index from a sidecar file
+     *
+     * @param path (Path) - Path to the sidecar
+     * @return (QOIIndex) - The index
+     * @throws RuntimeException if the file cannot be read or is not a valid index sidecar
+     */
+    public static QOIIndex read(Path path) {
+        return of(QOIFiles.map(path));
+    }
+
+    // ==================================================================================
+    // =============================== INDEXED DECODING =================================
+    // ==================================================================================
+
+    /**
+     * Decode a rectangle of the indexed file, starting from the last checkpoint above it
+     *
+     * @param content (byte[]) - Content of the indexed file
+     * @param x       (int) - Column of the left side of the rectangle
+     * @param y       (int) - Row of the top side of the rectangle
+     * @param width   (int) - Width of the rectangle
+     * @param height  (int) - Height of the rectangle
+     * @return (PixelBuffer) - Decoded pixels of the rectangle
+     * @throws AssertionError if content is null or the rectangle is not inside the image
+     * @throws RuntimeException if the content is not the indexed file, or changed since it was indexed
+     */
+    public PixelBuffer decodeRegion(byte[] content, int x, int y, int width, int height) {
+        assert content != null;
+        assertRegion(x, y, width, height);
+        checkContent(ByteBuffer.wrap(content), y, height);
+
+        int checkpoint = y / rowsPerCheckpoint;
+        PixelBuffer pixels = new PixelBuffer(width, height);
+        int decoded = QOIDecoder.decodeRegion(content, offsets[checkpoint], content.length, this.width,
+                x, y, width, height, pixels.data(), positions[checkpoint], previousPixels[checkpoint], hashTable(checkpoint));
+        QOIDecoder.checkPixelCount(decoded, pixels.data().length);
+
+        return pixels;
+    }
+
+    /**
+     * Decode a rectangle of the indexed file held from the position of a byte buffer, heap, direct or mapped,
+     * starting from the last checkpoint above it. The position of the buffer is left untouched
+     *
+     * @param content (ByteBuffer) - Content of the indexed file
+     * @param x       (int) - Column of the left side of the rectangle
+     * @param y       (int) - Row of the top side of the rectangle
+     * @param width   (int) - Width of the rectangle
+     * @param height  (int) - Height of the rectangle
+     * @return (PixelBuffer) - Decoded pixels of the rectangle
+     * @throws AssertionError if content is null or the rectangle is not inside the image
+     * @throws RuntimeException if the content is not the indexed file, or changed since it was indexed
+     */
+    public PixelBuffer decodeRegion(ByteBuffer content, int x, int y, int width, int height) {
+        assert content != null;
+        assertRegion(x, y, width, height);
+
+        ByteBuffer view = content.slice().order(ByteOrder.BIG_ENDIAN);
+        checkContent(view, y, height);
+
+        int checkpoint = y / rowsPerCheckpoint;
+        PixelBuffer pixels = new PixelBuffer(width, height);
+        int decoded = QOIDecoder.decodeRegion(view, offsets[checkpoint], view.limit(), this.width,
+                x, y, width, height, pixels.data(), positions[checkpoint], previousPixels[checkpoint], hashTable(checkpoint));
+        QOIDecoder.checkPixelCount(decoded, pixels.data().length);
+
+        return pixels;
+    }
+
+    /**
+     * Decode consecutive whole rows of the indexed file, starting from the last checkpoint above them
+     *
+     * @param content  (byte[]) - Content of the indexed file
+     * @param firstRow (int) - Index of the first row to decode
+     * @param rowCount (int) - Number of rows to decode
+     * @return (PixelBuffer) - Decoded pixels of the rows
+     * @throws AssertionError if content is null or the rows are not inside the image
+     * @throws RuntimeException if the content is not the indexed file, or changed since it was indexed
+     */
+    public PixelBuffer decodeRows(byte[] content, int firstRow, int rowCount) {
+        return decodeRegion(content, 0, firstRow, width, rowCount);
+    }
+
+    /**
+     * Decode consecutive whole rows of the indexed file held from the position of a byte buffer,
+     * starting from the last checkpoint above them. The position of the buffer is left untouched
+     *
+     * @param content  (ByteBuffer) - Content of the indexed file
+     * @param firstRow (int) - Index of the first row to decode
+     * @param rowCount (int) - Number of rows to decode
+     * @return (PixelBuffer) - Decoded pixels of the rows
+     * @throws AssertionError if content is null or the rows are not inside the image
+     * @throws RuntimeException if the content is not the indexed file, or changed since it was indexed
+     */
+    public PixelBuffer decodeRows(ByteBuffer content, int firstRow, int rowCount) {
+        return decodeRegion(content, 0, firstRow, width, rowCount);
+    }
+
+    private void assertRegion(int x, int y, int width, int height) {
+        assert width > 0 && height > 0 && x >= 0 && y >= 0;
+        assert x + width <= this.width && y + height <= this.height;
+    }
+
+    /**
+     * Check, whether assertions are enabled or not, that the file is still the indexed one : same size,
+     * same image size and same bytes from the checkpoint above the rows up to the checkpoint of the last row.
+     * Only the bytes about to be decoded are hashed, the cost follows the size of the region
+     */
+    private void checkContent(ByteBuffer view, int y, int rows) {
+        if (view.limit() != fileSize) {
+            Helper.fail("Stale \"Quite Ok Image\" index : the file has %d bytes instead of %d", view.limit(), fileSize);
+        }
+        QOIHeader header = QOIHeader.of(view);
+        if (header.width() != width || header.height() != height) {
+            Helper.fail("Stale \"Quite Ok Image\" index : the image is %d x %d pixels instead of %d x %d",
+                    header.width(), header.height(), width, height);
+        }
+        for (int checkpoint = y / rowsPerCheckpoint; checkpoint <= (y + rows - 1) / rowsPerCheckpoint; checkpoint++) {
+            if (ArrayUtils.hash64(span(view, offsets, checkpoint)) != spanHashes[checkpoint]) {
+                Helper.fail("Stale \"Quite Ok Image\" index : the file changed after the checkpoint %d", checkpoint);
+            }
+        }
+    }
+
+    private int[] hashTable(int checkpoint) {
+        // The decoder updates the table in place, the checkpoint must stay intact
+        return Arrays.copyOfRange(hashTables, checkpoint * 64, checkpoint * 64 + 64);
+    }
+
+    // ==================================================================================
+    // ================================== ACCESSORS =====================================
+    // ==================================================================================
+
+    /**
+     * @return (int) - Size of the indexed file
+     */
+    public int fileSize() {
+        return fileSize;
+    }
+
+    /**
+     * @return (int) - Width of the indexed image
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * @return (int) - Height of the indexed image
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * @return (int) - Number of rows between two checkpoints
+     */
+    public int rowsPerCheckpoint() {
+        return rowsPerCheckpoint;
+    }
+
+    /**
+     * @return (int) - Number of checkpoints of the index
+     */
+    public int checkpoints() {
+        return offsets.length;
+    }
+}
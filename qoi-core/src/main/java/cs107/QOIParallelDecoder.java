@@ -0,0 +1,354 @@
+package cs107;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import static cs107.QOIDecoder.CHUNK_SIZES;
+import static cs107.QOIDecoder.OPCODES;
+import static cs107.QOIDecoder.OP_INDEX;
+import static cs107.QOIDecoder.PIXEL_COUNTS;
+
+/**
+ * Parallel decoder for plain "Quite Ok Image" files. The output is identical to the one of {@link QOIDecoder}.
+ * <p>
+ * The decoding runs in three phases :
+ * <ol>
+ * <li>A sequential pre-scan that only reads the tags, counting the pixels of every chunk,
+ * to find the chunk where each band of rows starts.</li>
+ * <li>A parallel pass where every band is decoded speculatively from a guessed state
+ * (the start pixel and an empty hash table). Along the way, each band records checkpoints
+ * of its state, and for each checkpoint the slots of the hash table that are read before
+ * being written again.</li>
+ * <li>A sequential fix-up, band after band : knowing the true state at the start of the band,
+ * the band is decoded again until a checkpoint where the true state agrees with the speculative
+ * one on the previous pixel and on every slot that will still be read. From there on the
+ * speculative pixels are the right ones. In most images this happens after a few checkpoints,
+ * in the worst case the band is decoded again entirely.</li>
+ * </ol>
+ */
+public final class QOIParallelDecoder {
+
+    // Hide default constructor
+    private QOIParallelDecoder() {}
+
+    /**
+     * Images smaller than this number of pixels are decoded sequentially, the extra passes would not pay off.
+     * Pools with a single thread always decode sequentially
+     */
+    public static final int MIN_PARALLEL_PIXELS = 1 << 20;
+
+    /**
+     * Number of bands given to every thread of the pool, to balance uneven bands
+     */
+    private static final int BANDS_PER_THREAD = 4;
+
+    /**
+     * Minimal number of input bytes between two checkpoints of a band
+     */
+    private static final int CHECKPOINT_BYTES = 4096;
+
+    /**
+     * Maximal number of checkpoints of a band
+     */
+    private static final int MAX_CHECKPOINTS = 64;
+
+    /**
+     * A band of the image, with the checkpoints recorded while decoding it speculatively
+     */
+    private static final class Band {
+
+        private final int from;
+        private final int to;
+        private final int start;
+        private final int end;
+
+        private int checkpoints = 0;
+        private final int[] offsets;
+        private final int[] positions;
+        private final int[] previousPixels;
+        private final int[][] hashTables;
+        /** Slots read before being written, per segment between two checkpoints */
+        private final long[] readFirst;
+        /** Slots written, per segment between two checkpoints */
+        private final long[] written;
+        private int[] finalHashTable;
+
+        private Band(int from, int to, int start, int end) {
+            this.from = from;
+            this.to = to;
+            this.start = start;
+            this.end = end;
+
+            int capacity = Math.min(MAX_CHECKPOINTS, (to - from) / CHECKPOINT_BYTES + 1);
+            offsets = new int[capacity];
+            positions = new int[capacity];
+            previousPixels = new int[capacity];
+            hashTables = new int[capacity][];
+            readFirst = new long[capacity];
+            written = new long[capacity];
+        }
+    }
+
+    // ==================================================================================
+    // ========================= GLOBAL DECODING METHODS ================================
+    // ==================================================================================
+
+    /**
+     * Decode a plain "Quite Ok Image" file using the common pool
+     *
+     * @param content (byte[]) - Content of the file to decode
+     * @return (Helper.Image) - Decoded image
+     * @throws AssertionError if content is null
+     * @throws RuntimeException if content is not a valid "Quite Ok Image" file
+     */
+    public static Helper.Image decodeQoiFile(byte[] content) {
+        assert content != null;
+
+        QOIHeader header = QOIHeader.of(content);
+        PixelBuffer pixels = decodePixels(content, header, ForkJoinPool.commonPool());
+        int[][] data = ArrayUtils.pixelsToImage(pixels.data(), pixels.height(), pixels.width());
+
+        return Helper.generateImage(data, header.channels(), header.colorSpace());
+    }
+
+    /**
+     * Decode a plain "Quite Ok Image" file into packed pixels (0xRRGGBBAA), in parallel on the given pool
+     *
+     * @param content (byte[]) - Content of the file to decode
+     * @param pool    (ForkJoinPool) - Pool running the decoding of the bands
+     * @return (PixelBuffer) - Decoded pixels
+     * @throws AssertionError if content or pool is null
+     * @throws RuntimeException if content is not a valid "Quite Ok Image" file
+     */
+    public static PixelBuffer decodePixels(byte[] content, ForkJoinPool pool) {
+        assert content != null && pool != null;
+        return decodePixels(content, QOIHeader.of(content), pool);
+    }
+
+    /**
+     * Decode the chunks of a plain "Quite Ok Image" file whose header is already parsed
+     *
+     * @param content (byte[]) - Content of the file to decode
+     * @param header  (QOIHeader) - Header of the file
+     * @param pool    (ForkJoinPool) - Pool running the decoding of the bands
+     * @return (PixelBuffer) - Decoded pixels
+     * @throws RuntimeException if the chunks or the end marker are corrupted
+     */
+    private static PixelBuffer decodePixels(byte[] content, QOIHeader header, ForkJoinPool pool) {
+        QOIDecoder.checkEndMarker(ByteBuffer.wrap(content), 0, content.length);
+
+        PixelBuffer pixels = new PixelBuffer(new int[header.arrayPixelCount()], header.width(), header.height());
+
+        boolean sequential = pixels.data().length < MIN_PARALLEL_PIXELS || pool.getParallelism() == 1;
+        int bands = sequential ? 1 : pool.getParallelism() * BANDS_PER_THREAD;
+        int decoded = decodeData(content, QOISpecification.HEADER_SIZE,
+                content.length - QOISpecification.QOI_EOF.length, pixels.data(), bands, pool);
+        QOIDecoder.checkPixelCount(decoded, pixels.data().length);
+
+        return pixels;
+    }
+
+    /**
+     * Decode the given range of data into packed pixels (0xRRGGBBAA), split in the given number of bands
+     *
+     * @param data   (byte[]) - Data to decode
+     * @param from   (int) - Index in the data of the first chunk
+     * @param to     (int) - Index in the data right after the last chunk
+     * @param buffer (int[]) - Buffer where to store the decoded pixels, its length is the number of expected pixels
+     * @param bands  (int) - Number of bands to decode in parallel
+     * @param pool   (ForkJoinPool) - Pool running the decoding of the bands
+     * @return (int) - The number of decoded pixels
+     * @throws AssertionError if the range is invalid
+     * @throws RuntimeException if the chunks hold more pixels than the buffer
+     */
+    public static int decodeData(byte[] data, int from, int to, int[] buffer, int bands, ForkJoinPool pool) {
+        assert data != null && buffer != null && pool != null;
+        assert from >= 0 && from <= to && to <= data.length;
+        assert bands > 0;
+
+        if (bands == 1) return QOIDecoder.decodeData(data, from, to, buffer);
+
+        Band[] split = scan(data, from, to, buffer.length, bands);
+        if (split.length == 0) return 0;
+
+        // The first band starts from the true state, it needs no speculation
+        int[] hashTable = new int[64];
+        Band first = split[0];
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(split.length);
+        tasks.add(ForkJoinTask.adapt(() -> QOIDecoder.decodeData(data, first.from, first.to, buffer, first.start,
+                QOISpecification.PACKED_START_PIXEL, hashTable)));
+        for (int i = 1; i < split.length; i++) {
+            Band band = split[i];
+            tasks.add(ForkJoinTask.adapt(() -> speculate(data, buffer, band)));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+
+        int previousPixel = buffer[first.end - 1];
+        for (int i = 1; i < split.length; i++) {
+            previousPixel = repair(data, buffer, split[i], previousPixel, hashTable);
+        }
+
+        return split[split.length - 1].end;
+    }
+
+    // ==================================================================================
+    // ================================ PRE-SCAN METHODS ================================
+    // ==================================================================================
+
+    /**
+     * Walk the tags once to find the chunk where every band starts.
+     * A run crossing a boundary belongs to the band where it starts
+     *
+     * @param data   (byte[]) - Data to scan
+     * @param from   (int) - Index in the data of the first chunk
+     * @param to     (int) - Index in the data right after the last chunk
+     * @param pixels (int) - Number of pixels of the image
+     * @param bands  (int) - Wanted number of bands
+     * @return (Band[]) - The non empty bands, in order
+     * @throws RuntimeException if the chunks hold more pixels than the image
+     */
+    private static Band[] scan(byte[] data, int from, int to, int pixels, int bands) {
+        long bandPixels = Math.max(1, ((long) pixels + bands - 1) / bands);
+        List<Integer> offsets = new ArrayList<>(bands + 1);
+        List<Integer> positions = new ArrayList<>(bands + 1);
+
+        int position = 0;
+        long boundary = 0;
+        int index = from;
+
+        while (index < to) {
+            if (position >= boundary) {
+                offsets.add(index);
+                positions.add(position);
+                boundary = (position / bandPixels + 1) * bandPixels;
+            }
+
+            int chunk = data[index] & 0xFF;
+            index += CHUNK_SIZES[chunk];
+            position += PIXEL_COUNTS[chunk];
+        }
+        if (position > pixels) {
+            Helper.fail("Corrupted \"Quite Ok Image\" data : the chunks hold more than the %d expected pixels", pixels);
+        }
+        offsets.add(to);
+        positions.add(position);
+
+        Band[] result = new Band[offsets.size() - 1];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = new Band(offsets.get(i), offsets.get(i + 1), positions.get(i), positions.get(i + 1));
+        }
+        return result;
+    }
+
+    // ==================================================================================
+    // ============================= SPECULATIVE DECODING ===============================
+    // ==================================================================================
+
+    /**
+     * Decode the band from a guessed state, recording the checkpoints
+     *
+     * @param data   (byte[]) - Data to decode
+     * @param buffer (int[]) - Buffer where to store the decoded pixels
+     * @param band   (Band) - Band to decode
+     */
+    private static void speculate(byte[] data, int[] buffer, Band band) {
+        int interval = Math.max(CHECKPOINT_BYTES, (band.to - band.from) / MAX_CHECKPOINTS + 1);
+
+        ByteBuffer view = ByteBuffer.wrap(data);
+        int previousPixel = QOISpecification.PACKED_START_PIXEL;
+        int[] hashTable = new int[64];
+        long readFirst = 0;
+        long written = 0;
+
+        int position = band.start;
+        int index = band.from;
+        int nextCheckpoint = index;
+
+        while (index < band.to) {
+            if (index >= nextCheckpoint && band.checkpoints < band.offsets.length) {
+                int checkpoint = band.checkpoints++;
+                if (checkpoint > 0) {
+                    band.readFirst[checkpoint - 1] = readFirst;
+                    band.written[checkpoint - 1] = written;
+                }
+                band.offsets[checkpoint] = index;
+                band.positions[checkpoint] = position;
+                band.previousPixels[checkpoint] = previousPixel;
+                band.hashTables[checkpoint] = Arrays.copyOf(hashTable, 64);
+                readFirst = 0;
+                written = 0;
+                nextCheckpoint = index + interval;
+            }
+
+            int chunk = data[index] & 0xFF;
+            int count = PIXEL_COUNTS[chunk];
+
+            // An INDEX chunk reads its slot before the pixel of the chunk is stored, as every chunk does
+            if (OPCODES[chunk] == OP_INDEX) readFirst |= (1L << chunk) & ~written;
+            previousPixel = QOIDecoder.decodeChunk(view, index, chunk, previousPixel, hashTable);
+            written |= 1L << QOISpecification.hash(previousPixel);
+            index += CHUNK_SIZES[chunk];
+
+            for (int end = position + count; position < end; ) buffer[position++] = previousPixel;
+        }
+
+        band.readFirst[band.checkpoints - 1] = readFirst;
+        band.written[band.checkpoints - 1] = written;
+        band.finalHashTable = hashTable;
+    }
+
+    /**
+     * Decode the start of the band again from its true state, until the speculative decoding agrees with it
+     *
+     * @param data          (byte[]) - Data to decode
+     * @param buffer        (int[]) - Buffer where to store the decoded pixels
+     * @param band          (Band) - Band decoded speculatively
+     * @param previousPixel (int) - True previous pixel at the start of the band
+     * @param hashTable     (int[]) - True hash table at the start of the band, updated to the one at its end
+     * @return (int) - True previous pixel at the end of the band
+     */
+    private static int repair(byte[] data, int[] buffer, Band band, int previousPixel, int[] hashTable) {
+        int checkpoints = band.checkpoints;
+
+        // Slots read before being written from each checkpoint on, and slots written from each checkpoint on
+        long[] live = new long[checkpoints + 1];
+        long[] writtenAfter = new long[checkpoints + 1];
+        for (int j = checkpoints - 1; j >= 0; j--) {
+            live[j] = band.readFirst[j] | (live[j + 1] & ~band.written[j]);
+            writtenAfter[j] = band.written[j] | writtenAfter[j + 1];
+        }
+
+        for (int j = 0; j < checkpoints; j++) {
+            if (agrees(band, j, previousPixel, hashTable, live[j])) {
+                for (int slot = 0; slot < 64; slot++) {
+                    if ((writtenAfter[j] >>> slot & 1) != 0) hashTable[slot] = band.finalHashTable[slot];
+                }
+                return buffer[band.end - 1];
+            }
+
+            int to = j + 1 < checkpoints ? band.offsets[j + 1] : band.to;
+            int next = j + 1 < checkpoints ? band.positions[j + 1] : band.end;
+            int decoded = QOIDecoder.decodeData(data, band.offsets[j], to, buffer, band.positions[j],
+                    previousPixel, hashTable);
+            assert band.positions[j] + decoded == next;
+            previousPixel = buffer[next - 1];
+        }
+
+        return previousPixel;
+    }
+
+    private static boolean agrees(Band band, int checkpoint, int previousPixel, int[] hashTable, long live) {
+        if (band.previousPixels[checkpoint] != previousPixel) return false;
+
+        int[] speculative = band.hashTables[checkpoint];
+        for (int slot = 0; slot < 64; slot++) {
+            if ((live >>> slot & 1) != 0 && speculative[slot] != hashTable[slot]) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,264 @@
+package cs107;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * "Segmented Quite Ok Image" container. The image is split in horizontal bands
+ * of the same height (the last one can be shorter), each band being encoded as an
+ * independent "Quite Ok Image" stream : the previous pixel, the hash table and the run
+ * are reset at the start of every band. Bands can thus be encoded and decoded in parallel.
+ * <p>
+ * Layout of a file :
+ * <pre>
+ * header          14 bytes, same as "Quite Ok Image" but with the magic number "qois"
+ * band height      4 bytes, big endian
+ * band count       4 bytes, big endian
+ * band offsets     4 bytes per band, big endian, end of each band relative to the start of the data
+ * data             chunks of every band, one after the other
+ * EOF              8 bytes, same as "Quite Ok Image"
+ * </pre>
+ * This format is not readable by a plain "Quite Ok Image" decoder, {@link QOIEncoder} stays the default.
+ */
+public final class QOISegmented {
+
+    // Hide default constructor
+    private QOISegmented() {}
+
+    /**
+     * Magic Number of a "Segmented Quite Ok Image" file
+     */
+    public static final byte[] SEGMENTED_MAGIC = new byte[]{'q', 'o', 'i', 's'};
+
+    /**
+     * Size of the fixed part of the header : "Quite Ok Image" header, band height and band count
+     */
+    public static final int HEADER_SIZE = QOISpecification.HEADER_SIZE + 4 + 4;
+
+    /**
+     * Number of bands given to every thread of the pool by default, to balance uneven bands
+     */
+    private static final int BANDS_PER_THREAD = 4;
+
+    // ==================================================================================
+    // ============================== ENCODING METHODS ==================================
+    // ==================================================================================
+
+    /**
+     * Encode the given image as a "Segmented Quite Ok Image" using the common pool
+     *
+     * @param image (Helper.Image) - Image to encode
+     * @return (byte[]) - Binary representation of the file
+     * @throws AssertionError if the image is null
+     */
+    public static byte[] qoiFile(Helper.Image image) {
+        assert image != null;
+
+        int[][] data = image.data();
+        PixelBuffer pixels = new PixelBuffer(ArrayUtils.imageToPixels(data), data[0].length, data.length);
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+
+        return qoiFile(pixels, image.channels(), image.color_space(), defaultBandHeight(pixels.height(), pool), pool);
+    }
+
+    /**
+     * Encode the given packed pixels as a "Segmented Quite Ok Image", one task per band
+     *
+     * @param pixels     (PixelBuffer) - Packed pixels to encode
+     * @param channels   (byte) - Number of channels of the image
+     * @param colorSpace (byte) - Color space of the image
+     * @param bandHeight (int) - Number of rows of every band
+     * @param pool       (ForkJoinPool) - Pool running the encoding of the bands
+     * @return (byte[]) - Binary representation of the file
+     * @throws AssertionError if one of the parameters is invalid
+     */
+    public static byte[] qoiFile(PixelBuffer pixels, byte channels, byte colorSpace, int bandHeight, ForkJoinPool pool) {
+        assert pixels != null && pool != null;
+        assert bandHeight > 0;
+
+        int width = pixels.width();
+        int bands = (pixels.height() + bandHeight - 1) / bandHeight;
+        int bandPixels = bandHeight * width;
+
+        // Every band writes its chunks in its own worst case slot, they are packed together once all are done
+        byte[] scratch = new byte[QOIEncoder.maxDataSize(pixels.data().length)];
+        int[] lengths = new int[bands];
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(bands);
+        for (int i = 0; i < bands; i++) {
+            int band = i;
+            tasks.add(ForkJoinTask.adapt(() -> {
+                int from = band * bandPixels;
+                int to = Math.min(from + bandPixels, pixels.data().length);
+                int start = QOIEncoder.maxDataSize(from);
+
+                QOIEncoderState state = new QOIEncoderState();
+                int end = state.encode(pixels.data(), from, to, scratch, start);
+                lengths[band] = state.finish(scratch, end) - start;
+            }));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+
+        int dataSize = 0;
+        for (int length : lengths) dataSize += length;
+
+        int dataStart = HEADER_SIZE + 4 * bands;
+        byte[] output = new byte[dataStart + dataSize + QOISpecification.QOI_EOF.length];
+
+        byte[] header = QOIEncoder.qoiHeader(width, pixels.height(), channels, colorSpace);
+        System.arraycopy(header, 0, output, 0, header.length);
+        System.arraycopy(SEGMENTED_MAGIC, 0, output, 0, SEGMENTED_MAGIC.length);
+        writeInt(output, QOISpecification.HEADER_SIZE, bandHeight);
+        writeInt(output, QOISpecification.HEADER_SIZE + 4, bands);
+
+        int offset = 0;
+        for (int band = 0; band < bands; band++) {
+            System.arraycopy(scratch, QOIEncoder.maxDataSize(band * bandPixels),
+                    output, dataStart + offset, lengths[band]);
+            offset += lengths[band];
+            writeInt(output, HEADER_SIZE + 4 * band, offset);
+        }
+        System.arraycopy(QOISpecification.QOI_EOF, 0, output, dataStart + offset, QOISpecification.QOI_EOF.length);
+
+        return output;
+    }
+
+    // ==================================================================================
+    // ============================== DECODING METHODS ==================================
+    // ==================================================================================
+
+    /**
+     * Check if the given content starts like a "Segmented Quite Ok Image" file
+     *
+     * @param content (byte[]) - Content of a file
+     * @return (boolean) - true if the content starts with the segmented magic number
+     */
+    public static boolean isSegmented(byte[] content) {
+        assert content != null;
+        return content.length >= HEADER_SIZE
+                && ArrayUtils.equals(ArrayUtils.extract(content, 0, SEGMENTED_MAGIC.length), SEGMENTED_MAGIC);
+    }
+
+    /**
+     * Decode a "Segmented Quite Ok Image" file using the common pool.
+     * Plain "Quite Ok Image" files are decoded with {@link QOIDecoder}
+     *
+     * @param content (byte[]) - Content of the file to decode
+     * @return (Helper.Image) - Decoded image
+     * @throws AssertionError if content is null or is not a valid file
+     */
+    public static Helper.Image decodeQoiFile(byte[] content) {
+        assert content != null;
+        if (!isSegmented(content)) return QOIDecoder.decodeQoiFile(content);
+
+        int[] header = decodeHeader(content);
+        PixelBuffer pixels = decodePixels(content, ForkJoinPool.commonPool());
+        int[][] data = ArrayUtils.pixelsToImage(pixels.data(), pixels.height(), pixels.width());
+
+        return Helper.generateImage(data, (byte) header[2], (byte) header[3]);
+    }
+
+    /**
+     * Decode the bands of a "Segmented Quite Ok Image" file in parallel into packed pixels (0xRRGGBBAA)
+     *
+     * @param content (byte[]) - Content of the file to decode
+     * @param pool    (ForkJoinPool) - Pool running the decoding of the bands
+     * @return (PixelBuffer) - Decoded pixels
+     * @throws AssertionError if content or pool is null
+     * @throws RuntimeException if the header, the band table or the chunks of a band are corrupted
+     */
+    public static PixelBuffer decodePixels(byte[] content, ForkJoinPool pool) {
+        assert content != null && pool != null;
+        if (!isSegmented(content) || content.length < HEADER_SIZE + QOISpecification.QOI_EOF.length
+                || !ArrayUtils.equals(ArrayUtils.extract(content, content.length - 8, 8), QOISpecification.QOI_EOF)) {
+            Helper.fail("Corrupted \"Segmented Quite Ok Image\" file : missing header or end marker");
+        }
+
+        int[] header = decodeHeader(content);
+        int width = header[0];
+        int height = header[1];
+        int bandHeight = readInt(content, QOISpecification.HEADER_SIZE);
+        int bands = readInt(content, QOISpecification.HEADER_SIZE + 4);
+        if (bandHeight <= 0 || bands != (height + (long) bandHeight - 1) / bandHeight) {
+            Helper.fail("Corrupted \"Segmented Quite Ok Image\" file : %d bands of %d rows for %d rows",
+                    bands, bandHeight, height);
+        }
+        if (HEADER_SIZE + 4L * bands > content.length - QOISpecification.QOI_EOF.length) {
+            Helper.fail("Corrupted \"Segmented Quite Ok Image\" file : no room for the offsets of %d bands", bands);
+        }
+
+        // Every band is checked before any is decoded : its chunks must follow the previous band in the data
+        int dataStart = HEADER_SIZE + 4 * bands;
+        int dataLength = content.length - QOISpecification.QOI_EOF.length - dataStart;
+        int[] ends = new int[bands];
+        for (int band = 0, previous = 0; band < bands; band++) {
+            ends[band] = readInt(content, HEADER_SIZE + 4 * band);
+            if (ends[band] <= previous || ends[band] > dataLength) {
+                Helper.fail("Corrupted \"Segmented Quite Ok Image\" file : band %d ends at %d, after %d and within %d bytes",
+                        band, ends[band], previous, dataLength);
+            }
+            previous = ends[band];
+        }
+        if (ends[bands - 1] != dataLength) {
+            Helper.fail("Corrupted \"Segmented Quite Ok Image\" file : the bands hold %d bytes out of %d",
+                    ends[bands - 1], dataLength);
+        }
+
+        PixelBuffer pixels = new PixelBuffer(width, height);
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(bands);
+        for (int i = 0; i < bands; i++) {
+            int band = i;
+            tasks.add(ForkJoinTask.adapt(() -> {
+                int from = dataStart + (band == 0 ? 0 : ends[band - 1]);
+                int to = dataStart + ends[band];
+                int start = band * bandHeight * width;
+                int expected = Math.min(bandHeight * width, pixels.data().length - start);
+
+                int decoded = QOIDecoder.decodeData(content, from, to, pixels.data(), start);
+                if (decoded != expected) {
+                    Helper.fail("Corrupted \"Segmented Quite Ok Image\" file : band %d holds %d pixels instead of %d",
+                            band, decoded, expected);
+                }
+            }));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+
+        return pixels;
+    }
+
+    // ==================================================================================
+    // =============================== HELPER METHODS ===================================
+    // ==================================================================================
+
+    /**
+     * Number of rows per band so that every thread of the pool gets a few bands
+     *
+     * @param height (int) - Height of the image
+     * @param pool   (ForkJoinPool) - Pool encoding the bands
+     * @return (int) - Default band height
+     */
+    public static int defaultBandHeight(int height, ForkJoinPool pool) {
+        int bands = pool.getParallelism() * BANDS_PER_THREAD;
+        return Math.max(1, (height + bands - 1) / bands);
+    }
+
+    private static int[] decodeHeader(byte[] content) {
+        assert isSegmented(content);
+
+        byte[] header = ArrayUtils.extract(content, 0, QOISpecification.HEADER_SIZE);
+        System.arraycopy(QOISpecification.QOI_MAGIC, 0, header, 0, QOISpecification.QOI_MAGIC.length);
+        return QOIDecoder.decodeHeader(header);
+    }
+
+    private static void writeInt(byte[] output, int position, int value) {
+        System.arraycopy(ArrayUtils.fromInt(value), 0, output, position, 4);
+    }
+
+    private static int readInt(byte[] input, int position) {
+        return ArrayUtils.toInt(Arrays.copyOfRange(input, position, position + 4));
+    }
+}
@@ -77,6 +77,12 @@ public final class QOISpecification {
      */
     public static final byte[] START_PIXEL = new byte[]{0, 0, 0, (byte) 255};
 
+    /**
+     * First pixel to be stored as "previous pixel" when encoding and decoding packed pixels
+     * @apiNote packed pixels store the channels as 0xRRGGBBAA
+     */
+    public static final int PACKED_START_PIXEL = 0x00_00_00_FF;
+
     // ==================================================================================
     // ============================ "Quite Ok Image" EOF ================================
     // ==================================================================================
@@ -136,4 +142,23 @@ public final class QOISpecification {
         return (byte) (tmp < 0 ? tmp + 64 : tmp);
     }
 
-}
\ No newline at end of file
+    /**
+     * Hash a given packed pixel using the hash function specific to "Quite Ok Image" format.
+     * The channels are spread in the 16 bits lanes of a long (0x00RR_00BB_00GG_00AA), a single multiplication
+     * then adds r * 3 + g * 5 + b * 7 + a * 11 up in the top lane. Every lane stays below 2^16, no carry crosses them
+     * @apiNote index = (r * 3 + g * 5 + b * 7 + a * 11) % 64
+     * @param pixel (int) - Packed pixel (0xRRGGBBAA) to hash
+     * @return (int) - hash of the pixel
+     */
+    public static int hash(int pixel){
+        long lanes = (pixel & 0xFF00FF00L) << 24 | pixel & 0x00FF00FF;
+        return (int) (lanes * HASH_FACTORS >>> 48) & 63;
+    }
+
+    /**
+     * Factors of the alpha, green, blue and red channels, from the top lane down (0x000B_0005_0007_0003),
+     * each placed so that its product with the channel lands in the top lane
+     */
+    private static final long HASH_FACTORS = 11L << 48 | 5L << 32 | 7L << 16 | 3L;
+
+}
@@ -0,0 +1,254 @@
+package cs107;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * "Quite Ok Image" Decoder reading its input incrementally from a stream or a channel.
+ * Only a small fixed buffer of the input is kept in memory and the decoded pixels
+ * are handed to the caller one row at a time.
+ * <p>
+ * The input is never read past the "End Of File" marker : once the image is decoded, the stream or the channel
+ * is positioned right after it and the data that follows, such as another image, can still be read from it.
+ */
+public final class QOIStreamDecoder {
+
+    /**
+     * Receives the decoded rows of an image
+     */
+    @FunctionalInterface
+    public interface RowConsumer {
+
+        /**
+         * Called once per decoded row, in order
+         *
+         * @param row    (int) - Index of the row
+         * @param pixels (int[]) - Packed pixels (0xRRGGBBAA) of the row
+         * @apiNote the array is reused between calls, copy it to keep the row
+         */
+        void accept(int row, int[] pixels);
+    }
+
+    /**
+     * Size of the read buffer
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    private final InputStream stream;
+    private final ReadableByteChannel channel;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final ByteBuffer channelBuffer;
+    private final ByteBuffer view = ByteBuffer.wrap(buffer);
+    private int index;
+    private int limit;
+
+    private final int[] header;
+
+    /**
+     * Create a decoder reading from the given stream and decode the header
+     *
+     * @param input (InputStream) - Stream positioned at the start of a "Quite Ok Image" file
+     * @throws AssertionError if the input is null or the header is corrupted
+     * @throws UncheckedIOException if the input cannot be read
+     */
+    public QOIStreamDecoder(InputStream input) {
+        this(input, null);
+    }
+
+    /**
+     * Create a decoder reading from the given channel and decode the header
+     *
+     * @param input (ReadableByteChannel) - Channel positioned at the start of a "Quite Ok Image" file
+     * @throws AssertionError if the input is null or the header is corrupted
+     * @throws UncheckedIOException if the input cannot be read
+     */
+    public QOIStreamDecoder(ReadableByteChannel input) {
+        this(null, input);
+    }
+
+    private QOIStreamDecoder(InputStream stream, ReadableByteChannel channel) {
+        assert stream != null || channel != null;
+
+        this.stream = stream;
+        this.channel = channel;
+        this.channelBuffer = channel == null ? null : ByteBuffer.wrap(buffer);
+
+        require(QOISpecification.HEADER_SIZE, QOISpecification.HEADER_SIZE);
+        header = QOIDecoder.decodeHeader(Arrays.copyOfRange(buffer, index, index + QOISpecification.HEADER_SIZE));
+        index += QOISpecification.HEADER_SIZE;
+    }
+
+    // ==================================================================================
+    // =========================== QUITE OK IMAGE HEADER ================================
+    // ==================================================================================
+
+    /**
+     * @return (int) - Width of the image
+     */
+    public int width() {
+        return header[0];
+    }
+
+    /**
+     * @return (int) - Height of the image
+     */
+    public int height() {
+        return header[1];
+    }
+
+    /**
+     * @return (byte) - Number of channels of the image
+     */
+    public byte channels() {
+        return (byte) header[2];
+    }
+
+    /**
+     * @return (byte) - Color space of the image
+     */
+    public byte colorSpace() {
+        return (byte) header[3];
+    }
+
+    // ==================================================================================
+    // ========================= GLOBAL DECODING METHODS ================================
+    // ==================================================================================
+
+    /**
+     * Decode the pixels of the image, row after row, and check the "End Of File" marker
+     *
+     * @param consumer (RowConsumer) - Receives every decoded row
+     * @throws AssertionError if the consumer is null
+     * @throws RuntimeException if the input is not a valid "Quite Ok Image" stream
+     * @throws UncheckedIOException if the input cannot be read
+     */
+    public void decode(RowConsumer consumer) {
+        assert consumer != null;
+
+        int width = width();
+        int height = height();
+        int[] row = new int[width];
+
+        int previousPixel = QOISpecification.PACKED_START_PIXEL;
+        int[] hashTable = new int[64];
+
+        int y = 0;
+        int x = 0;
+
+        while (y < height) {
+            long pixelsLeft = (long) (height - y) * width - x;
+            long bytesLeft = minimumSize(pixelsLeft);
+            require(1, bytesLeft);
+            int chunk = buffer[index] & 0xFF;
+            require(QOIDecoder.CHUNK_SIZES[chunk], bytesLeft);
+
+            int count = QOIDecoder.PIXEL_COUNTS[chunk];
+            if (count > pixelsLeft) {
+                Helper.fail("Corrupted \"Quite Ok Image\" stream : the chunks hold more pixels than the image");
+            }
+
+            previousPixel = QOIDecoder.decodeChunk(view, index, chunk, previousPixel, hashTable);
+            index += QOIDecoder.CHUNK_SIZES[chunk];
+
+            for (int i = 0; i < count; i++) {
+                row[x++] = previousPixel;
+                if (x == width) {
+                    consumer.accept(y++, row);
+                    x = 0;
+                }
+            }
+        }
+
+        require(QOISpecification.QOI_EOF.length, QOISpecification.QOI_EOF.length);
+        if (!ArrayUtils.equals(Arrays.copyOfRange(buffer, index, index + QOISpecification.QOI_EOF.length),
+                QOISpecification.QOI_EOF)) {
+            Helper.fail("Corrupted \"Quite Ok Image\" stream : missing \"End Of File\" marker");
+        }
+        index += QOISpecification.QOI_EOF.length;
+    }
+
+    /**
+     * Decode a "Quite Ok Image" file from the given stream
+     *
+     * @param input (InputStream) - Stream positioned at the start of a "Quite Ok Image" file
+     * @return (Helper.Image) - Decoded image
+     * @throws AssertionError if the input is null or is not a valid "Quite Ok Image" stream
+     * @throws UncheckedIOException if the input cannot be read
+     */
+    public static Helper.Image decodeQoiStream(InputStream input) {
+        return decodeImage(new QOIStreamDecoder(input));
+    }
+
+    /**
+     * Decode a "Quite Ok Image" file from the given channel
+     *
+     * @param input (ReadableByteChannel) - Channel positioned at the start of a "Quite Ok Image" file
+     * @return (Helper.Image) - Decoded image
+     * @throws AssertionError if the input is null or is not a valid "Quite Ok Image" stream
+     * @throws UncheckedIOException if the input cannot be read
+     */
+    public static Helper.Image decodeQoiStream(ReadableByteChannel input) {
+        return decodeImage(new QOIStreamDecoder(input));
+    }
+
+    private static Helper.Image decodeImage(QOIStreamDecoder decoder) {
+        int[][] image = new int[decoder.height()][decoder.width()];
+        decoder.decode((y, pixels) -> ArrayUtils.rgbaToArgb(pixels, 0, image[y], 0, pixels.length));
+
+        return Helper.generateImage(image, decoder.channels(), decoder.colorSpace());
+    }
+
+    // ==================================================================================
+    // ================================ INPUT METHODS ===================================
+    // ==================================================================================
+
+    /**
+     * Smallest number of bytes left in a valid stream at a chunk boundary : a chunk holds at most 62 pixels
+     * and the "End Of File" marker closes the stream
+     *
+     * @param pixels (long) - Number of pixels left to decode
+     * @return (long) - Number of bytes the stream holds at least from the next chunk on
+     */
+    private static long minimumSize(long pixels) {
+        return (pixels + 61) / 62 + QOISpecification.QOI_EOF.length;
+    }
+
+    /**
+     * Make sure that at least the given number of bytes are available in the buffer,
+     * without reading more than the given number of bytes from the index on
+     *
+     * @param count (int) - Number of bytes needed
+     * @param bound (long) - Number of bytes the input is known to hold from the index on
+     * @throws RuntimeException if the input ends before the needed bytes
+     */
+    private void require(int count, long bound) {
+        if (limit - index >= count) return;
+
+        System.arraycopy(buffer, index, buffer, 0, limit - index);
+        limit -= index;
+        index = 0;
+
+        long end = Math.min(buffer.length, Math.max(count, bound));
+        while (limit < count) {
+            int read = read(limit, (int) (end - limit));
+            if (read < 0) Helper.fail("Unexpected end of the \"Quite Ok Image\" stream");
+            limit += read;
+        }
+    }
+
+    private int read(int offset, int length) {
+        try {
+            if (stream != null) return stream.read(buffer, offset, length);
+
+            channelBuffer.limit(offset + length).position(offset);
+            return channel.read(channelBuffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
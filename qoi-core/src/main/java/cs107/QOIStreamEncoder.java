@@ -0,0 +1,206 @@
+package cs107;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * "Quite Ok Image" Encoder writing its output incrementally to a stream or a channel.
+ * The pixels are given one row at a time and the chunks go through a reusable buffer,
+ * so the full image never has to be held in memory.
+ * The "End Of File" marker is written by {@link #finish()}, which leaves the output open,
+ * or by {@link #close()}, which also closes it.
+ */
+public final class QOIStreamEncoder implements AutoCloseable {
+
+    /**
+     * Minimal size of the write buffer
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    private final OutputStream stream;
+    private final WritableByteChannel channel;
+
+    private final byte[] buffer;
+    private final ByteBuffer channelBuffer;
+    private int position;
+
+    private final int width;
+    private final int height;
+    private final int[] row;
+    private final QOIEncoderState state = new QOIEncoderState();
+    private int rows = 0;
+    private boolean finished = false;
+    private boolean closed = false;
+
+    /**
+     * Create an encoder writing to the given stream and write the header
+     *
+     * @param output     (OutputStream) - Stream where to write the "Quite Ok Image" file
+     * @param width      (int) - Width of the image
+     * @param height     (int) - Height of the image
+     * @param channels   (byte) - Number of channels of the image
+     * @param colorSpace (byte) - Color space of the image
+     * @throws AssertionError if the output is null or the header parameters are corrupted
+     */
+    public QOIStreamEncoder(OutputStream output, int width, int height, byte channels, byte colorSpace) {
+        this(output, null, width, height, channels, colorSpace);
+    }
+
+    /**
+     * Create an encoder writing to the given channel and write the header
+     *
+     * @param output     (WritableByteChannel) - Channel where to write the "Quite Ok Image" file
+     * @param width      (int) - Width of the image
+     * @param height     (int) - Height of the image
+     * @param channels   (byte) - Number of channels of the image
+     * @param colorSpace (byte) - Color space of the image
+     * @throws AssertionError if the output is null or the header parameters are corrupted
+     */
+    public QOIStreamEncoder(WritableByteChannel output, int width, int height, byte channels, byte colorSpace) {
+        this(null, output, width, height, channels, colorSpace);
+    }
+
+    private QOIStreamEncoder(OutputStream stream, WritableByteChannel channel,
+                             int width, int height, byte channels, byte colorSpace) {
+        assert stream != null || channel != null;
+
+        this.stream = stream;
+        this.channel = channel;
+        this.width = width;
+        this.height = height;
+        this.row = new int[width];
+
+        // A row, the run left pending by the previous row and the header or the EOF always fit in the buffer
+        this.buffer = new byte[Math.max(BUFFER_SIZE, QOIEncoder.maxDataSize(width) + 1 + QOISpecification.HEADER_SIZE)];
+        this.channelBuffer = channel == null ? null : ByteBuffer.wrap(buffer);
+
+        byte[] header = QOIEncoder.qoiHeader(width, height, channels, colorSpace);
+        System.arraycopy(header, 0, buffer, 0, header.length);
+        position = header.length;
+    }
+
+    // ==================================================================================
+    // ============================== GLOBAL ENCODING METHODS  ==========================
+    // ==================================================================================
+
+    /**
+     * Encode the next row of the image
+     *
+     * @param pixels (int[]) - Packed pixels (0xRRGGBBAA) of the row
+     * @throws AssertionError if the row is invalid or all the rows were already written
+     */
+    public void writeRow(int[] pixels) {
+        assert !finished;
+        assert pixels != null && pixels.length == width;
+        assert rows < height;
+
+        if (buffer.length - position < QOIEncoder.maxDataSize(width) + 1) flush();
+        position = state.encode(pixels, 0, width, buffer, position);
+        rows++;
+    }
+
+    /**
+     * Encode the next row of the image given as ARGB pixels, like the rows of {@link Helper.Image#data()}
+     *
+     * @param pixels (int[]) - ARGB pixels of the row
+     * @throws AssertionError if the row is invalid or all the rows were already written
+     */
+    public void writeArgbRow(int[] pixels) {
+        assert pixels != null && pixels.length == width;
+
+        ArrayUtils.argbToRgba(pixels, 0, row, 0, width);
+        writeRow(row);
+    }
+
+    /**
+     * Write the pending run and the "End Of File" marker, leaving the output open.
+     * Calling it again has no effect
+     *
+     * @throws AssertionError if some rows of the image were not written
+     */
+    public void finish() {
+        if (finished) return;
+        assert rows == height;
+        finished = true;
+
+        if (buffer.length - position < 1 + QOISpecification.QOI_EOF.length) flush();
+        position = state.finish(buffer, position);
+        System.arraycopy(QOISpecification.QOI_EOF, 0, buffer, position, QOISpecification.QOI_EOF.length);
+        position += QOISpecification.QOI_EOF.length;
+        flush();
+    }
+
+    /**
+     * Finish the image, see {@link #finish()}, then close the output
+     *
+     * @throws AssertionError if some rows of the image were not written
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        finish();
+        closed = true;
+
+        try {
+            if (stream != null) stream.close();
+            else channel.close();
+        } catch (IOException e) {
+            Helper.fail("An error occurred while trying to close the \"Quite Ok Image\" stream");
+        }
+    }
+
+    /**
+     * Encode the given image into the given stream. The stream is left open
+     *
+     * @param image  (Helper.Image) - Image to encode
+     * @param output (OutputStream) - Stream where to write the "Quite Ok Image" file
+     * @throws AssertionError if the image or the output is null
+     */
+    public static void encodeQoiStream(Helper.Image image, OutputStream output) {
+        assert image != null;
+
+        int[][] data = image.data();
+        var encoder = new QOIStreamEncoder(output, data[0].length, data.length, image.channels(), image.color_space());
+        for (int[] argb : data) encoder.writeArgbRow(argb);
+        encoder.finish();
+    }
+
+    /**
+     * Encode the given image into the given channel. The channel is left open
+     *
+     * @param image  (Helper.Image) - Image to encode
+     * @param output (WritableByteChannel) - Channel where to write the "Quite Ok Image" file
+     * @throws AssertionError if the image or the output is null
+     */
+    public static void encodeQoiStream(Helper.Image image, WritableByteChannel output) {
+        assert image != null;
+
+        int[][] data = image.data();
+        var encoder = new QOIStreamEncoder(output, data[0].length, data.length, image.channels(), image.color_space());
+        for (int[] argb : data) encoder.writeArgbRow(argb);
+        encoder.finish();
+    }
+
+    // ==================================================================================
+    // ================================ OUTPUT METHODS ==================================
+    // ==================================================================================
+
+    /**
+     * Write the content of the buffer to the output and empty it
+     */
+    private void flush() {
+        try {
+            if (stream != null) {
+                stream.write(buffer, 0, position);
+            } else {
+                channelBuffer.limit(position).position(0);
+                while (channelBuffer.hasRemaining()) channel.write(channelBuffer);
+            }
+        } catch (IOException e) {
+            Helper.fail("An error occurred while trying to write the \"Quite Ok Image\" stream");
+        }
+        position = 0;
+    }
+}
@@ -0,0 +1,340 @@
+package cs107;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * "Tiled Quite Ok Image" container for rasters too large to be held in a single array.
+ * The image is split in a grid of tiles of the same size (the tiles of the last column and row can be smaller),
+ * each tile being a complete, independent "Quite Ok Image" file. Tiles can thus be encoded and decoded
+ * in parallel, and read one at a time, see {@link QOITiledImage}.
+ * <p>
+ * Layout of a file :
+ * <pre>
+ * header          14 bytes, same as "Quite Ok Image" but with the magic number "qoit"
+ * tile width       4 bytes, big endian
+ * tile height      4 bytes, big endian
+ * directory        8 bytes per tile plus 8, big endian, offset of every tile from the start of the file,
+ *                  the tiles being ordered row after row, followed by the end of the last tile
+ * tiles            "Quite Ok Image" file of every tile, one after the other
+ * </pre>
+ * Offsets are 64 bits long, the file and the image may both exceed 2^31 bytes and pixels.
+ * This format is not readable by a plain "Quite Ok Image" decoder, {@link QOIEncoder} stays the default.
+ */
+public final class QOITiled {
+
+    // Hide default constructor
+    private QOITiled() {}
+
+    /**
+     * Magic Number of a "Tiled Quite Ok Image" file
+     */
+    public static final byte[] TILED_MAGIC = new byte[]{'q', 'o', 'i', 't'};
+
+    /**
+     * Size of the fixed part of the header : "Quite Ok Image" header, tile width and tile height
+     */
+    public static final int HEADER_SIZE = QOISpecification.HEADER_SIZE + 4 + 4;
+
+    /**
+     * Width and height of the tiles when none is given
+     */
+    public static final int DEFAULT_TILE_SIZE = 512;
+
+    /**
+     * Source of the pixels of a raster, read one tile at a time
+     */
+    @FunctionalInterface
+    public interface TileSource {
+
+        /**
+         * Read a rectangle of the raster
+         *
+         * @param x      (int) - Column of the left side of the rectangle
+         * @param y      (int) - Row of the top side of the rectangle
+         * @param width  (int) - Width of the rectangle
+         * @param height (int) - Height of the rectangle
+         * @param pixels (int[]) - Where to store the packed pixels (0xRRGGBBAA) of the rectangle, row after row
+         */
+        void read(int x, int y, int width, int height, int[] pixels);
+    }
+
+    // ==================================================================================
+    // ============================== ENCODING METHODS ==================================
+    // ==================================================================================
+
+    /**
+     * Encode the given image as a "Tiled Quite Ok Image" with the default tile size, using the common pool
+     *
+     * @param image (Helper.Image) - Image to encode
+     * @return (byte[]) - Binary representation of the file
+     * @throws AssertionError if the image is null
+     */
+    public static byte[] qoiFile(Helper.Image image) {
+        assert image != null;
+
+        int[][] data = image.data();
+        PixelBuffer pixels = new PixelBuffer(ArrayUtils.imageToPixels(data), data[0].length, data.length);
+
+        return qoiFile(pixels, image.channels(), image.color_space(),
+                DEFAULT_TILE_SIZE, DEFAULT_TILE_SIZE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Encode the given packed pixels as a "Tiled Quite Ok Image", one task per tile
+     *
+     * @param pixels     (PixelBuffer) - Packed pixels to encode
+     * @param channels   (byte) - Number of channels of the image
+     * @param colorSpace (byte) - Color space of the image
+     * @param tileWidth  (int) - Width of every tile
+     * @param tileHeight (int) - Height of every tile
+     * @param pool       (ForkJoinPool) - Pool running the encoding of the tiles
+     * @return (byte[]) - Binary representation of the file
+     * @throws AssertionError if one of the parameters is invalid
+     */
+    public static byte[] qoiFile(PixelBuffer pixels, byte channels, byte colorSpace,
+                                 int tileWidth, int tileHeight, ForkJoinPool pool) {
+        assert pixels != null;
+
+        Grid grid = new Grid(pixels.width(), pixels.height(), tileWidth, tileHeight);
+        byte[][] tiles = encodeTiles(grid, 0, grid.rows, channels, colorSpace, source(pixels), pool);
+
+        int[] sizes = new int[tiles.length];
+        long size = grid.dataStart();
+        for (int tile = 0; tile < tiles.length; tile++) {
+            sizes[tile] = tiles[tile].length;
+            size += sizes[tile];
+        }
+        assert size <= Integer.MAX_VALUE;
+
+        byte[] output = new byte[(int) size];
+        ByteBuffer buffer = ByteBuffer.wrap(output);
+        buffer.position((int) grid.dataStart());
+        for (byte[] tile : tiles) buffer.put(tile);
+        writeHeader(grid, channels, colorSpace, sizes, buffer.rewind());
+
+        return output;
+    }
+
+    /**
+     * Encode a raster of any size as a "Tiled Quite Ok Image" file, a row of tiles at a time :
+     * the tiles of a row are read and encoded in parallel, then written before the next row is read.
+     * Only a row of tiles is held in memory at once
+     *
+     * @param path       (Path) - Path to the file to write
+     * @param width      (int) - Width of the raster
+     * @param height     (int) - Height of the raster
+     * @param channels   (byte) - Number of channels of the image
+     * @param colorSpace (byte) - Color space of the image
+     * @param tileWidth  (int) - Width of every tile
+     * @param tileHeight (int) - Height of every tile
+     * @param source     (TileSource) - Source of the pixels, called concurrently by the pool
+     * @param pool       (ForkJoinPool) - Pool running the reading and encoding of the tiles
+     * @throws AssertionError if one of the parameters is invalid
+     * @throws RuntimeException if the file cannot be written
+     */
+    public static void write(Path path, int width, int height, byte channels, byte colorSpace,
+                             int tileWidth, int tileHeight, TileSource source, ForkJoinPool pool) {
+        assert path != null && source != null;
+
+        Grid grid = new Grid(width, height, tileWidth, tileHeight);
+        int[] sizes = new int[grid.count()];
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long position = grid.dataStart();
+            channel.position(position);
+            for (int row = 0; row < grid.rows; row++) {
+                byte[][] encoded = encodeTiles(grid, row, row + 1, channels, colorSpace, source, pool);
+                ByteBuffer[] buffers = new ByteBuffer[encoded.length];
+                for (int column = 0; column < encoded.length; column++) {
+                    buffers[column] = ByteBuffer.wrap(encoded[column]);
+                    sizes[row * grid.columns + column] = encoded[column].length;
+                    position += encoded[column].length;
+                }
+                writeFully(channel, buffers);
+            }
+            assert channel.position() == position;
+
+            ByteBuffer header = ByteBuffer.allocate((int) grid.dataStart());
+            writeHeader(grid, channels, colorSpace, sizes, header);
+            channel.position(0);
+            writeFully(channel, header.rewind());
+        } catch (IOException e) {
+            Helper.fail("An error occurred while trying to write : \"%s\"%n", path);
+        }
+    }
+
+    // ==================================================================================
+    // ============================== DECODING METHODS ==================================
+    // ==================================================================================
+
+    /**
+     * Check if the given content starts like a "Tiled Quite Ok Image" file
+     *
+     * @param content (byte[]) - Content of a file
+     * @return (boolean) - true if the content starts with the tiled magic number
+     */
+    public static boolean isTiled(byte[] content) {
+        assert content != null;
+        return content.length >= HEADER_SIZE
+                && ArrayUtils.equals(ArrayUtils.extract(content, 0, TILED_MAGIC.length), TILED_MAGIC);
+    }
+
+    /**
+     * Decode a whole "Tiled Quite Ok Image" file using the common pool.
+     * Plain "Quite Ok Image" files are decoded with {@link QOIDecoder}
+     *
+     * @param content (byte[]) - Content of the file to decode
+     * @return (Helper.Image) - Decoded image
+     * @throws AssertionError if content is null
+     * @throws RuntimeException if content is not a valid file
+     */
+    public static Helper.Image decodeQoiFile(byte[] content) {
+        assert content != null;
+        if (!isTiled(content)) return QOIDecoder.decodeQoiFile(content);
+
+        try (QOITiledImage image = QOITiledImage.of(ByteBuffer.wrap(content), 0)) {
+            QOIHeader.arrayPixelCount(image.width(), image.height());
+            PixelBuffer pixels = image.region(0, 0, image.width(), image.height(), ForkJoinPool.commonPool());
+            int[][] data = ArrayUtils.pixelsToImage(pixels.data(), pixels.height(), pixels.width());
+
+            return Helper.generateImage(data, image.channels(), image.colorSpace());
+        }
+    }
+
+    /**
+     * Decode the tiles of a "Tiled Quite Ok Image" file in parallel into packed pixels (0xRRGGBBAA).
+     * The image must have less than 2^31 pixels, larger ones are read through {@link QOITiledImage}
+     *
+     * @param content (byte[]) - Content of the file to decode
+     * @param pool    (ForkJoinPool) - Pool running the decoding of the tiles
+     * @return (PixelBuffer) - Decoded pixels
+     * @throws AssertionError if content is null or is not tiled
+     * @throws RuntimeException if content is not a valid file
+     */
+    public static PixelBuffer decodePixels(byte[] content, ForkJoinPool pool) {
+        assert content != null && isTiled(content);
+
+        try (QOITiledImage image = QOITiledImage.of(ByteBuffer.wrap(content), 0)) {
+            QOIHeader.arrayPixelCount(image.width(), image.height());
+            return image.region(0, 0, image.width(), image.height(), pool);
+        }
+    }
+
+    // ==================================================================================
+    // =============================== HELPER METHODS ===================================
+    // ==================================================================================
+
+    /**
+     * Geometry of the grid of tiles of an image
+     */
+    static final class Grid {
+
+        final int width;
+        final int height;
+        final int tileWidth;
+        final int tileHeight;
+        final int columns;
+        final int rows;
+
+        Grid(int width, int height, int tileWidth, int tileHeight) {
+            assert width > 0 && height > 0 && tileWidth > 0 && tileHeight > 0;
+            assert (long) tileWidth * tileHeight <= Integer.MAX_VALUE;
+
+            this.width = width;
+            this.height = height;
+            this.tileWidth = tileWidth;
+            this.tileHeight = tileHeight;
+            this.columns = (width - 1) / tileWidth + 1;
+            this.rows = (height - 1) / tileHeight + 1;
+            assert (long) columns * rows < Integer.MAX_VALUE / 8;
+        }
+
+        int count() {
+            return columns * rows;
+        }
+
+        int x(int tile) {
+            return tile % columns * tileWidth;
+        }
+
+        int y(int tile) {
+            return tile / columns * tileHeight;
+        }
+
+        int width(int tile) {
+            return Math.min(tileWidth, width - x(tile));
+        }
+
+        int height(int tile) {
+            return Math.min(tileHeight, height - y(tile));
+        }
+
+        long dataStart() {
+            return HEADER_SIZE + 8L * (count() + 1);
+        }
+    }
+
+    private static byte[][] encodeTiles(Grid grid, int fromRow, int toRow, byte channels, byte colorSpace,
+                                        TileSource source, ForkJoinPool pool) {
+        assert pool != null;
+
+        int first = fromRow * grid.columns;
+        byte[][] tiles = new byte[(toRow - fromRow) * grid.columns][];
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(tiles.length);
+        for (int i = 0; i < tiles.length; i++) {
+            int index = i;
+            tasks.add(ForkJoinTask.adapt(() -> {
+                int tile = first + index;
+                int width = grid.width(tile);
+                int height = grid.height(tile);
+                int[] pixels = new int[width * height];
+                source.read(grid.x(tile), grid.y(tile), width, height, pixels);
+
+                QOIEncoderContext context = QOIEncoderContext.forCurrentThread();
+                context.encode(pixels, width, height, channels, colorSpace);
+                tiles[index] = context.toByteArray();
+            }));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+
+        return tiles;
+    }
+
+    private static TileSource source(PixelBuffer pixels) {
+        return (x, y, width, height, tile) -> {
+            for (int row = 0; row < height; row++) {
+                System.arraycopy(pixels.data(), (y + row) * pixels.width() + x, tile, row * width, width);
+            }
+        };
+    }
+
+    private static void writeHeader(Grid grid, byte channels, byte colorSpace, int[] sizes, ByteBuffer output) {
+        byte[] header = new byte[QOISpecification.HEADER_SIZE];
+        QOIEncoder.writeHeader(grid.width, grid.height, channels, colorSpace, header, 0);
+        System.arraycopy(TILED_MAGIC, 0, header, 0, TILED_MAGIC.length);
+
+        output.put(header).putInt(grid.tileWidth).putInt(grid.tileHeight);
+        long offset = grid.dataStart();
+        for (int size : sizes) {
+            output.putLong(offset);
+            offset += size;
+        }
+        output.putLong(offset);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer... buffers) throws IOException {
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) remaining += buffer.remaining();
+        while (remaining > 0) remaining -= channel.write(buffers);
+    }
+}
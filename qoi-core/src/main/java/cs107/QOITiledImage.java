@@ -0,0 +1,378 @@
+package cs107;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * "Tiled Quite Ok Image" opened for reading, see {@link QOITiled} for the layout.
+ * Only the header and the tile directory are read when opening, a tile is read and decoded
+ * the first time one of its pixels is needed, then kept in a least recently used cache
+ * holding a bounded number of tiles.
+ * <p>
+ * An image can be read by several threads at once. Two threads missing the same tile at the same time
+ * may both decode it, the pixels being the same either way.
+ */
+public final class QOITiledImage implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final ByteBuffer content;
+    private final QOITiled.Grid grid;
+    private final byte channels;
+    private final byte colorSpace;
+    private final long[] offsets;
+    private final Map<Integer, PixelBuffer> cache;
+
+    private QOITiledImage(FileChannel channel, ByteBuffer content, ByteBuffer header, int cacheTiles) {
+        assert cacheTiles >= 0;
+
+        this.channel = channel;
+        this.content = content;
+        this.grid = readGrid(header);
+        this.channels = header.get(header.position() + 12);
+        this.colorSpace = header.get(header.position() + 13);
+
+        if (header.remaining() < QOITiled.HEADER_SIZE + 8L * (grid.count() + 1)) {
+            Helper.fail("Corrupted \"Tiled Quite Ok Image\" file : incomplete tile directory");
+        }
+        header.position(header.position() + QOITiled.HEADER_SIZE);
+        this.offsets = new long[grid.count() + 1];
+        for (int tile = 0; tile <= grid.count(); tile++) offsets[tile] = header.getLong();
+
+        // Every tile holds at least a header and an end marker, and lies within the file
+        long end = content == null ? Long.MAX_VALUE : content.limit();
+        long minimum = QOISpecification.HEADER_SIZE + QOISpecification.QOI_EOF.length;
+        if (offsets[0] != grid.dataStart() || offsets[grid.count()] > end) {
+            Helper.fail("Corrupted \"Tiled Quite Ok Image\" file : tile directory out of the file");
+        }
+        for (int tile = 0; tile < grid.count(); tile++) {
+            long length = offsets[tile + 1] - offsets[tile];
+            if (length < minimum || length > Integer.MAX_VALUE) {
+                Helper.fail("Corrupted \"Tiled Quite Ok Image\" file : invalid size %d of the tile %d", length, tile);
+            }
+        }
+
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, PixelBuffer> eldest) {
+                return size() > cacheTiles;
+            }
+        };
+    }
+
+    /**
+     * Open a "Tiled Quite Ok Image" file, reading only its header and tile directory.
+     * The file stays open until the image is closed
+     *
+     * @param path       (Path) - Path to the file
+     * @param cacheTiles (int) - Maximum number of decoded tiles kept in memory
+     * @return (QOITiledImage) - The opened image
+     * @throws AssertionError if path is null
+     * @throws RuntimeException if the file cannot be read or is not a valid "Tiled Quite Ok Image" file
+     */
+    public static QOITiledImage open(Path path, int cacheTiles) {
+        assert path != null;
+
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                int tiles = readGrid(read(channel, 0, QOITiled.HEADER_SIZE)).count();
+
+                ByteBuffer header = read(channel, 0, QOITiled.HEADER_SIZE + 8 * (tiles + 1));
+                return new QOITiledImage(channel, null, header, cacheTiles);
+            } catch (Throwable e) {
+                channel.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            return Helper.fail("An error occurred while trying to read : \"%s\"%n", path);
+        }
+    }
+
+    /**
+     * Open a "Tiled Quite Ok Image" file held between the position and the limit of a byte buffer,
+     * heap, direct or mapped. The tiles are decoded in place from the buffer
+     *
+     * @param content    (ByteBuffer) - Content of the file
+     * @param cacheTiles (int) - Maximum number of decoded tiles kept in memory
+     * @return (QOITiledImage) - The opened image
+     * @throws AssertionError if content is null
+     * @throws RuntimeException if the content is not a valid "Tiled Quite Ok Image" file
+     */
+    public static QOITiledImage of(ByteBuffer content, int cacheTiles) {
+        assert content != null;
+
+        ByteBuffer view = content.slice().order(ByteOrder.BIG_ENDIAN);
+        return new QOITiledImage(null, view, view.duplicate(), cacheTiles);
+    }
+
+    // ==================================================================================
+    // =============================== READING METHODS ==================================
+    // ==================================================================================
+
+    /**
+     * Pixels of a tile, read and decoded on first use
+     *
+     * @param column (int) - Column of the tile in the grid
+     * @param row    (int) - Row of the tile in the grid
+     * @return (PixelBuffer) - Packed pixels (0xRRGGBBAA) of the tile, shared with the cache : must not be modified
+     * @throws AssertionError if the tile is outside of the grid or is corrupted
+     * @throws RuntimeException if the file cannot be read
+     */
+    public PixelBuffer tile(int column, int row) {
+        assert column >= 0 && column < grid.columns && row >= 0 && row < grid.rows;
+        return tile(row * grid.columns + column);
+    }
+
+    /**
+     * Read a single pixel
+     *
+     * @param x (int) - Column of the pixel
+     * @param y (int) - Row of the pixel
+     * @return (int) - Packed pixel (0xRRGGBBAA)
+     * @throws AssertionError if the pixel is outside of the image
+     */
+    public int pixel(int x, int y) {
+        assert x >= 0 && x < grid.width && y >= 0 && y < grid.height;
+
+        PixelBuffer tile = tile(x / grid.tileWidth, y / grid.tileHeight);
+        return tile.data()[y % grid.tileHeight * tile.width() + x % grid.tileWidth];
+    }
+
+    /**
+     * Read a rectangle of the image using the common pool, see {@link #region(int, int, int, int, ForkJoinPool)}
+     *
+     * @param x      (int) - Column of the left side of the rectangle
+     * @param y      (int) - Row of the top side of the rectangle
+     * @param width  (int) - Width of the rectangle
+     * @param height (int) - Height of the rectangle
+     * @return (PixelBuffer) - Packed pixels (0xRRGGBBAA) of the rectangle
+     * @throws AssertionError if the rectangle is not inside the image
+     */
+    public PixelBuffer region(int x, int y, int width, int height) {
+        return region(x, y, width, height, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Read a rectangle of the image, the tiles it overlaps being read and copied in parallel
+     *
+     * @param x      (int) - Column of the left side of the rectangle
+     * @param y      (int) - Row of the top side of the rectangle
+     * @param width  (int) - Width of the rectangle
+     * @param height (int) - Height of the rectangle
+     * @param pool   (ForkJoinPool) - Pool running the reading of the tiles
+     * @return (PixelBuffer) - Packed pixels (0xRRGGBBAA) of the rectangle
+     * @throws AssertionError if the rectangle is not inside the image or has 2^31 pixels or more
+     */
+    public PixelBuffer region(int x, int y, int width, int height, ForkJoinPool pool) {
+        assert pool != null;
+        assert width > 0 && height > 0 && x >= 0 && y >= 0;
+        assert x + width <= grid.width && y + height <= grid.height;
+        assert (long) width * height <= Integer.MAX_VALUE;
+
+        PixelBuffer pixels = new PixelBuffer(width, height);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int row = y / grid.tileHeight; row <= (y + height - 1) / grid.tileHeight; row++) {
+            for (int column = x / grid.tileWidth; column <= (x + width - 1) / grid.tileWidth; column++) {
+                int tile = row * grid.columns + column;
+                tasks.add(ForkJoinTask.adapt(() -> copy(tile, x, y, pixels)));
+            }
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+
+        return pixels;
+    }
+
+    /**
+     * Drop every decoded tile from the cache
+     */
+    public void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Close the file, if the image was opened from one, and drop the cache
+     */
+    @Override
+    public void close() {
+        clearCache();
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Helper.fail("An error occurred while trying to close the image");
+        }
+    }
+
+    private PixelBuffer tile(int tile) {
+        synchronized (cache) {
+            PixelBuffer cached = cache.get(tile);
+            if (cached != null) return cached;
+        }
+
+        // Decode outside the lock, other tiles may be read at the same time
+        PixelBuffer pixels = decode(tile);
+        synchronized (cache) {
+            cache.put(tile, pixels);
+        }
+        return pixels;
+    }
+
+    private PixelBuffer decode(int tile) {
+        long from = offsets[tile];
+        long length = offsets[tile + 1] - from;
+        assert from >= 0 && length > 0 && length <= Integer.MAX_VALUE;
+
+        ByteBuffer data;
+        if (channel != null) {
+            try {
+                data = read(channel, from, (int) length);
+            } catch (IOException e) {
+                return Helper.fail("An error occurred while trying to read the tile %d%n", tile);
+            }
+        } else {
+            assert offsets[tile + 1] <= content.limit();
+            data = content.slice((int) from, (int) length);
+        }
+
+        PixelBuffer pixels = QOIDecoder.decodePixels(data);
+        if (pixels.width() != grid.width(tile) || pixels.height() != grid.height(tile)) {
+            Helper.fail("Corrupted \"Tiled Quite Ok Image\" file : the tile %d is %d x %d pixels instead of %d x %d",
+                    tile, pixels.width(), pixels.height(), grid.width(tile), grid.height(tile));
+        }
+
+        return pixels;
+    }
+
+    /**
+     * Read the grid of tiles from the fixed part of a header, whether assertions are enabled or not
+     *
+     * @param header (ByteBuffer) - Big endian buffer holding the header from its position, left unchanged
+     * @return (QOITiled.Grid) - Grid of tiles of the image
+     * @throws RuntimeException if the header is incomplete or corrupted
+     */
+    private static QOITiled.Grid readGrid(ByteBuffer header) {
+        int offset = header.position();
+        if (header.remaining() < QOITiled.HEADER_SIZE) {
+            Helper.fail("Corrupted \"Tiled Quite Ok Image\" header : %d bytes instead of %d",
+                    header.remaining(), QOITiled.HEADER_SIZE);
+        }
+        if (header.getInt(offset) != ArrayUtils.toInt(QOITiled.TILED_MAGIC)) {
+            Helper.fail("Corrupted \"Tiled Quite Ok Image\" header : invalid magic number");
+        }
+
+        // Same checks as a "Quite Ok Image" header for the size, channels and color space
+        QOIHeader image = new QOIHeader(header.getInt(offset + 4), header.getInt(offset + 8),
+                header.get(offset + 12), header.get(offset + 13));
+        int tileWidth = header.getInt(offset + 14);
+        int tileHeight = header.getInt(offset + 18);
+        if (tileWidth <= 0 || tileHeight <= 0) {
+            Helper.fail("Corrupted \"Tiled Quite Ok Image\" header : invalid tile size %d x %d", tileWidth, tileHeight);
+        }
+        QOIHeader.arrayPixelCount(tileWidth, tileHeight);
+
+        long columns = (image.width() - 1) / tileWidth + 1;
+        long rows = (image.height() - 1) / tileHeight + 1;
+        if (columns * rows >= Integer.MAX_VALUE / 8) {
+            Helper.fail("Corrupted \"Tiled Quite Ok Image\" header : too many tiles %d x %d", columns, rows);
+        }
+
+        return new QOITiled.Grid(image.width(), image.height(), tileWidth, tileHeight);
+    }
+
+    private void copy(int tile, int x, int y, PixelBuffer region) {
+        PixelBuffer pixels = tile(tile);
+        int tileX = grid.x(tile);
+        int tileY = grid.y(tile);
+
+        // Intersection of the tile and the region, in image coordinates
+        int left = Math.max(x, tileX);
+        int right = Math.min(x + region.width(), tileX + pixels.width());
+        int top = Math.max(y, tileY);
+        int bottom = Math.min(y + region.height(), tileY + pixels.height());
+
+        for (int row = top; row < bottom; row++) {
+            System.arraycopy(pixels.data(), (row - tileY) * pixels.width() + left - tileX,
+                    region.data(), (row - y) * region.width() + left - x, right - left);
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("The file ends too early");
+        }
+        return buffer.flip();
+    }
+
+    // ==================================================================================
+    // ================================== ACCESSORS =====================================
+    // ==================================================================================
+
+    /**
+     * @return (int) - Width of the image
+     */
+    public int width() {
+        return grid.width;
+    }
+
+    /**
+     * @return (int) - Height of the image
+     */
+    public int height() {
+        return grid.height;
+    }
+
+    /**
+     * @return (byte) - Number of channels of the image
+     */
+    public byte channels() {
+        return channels;
+    }
+
+    /**
+     * @return (byte) - Color space of the image
+     */
+    public byte colorSpace() {
+        return colorSpace;
+    }
+
+    /**
+     * @return (int) - Width of the tiles, except maybe the ones of the last column
+     */
+    public int tileWidth() {
+        return grid.tileWidth;
+    }
+
+    /**
+     * @return (int) - Height of the tiles, except maybe the ones of the last row
+     */
+    public int tileHeight() {
+        return grid.tileHeight;
+    }
+
+    /**
+     * @return (int) - Number of columns of tiles
+     */
+    public int columns() {
+        return grid.columns;
+    }
+
+    /**
+     * @return (int) - Number of rows of tiles
+     */
+    public int rows() {
+        return grid.rows;
+    }
+}
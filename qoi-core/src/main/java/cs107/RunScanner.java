@@ -0,0 +1,25 @@
+package cs107;
+
+/**
+ * Finds where a run of identical packed pixels ends. Used by the encoder to measure
+ * a whole QOI_OP_RUN at once instead of comparing the pixels one by one in its main loop.
+ * See {@link RunScanners} for the available implementations.
+ */
+public interface RunScanner {
+
+    /**
+     * Find the first pixel of the range that differs from the given one
+     *
+     * @param pixels (int[]) - Packed pixels
+     * @param from   (int) - Index of the first pixel to compare
+     * @param to     (int) - Index right after the last pixel to compare
+     * @param pixel  (int) - Pixel of the run
+     * @return (int) - Index of the first different pixel, or to if the whole range is equal to the pixel
+     */
+    int scan(int[] pixels, int from, int to, int pixel);
+
+    /**
+     * @return (String) - Name of the implementation, as accepted by the "qoi.runScanner" property
+     */
+    String name();
+}
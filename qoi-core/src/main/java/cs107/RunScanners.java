@@ -0,0 +1,71 @@
+package cs107;
+
+import java.util.Optional;
+
+/**
+ * Selection of the run scanner used by the encoder, done once at startup.
+ * <p>
+ * The system property "qoi.runScanner" chooses the implementation :
+ * <ul>
+ * <li>"auto" (default) : the vector one if the module "jdk.incubator.vector" is available,
+ * i.e. the JVM was started with {@code --add-modules jdk.incubator.vector}, the scalar one otherwise ;</li>
+ * <li>"vector" : the vector one, failing if the module is not available ;</li>
+ * <li>"scalar" : the scalar one.</li>
+ * </ul>
+ */
+public final class RunScanners {
+
+    // Hide default constructor
+    private RunScanners() {}
+
+    /**
+     * Name of the incubating module holding the Vector API
+     */
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static final RunScanner VECTOR = loadVector();
+
+    private static final RunScanner SELECTED = select(System.getProperty("qoi.runScanner", "auto"));
+
+    /**
+     * @return (RunScanner) - The scanner comparing the pixels one by one
+     */
+    public static RunScanner scalar() {
+        return ScalarRunScanner.INSTANCE;
+    }
+
+    /**
+     * @return (Optional of RunScanner) - The scanner using the Vector API, empty if the module is not available
+     */
+    public static Optional<RunScanner> vector() {
+        return Optional.ofNullable(VECTOR);
+    }
+
+    /**
+     * @return (RunScanner) - The scanner selected at startup, used by the encoder
+     */
+    public static RunScanner selected() {
+        return SELECTED;
+    }
+
+    private static RunScanner select(String name) {
+        return switch (name) {
+            case "auto" -> VECTOR != null ? VECTOR : scalar();
+            case "vector" -> VECTOR != null ? VECTOR
+                    : Helper.fail("The vector run scanner needs --add-modules %s", VECTOR_MODULE);
+            case "scalar" -> scalar();
+            default -> Helper.fail("Unknown run scanner : %s", name);
+        };
+    }
+
+    private static RunScanner loadVector() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) return null;
+        try {
+            // Loaded by name so that the Vector API classes are never resolved without the module
+            Class<?> scanner = Class.forName("cs107.VectorRunScanner");
+            return (RunScanner) scanner.getDeclaredField("INSTANCE").get(null);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package cs107;
+
+/**
+ * Run scanner comparing the pixels one by one, available on every platform
+ */
+final class ScalarRunScanner implements RunScanner {
+
+    static final ScalarRunScanner INSTANCE = new ScalarRunScanner();
+
+    // Hide default constructor
+    private ScalarRunScanner() {}
+
+    @Override
+    public int scan(int[] pixels, int from, int to, int pixel) {
+        assert pixels != null && from >= 0 && from <= to && to <= pixels.length;
+
+        while (from < to && pixels[from] == pixel) from++;
+        return from;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
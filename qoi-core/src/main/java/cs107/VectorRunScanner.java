@@ -0,0 +1,49 @@
+package cs107;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Run scanner comparing a whole vector of pixels at a time with the incubating Vector API.
+ * Only loaded when the module "jdk.incubator.vector" is available, see {@link RunScanners}
+ */
+final class VectorRunScanner implements RunScanner {
+
+    static final VectorRunScanner INSTANCE = new VectorRunScanner();
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    /**
+     * Pixels compared one by one before loading vectors, most runs are short
+     */
+    private static final int SCALAR_PREFIX = 4;
+
+    // Hide default constructor
+    private VectorRunScanner() {}
+
+    @Override
+    public int scan(int[] pixels, int from, int to, int pixel) {
+        assert pixels != null && from >= 0 && from <= to && to <= pixels.length;
+
+        int index = from;
+        for (int end = Math.min(to, from + SCALAR_PREFIX); index < end; index++) {
+            if (pixels[index] != pixel) return index;
+        }
+
+        int bound = index + SPECIES.loopBound(to - index);
+        for (; index < bound; index += SPECIES.length()) {
+            VectorMask<Integer> different = IntVector.fromArray(SPECIES, pixels, index).compare(VectorOperators.NE, pixel);
+            if (different.anyTrue()) return index + different.firstTrue();
+        }
+
+        while (index < to && pixels[index] == pixel) index++;
+        return index;
+    }
+
+    @Override
+    public String name() {
+        return "vector";
+    }
+}
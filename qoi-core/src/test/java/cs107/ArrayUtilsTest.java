@@ -0,0 +1,60 @@
+package cs107;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * The 64 bits hashes must only depend on the content and the shape of the arrays, and tell apart
+ * the small changes the image cache relies on
+ */
+final class ArrayUtilsTest {
+
+    @Test
+    void equalContentsHaveEqualHashes() {
+        for (String name : References.names()) {
+            byte[] content = References.read(name);
+            int[][] image = QOIDecoder.decodeQoiFile(content).data();
+
+            assertEquals(ArrayUtils.hash64(content), ArrayUtils.hash64(content.clone()), name);
+            assertEquals(ArrayUtils.hash64(content),
+                    ArrayUtils.hash64(ByteBuffer.allocateDirect(content.length).put(content).flip()), name);
+            assertEquals(ArrayUtils.hash64(image), ArrayUtils.hash64(QOIDecoder.decodeQoiFile(content).data()), name);
+        }
+    }
+
+    @Test
+    void everyByteChangesTheHash() {
+        byte[] content = References.read("qoi_encode_test");
+        Set<Long> hashes = new HashSet<>();
+        hashes.add(ArrayUtils.hash64(content));
+
+        for (int index = 0; index < content.length; index++) {
+            byte[] changed = content.clone();
+            changed[index] ^= 1;
+            hashes.add(ArrayUtils.hash64(changed));
+        }
+        assertEquals(content.length + 1, hashes.size());
+    }
+
+    @Test
+    void lengthAndShapeChangeTheHash() {
+        assertNotEquals(ArrayUtils.hash64(new byte[0]), ArrayUtils.hash64(new byte[1]));
+        assertNotEquals(ArrayUtils.hash64(new byte[8]), ArrayUtils.hash64(new byte[9]));
+        assertNotEquals(ArrayUtils.hash64(new int[][]{{1, 2}, {3}}), ArrayUtils.hash64(new int[][]{{1}, {2, 3}}));
+        assertNotEquals(ArrayUtils.hash64(new int[][]{}), ArrayUtils.hash64(new int[][]{{}}));
+
+        int[][] pixels = new int[3][17];
+        long hash = ArrayUtils.hash64(pixels);
+        for (int x = 0; x < 17; x++) {
+            pixels[1][x] = 1;
+            assertNotEquals(hash, ArrayUtils.hash64(pixels), "column " + x);
+            pixels[1][x] = 0;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package cs107;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * {@link Helper.Image} compares and hashes its pixels as they are, never through a value cached earlier,
+ * along with its channels and color space
+ */
+final class HelperTest {
+
+    private static int[][] pixels() {
+        return new int[][]{{0xFF102030, 0xFF405060}, {0x80000000, 0x00FFFFFF}};
+    }
+
+    @Test
+    void equalImagesHaveEqualHashes() {
+        Helper.Image image = Helper.generateImage(pixels(), QOISpecification.RGBA, QOISpecification.sRGB);
+        Helper.Image copy = Helper.generateImage(pixels(), QOISpecification.RGBA, QOISpecification.sRGB);
+
+        assertEquals(image, copy);
+        assertEquals(image.hashCode(), copy.hashCode());
+        assertNotEquals(image, Helper.generateImage(pixels(), QOISpecification.RGB, QOISpecification.sRGB));
+        assertNotEquals(image, Helper.generateImage(pixels(), QOISpecification.RGBA, QOISpecification.ALL));
+    }
+
+    @Test
+    void modifiedPixelsAreSeen() {
+        Helper.Image image = Helper.generateImage(pixels(), QOISpecification.RGBA, QOISpecification.sRGB);
+        Helper.Image copy = Helper.generateImage(pixels(), QOISpecification.RGBA, QOISpecification.sRGB);
+        int hash = image.hashCode();
+
+        image.data()[1][1] = 0xFFFFFFFF;
+        assertNotEquals(image, copy);
+        assertNotEquals(hash, image.hashCode());
+
+        copy.data()[1][1] = 0xFFFFFFFF;
+        assertEquals(image, copy);
+        assertEquals(image.hashCode(), copy.hashCode());
+    }
+
+    @Test
+    void shapeIsPartOfTheHash() {
+        Helper.Image rows = Helper.generateImage(new int[][]{{1, 2}, {3, 4}}, QOISpecification.RGBA, QOISpecification.sRGB);
+        Helper.Image column = Helper.generateImage(new int[][]{{1}, {2}, {3}, {4}}, QOISpecification.RGBA, QOISpecification.sRGB);
+
+        assertNotEquals(rows, column);
+        assertNotEquals(rows.hashCode(), column.hashCode());
+    }
+
+    @Test
+    void channelsAndColorSpaceArePartOfTheHash() {
+        Helper.Image image = Helper.generateImage(pixels(), QOISpecification.RGBA, QOISpecification.sRGB);
+        Helper.Image rgb = Helper.generateImage(pixels(), QOISpecification.RGB, QOISpecification.sRGB);
+        Helper.Image linear = Helper.generateImage(pixels(), QOISpecification.RGBA, QOISpecification.ALL);
+
+        assertEquals(image.hash64(), Helper.generateImage(pixels(), QOISpecification.RGBA, QOISpecification.sRGB).hash64());
+        assertNotEquals(image.hash64(), rgb.hash64());
+        assertNotEquals(image.hash64(), linear.hash64());
+        assertNotEquals(rgb.hash64(), linear.hash64());
+        assertNotEquals(image.hashCode(), rgb.hashCode());
+        assertNotEquals(image.hashCode(), linear.hashCode());
+    }
+}
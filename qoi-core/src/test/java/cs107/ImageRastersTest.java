@@ -0,0 +1,43 @@
+package cs107;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * The rasters must be read into the same values getRGB returns, whether into one array or into rows
+ */
+final class ImageRastersTest {
+
+    private static final int WIDTH = 5;
+    private static final int HEIGHT = 3;
+
+    private static BufferedImage image(int type) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, type);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                image.setRGB(x, y, (x * 50 + y) << 24 | x * 40 << 16 | y * 90 << 8 | (x + y) * 20);
+            }
+        }
+        return image;
+    }
+
+    @Test
+    void rowsHoldTheValuesOfGetRGB() {
+        int[] types = {BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_ARGB,
+                BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_BYTE_INDEXED, BufferedImage.TYPE_USHORT_GRAY};
+
+        for (int type : types) {
+            BufferedImage image = image(type);
+            int[] expected = image.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH);
+            int[][] rows = ImageRasters.toArgbRows(image);
+
+            assertArrayEquals(expected, ImageRasters.toArgb(image), "type " + type);
+            for (int y = 0; y < HEIGHT; y++) {
+                assertArrayEquals(image.getRGB(0, y, WIDTH, 1, null, 0, WIDTH), rows[y], "type " + type);
+            }
+        }
+    }
+}
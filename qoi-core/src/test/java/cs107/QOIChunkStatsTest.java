@@ -0,0 +1,109 @@
+package cs107;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The chunks counted while encoding or decoding must be the ones read back from the file, and only the contexts
+ * given a listener report them
+ */
+final class QOIChunkStatsTest {
+
+    private static QOIChunkStats withoutTime(QOIChunkStats stats) {
+        return new QOIChunkStats(stats.images(), stats.pixels(), stats.bytes(), stats.runs(), stats.runPixels(),
+                stats.indexes(), stats.diffs(), stats.lumas(), stats.rgbs(), stats.rgbas(), stats.collisions(), 0);
+    }
+
+    @Test
+    void decodingCountsTheChunksOfTheFile() {
+        List<QOIChunkStats> reported = new ArrayList<>();
+        QOIDecoderContext context = new QOIDecoderContext();
+        context.setListener(reported::add);
+
+        for (String name : References.names()) {
+            byte[] content = References.read(name);
+            QOIChunkStats expected = QOIChunkStats.of(content);
+
+            reported.clear();
+            context.decode(content);
+            context.decode(ByteBuffer.wrap(content));
+
+            assertEquals(2, reported.size(), name);
+            for (QOIChunkStats stats : reported) {
+                assertTrue(stats.nanos() > 0, name);
+                assertEquals(expected, withoutTime(stats), name);
+            }
+            assertEquals(expected.pixels(), expected.runPixels() + expected.chunks() - expected.runs(), name);
+            assertEquals(expected.bytes(), QOISpecification.HEADER_SIZE + QOISpecification.QOI_EOF.length
+                    + expected.runBytes() + expected.indexBytes() + expected.diffBytes() + expected.lumaBytes()
+                    + expected.rgbBytes() + expected.rgbaBytes(), name);
+        }
+    }
+
+    @Test
+    void encodingCountsTheChunksItWrites() {
+        List<QOIChunkStats> reported = new ArrayList<>();
+        QOIEncoderContext context = new QOIEncoderContext();
+        context.setListener(reported::add);
+
+        for (String name : References.names()) {
+            Helper.Image image = QOIDecoder.decodeQoiFile(References.read(name));
+
+            reported.clear();
+            int size = context.encode(image);
+
+            assertEquals(1, reported.size(), name);
+            assertEquals(QOIChunkStats.of(context.output(), 0, size, 0), withoutTime(reported.get(0)), name);
+        }
+
+        // A run pending at the end of the image is counted when it is written
+        reported.clear();
+        context.encode(new int[]{0x102030FF, 0x102030FF, 0x102030FF}, 3, 1, QOISpecification.RGBA, QOISpecification.sRGB);
+        assertEquals(1, reported.get(0).runs());
+        assertEquals(2, reported.get(0).runPixels());
+    }
+
+    @Test
+    void metricsAddUpTheDecodedFiles() {
+        QOIDecoderMetrics metrics = new QOIDecoderMetrics();
+        QOIDecoderContext context = new QOIDecoderContext();
+        context.setListener(metrics);
+
+        QOIChunkStats expected = QOIChunkStats.EMPTY;
+        for (String name : References.names()) {
+            byte[] content = References.read(name);
+            context.decode(content);
+            expected = expected.plus(QOIChunkStats.of(content));
+        }
+
+        assertEquals(expected, withoutTime(metrics.snapshot()));
+        assertEquals(References.names().size(), metrics.getImages());
+
+        context.setListener(null);
+        context.decode(References.read("dice"));
+        assertEquals(References.names().size(), metrics.getImages());
+    }
+
+    @Test
+    void encoderMetricsAddUpTheEncodedFiles() {
+        QOIEncoderMetrics metrics = new QOIEncoderMetrics();
+        QOIEncoderContext context = new QOIEncoderContext();
+        context.setListener(metrics);
+
+        QOIChunkStats expected = QOIChunkStats.EMPTY;
+        for (String name : References.names()) {
+            int size = context.encode(QOIDecoder.decodeQoiFile(References.read(name)));
+            expected = expected.plus(QOIChunkStats.of(context.output(), 0, size, 0));
+        }
+
+        assertEquals(expected, withoutTime(metrics.snapshot()));
+        metrics.reset();
+        assertEquals(QOIChunkStats.EMPTY, metrics.snapshot());
+    }
+}
@@ -0,0 +1,85 @@
+package cs107;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * A context must decode any file held in an array range or a byte buffer like {@link QOIDecoder},
+ * whatever the images it decoded before
+ */
+final class QOIDecoderContextTest {
+
+    private static ByteBuffer direct(byte[] content) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(content.length);
+        return buffer.put(content).flip();
+    }
+
+    private static void assertDecoded(PixelBuffer expected, QOIDecoderContext context, int count, String name) {
+        assertEquals(expected.data().length, count, name);
+        assertEquals(expected.width(), context.width(), name);
+        assertEquals(expected.height(), context.height(), name);
+        assertArrayEquals(expected.data(), Arrays.copyOf(context.pixels(), count), name);
+    }
+
+    @Test
+    void referenceImagesAreDecodedFromEveryKindOfInput() {
+        QOIDecoderContext context = new QOIDecoderContext();
+
+        for (String name : References.names()) {
+            byte[] content = References.read(name);
+            PixelBuffer expected = QOIDecoder.decodePixels(content);
+
+            assertDecoded(expected, context, context.decode(content), name);
+            assertEquals(QOIDecoder.decodeQoiFile(content), context.toImage(), name);
+
+            byte[] padded = ArrayUtils.concat(new byte[]{1, 2, 3}, content, new byte[]{4});
+            assertDecoded(expected, context, context.decode(padded, 3, content.length), name);
+
+            ByteBuffer heap = ByteBuffer.wrap(padded, 3, content.length);
+            assertDecoded(expected, context, context.decode(heap), name);
+            assertEquals(3 + content.length, heap.position(), name);
+
+            ByteBuffer buffer = direct(content);
+            assertDecoded(expected, context, context.decode(buffer), name);
+            assertEquals(buffer.limit(), buffer.position(), name);
+        }
+    }
+
+    @Test
+    void smallImageAfterALargeOneIsDecoded() {
+        QOIDecoderContext context = new QOIDecoderContext();
+        context.decode(References.read("beach"));
+
+        byte[] single = QOIEncoder.qoiFile(new PixelBuffer(new int[]{0x10203040}, 1, 1),
+                QOISpecification.RGBA, QOISpecification.sRGB);
+        assertEquals(1, context.decode(single));
+        assertEquals(0x10203040, context.pixels()[0]);
+        assertArrayEquals(new int[]{0x10203040}, context.toPixelBuffer().data());
+        assertEquals(QOIDecoder.decodeQoiFile(single), context.toImage());
+    }
+
+    @Test
+    void corruptedChunksAreFormatErrors() {
+        byte[] content = References.read("dice");
+        QOIDecoderContext context = new QOIDecoderContext();
+
+        // One chunk less leaves pixels undecoded, a run more overflows the image
+        byte[] header = Arrays.copyOf(content, QOISpecification.HEADER_SIZE);
+        byte[] data = Arrays.copyOfRange(content, QOISpecification.HEADER_SIZE,
+                content.length - QOISpecification.QOI_EOF.length);
+        byte[] missing = ArrayUtils.concat(header, Arrays.copyOf(data, data.length - 1), QOISpecification.QOI_EOF);
+        byte[] overflowing = ArrayUtils.concat(header, data, new byte[]{(byte) 0xFD}, QOISpecification.QOI_EOF);
+
+        for (byte[] corrupted : new byte[][]{missing, overflowing}) {
+            assertThrows(RuntimeException.class, () -> context.decode(corrupted));
+            assertThrows(RuntimeException.class, () -> context.decode(direct(corrupted)));
+            assertThrows(RuntimeException.class, () -> QOIDecoder.decodePixels(corrupted));
+        }
+    }
+}
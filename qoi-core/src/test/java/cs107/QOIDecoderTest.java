@@ -0,0 +1,193 @@
+package cs107;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Every decoder must store the pixel of every chunk in the hash table, INDEX and RUN included,
+ * and must agree with {@link QOIDecoder} on the reference images
+ */
+final class QOIDecoderTest {
+
+    /**
+     * A 4x2 image opening with a run of the start pixel, then reading it back through QOI_OP_INDEX 53
+     */
+    private static final byte[] START_RUN = file(4, 2,
+            0xC2,                               // RUN of 3 start pixels, stored at slot 53
+            0xFE, 10, 20, 30,                   // RGB
+            0x35,                               // INDEX 53
+            0xFE, 40, 50, 60,                   // RGB
+            0x35,                               // INDEX 53
+            0xC0);                              // RUN of 1
+
+    private static final int[] START_RUN_PIXELS = {
+            0x000000FF, 0x000000FF, 0x000000FF, 0x0A141EFF,
+            0x000000FF, 0x28323CFF, 0x000000FF, 0x000000FF
+    };
+
+    /**
+     * A 1x2 image holding a run of 62 pixels
+     */
+    private static final byte[] OVERFLOWING_RUN = file(1, 2, 0xFD);
+
+    private static byte[] file(int width, int height, int... chunks) {
+        byte[] data = new byte[chunks.length];
+        for (int i = 0; i < chunks.length; i++) data[i] = (byte) chunks[i];
+        byte[] header = QOIEncoder.qoiHeader(width, height, QOISpecification.RGBA, QOISpecification.sRGB);
+        return ArrayUtils.concat(header, data, QOISpecification.QOI_EOF);
+    }
+
+    private static int[] decodeParallel(byte[] content, int bands) {
+        int[] header = QOIDecoder.decodeHeader(ByteBuffer.wrap(content));
+        int[] buffer = new int[header[0] * header[1]];
+        int decoded = QOIParallelDecoder.decodeData(content, QOISpecification.HEADER_SIZE,
+                content.length - QOISpecification.QOI_EOF.length, buffer, bands, ForkJoinPool.commonPool());
+        assertEquals(buffer.length, decoded);
+        return buffer;
+    }
+
+    private static int[] decodeStream(byte[] content) {
+        QOIStreamDecoder decoder = new QOIStreamDecoder(new ByteArrayInputStream(content));
+        int[] pixels = new int[decoder.width() * decoder.height()];
+        decoder.decode((y, row) -> System.arraycopy(row, 0, pixels, y * row.length, row.length));
+        return pixels;
+    }
+
+    // ==================================================================================
+    // ================================ START PIXEL RUN =================================
+    // ==================================================================================
+
+    @Test
+    void runOfTheStartPixelIsStoredForTheSequentialDecoder() {
+        assertArrayEquals(START_RUN_PIXELS, QOIDecoder.decodePixels(START_RUN).data());
+        assertArrayEquals(START_RUN_PIXELS, QOIDecoder.decodePixels(ByteBuffer.wrap(START_RUN)).data());
+        assertArrayEquals(START_RUN_PIXELS,
+                QOIDecoder.decodePixels(ByteBuffer.allocateDirect(START_RUN.length).put(START_RUN).flip()).data());
+    }
+
+    @Test
+    void runOfTheStartPixelIsStoredForTheStreamDecoder() {
+        assertArrayEquals(START_RUN_PIXELS, decodeStream(START_RUN));
+    }
+
+    @Test
+    void runOfTheStartPixelIsStoredForTheRegionDecoder() {
+        assertArrayEquals(Arrays.copyOfRange(START_RUN_PIXELS, 4, 8), QOIDecoder.decodeRows(START_RUN, 1, 1).data());
+        assertArrayEquals(new int[]{0x000000FF, 0x28323CFF, 0x000000FF},
+                QOIDecoder.decodeRegion(START_RUN, 0, 1, 3, 1).data());
+    }
+
+    @Test
+    void runOfTheStartPixelIsStoredForTheParallelDecoder() {
+        for (int bands = 1; bands <= 8; bands++) {
+            assertArrayEquals(START_RUN_PIXELS, decodeParallel(START_RUN, bands), "bands : " + bands);
+        }
+    }
+
+    @Test
+    void runOfTheStartPixelIsStoredForTheIndex() {
+        QOIIndex index = QOIIndex.build(START_RUN, 1);
+        assertArrayEquals(Arrays.copyOfRange(START_RUN_PIXELS, 4, 8), index.decodeRows(START_RUN, 1, 1).data());
+        assertArrayEquals(new int[]{0x000000FF}, index.decodeRegion(START_RUN, 2, 1, 1, 1).data());
+    }
+
+    // ==================================================================================
+    // ================================= CORRUPT RUNS ===================================
+    // ==================================================================================
+
+    @Test
+    void runOverflowingTheImageIsAFormatError() {
+        assertThrows(RuntimeException.class, () -> QOIDecoder.decodePixels(OVERFLOWING_RUN));
+        assertThrows(RuntimeException.class, () -> QOIDecoder.decodeQoiFile(OVERFLOWING_RUN));
+        assertThrows(RuntimeException.class, () -> decodeStream(OVERFLOWING_RUN));
+        assertThrows(RuntimeException.class, () -> decodeParallel(OVERFLOWING_RUN, 2));
+        assertThrows(RuntimeException.class, () -> QOIDecoder.decodeData(OVERFLOWING_RUN,
+                QOISpecification.HEADER_SIZE, OVERFLOWING_RUN.length - QOISpecification.QOI_EOF.length, new int[2]));
+    }
+
+    // ==================================================================================
+    // ================================= CORRUPT FILES ==================================
+    // ==================================================================================
+
+    /**
+     * Every decoder must reject the file with a RuntimeException, whether assertions are enabled or not
+     */
+    private static void assertNotDecoded(byte[] content) {
+        assertThrows(RuntimeException.class, () -> QOIDecoder.decodePixels(content));
+        assertThrows(RuntimeException.class, () -> QOIDecoder.decodePixels(ByteBuffer.wrap(content)));
+        assertThrows(RuntimeException.class, () -> QOIDecoder.decodeQoiFile(content));
+        assertThrows(RuntimeException.class, () -> QOIParallelDecoder.decodeQoiFile(content));
+        assertThrows(RuntimeException.class, () -> new QOIDecoderContext().decode(content));
+        assertThrows(RuntimeException.class, () -> new QOIDecoderContext().decode(ByteBuffer.wrap(content)));
+    }
+
+    /**
+     * Reading the statistics back must reject the file as well
+     */
+    private static void assertRejected(byte[] content) {
+        assertNotDecoded(content);
+        assertThrows(RuntimeException.class, () -> QOIChunkStats.of(ByteBuffer.wrap(content), 0));
+    }
+
+    private static byte[] with(byte[] content, int index, int value) {
+        byte[] copy = content.clone();
+        copy[index] = (byte) value;
+        return copy;
+    }
+
+    @Test
+    void corruptHeadersAreRejected() {
+        assertRejected(with(START_RUN, 0, 'Q'));
+        assertRejected(with(START_RUN, 7, 0));
+        assertRejected(with(START_RUN, 12, 5));
+        assertRejected(with(START_RUN, 13, 2));
+        assertThrows(RuntimeException.class, () -> QOIDecoder.decodeHeader(with(START_RUN, 12, 5)));
+        assertThrows(RuntimeException.class, () -> QOIDecoder.decodeHeader(Arrays.copyOf(START_RUN, 13)));
+    }
+
+    @Test
+    void missingEndMarkerIsRejected() {
+        assertRejected(with(START_RUN, START_RUN.length - 1, 0));
+        assertRejected(Arrays.copyOf(START_RUN, START_RUN.length - 1));
+        assertRejected(Arrays.copyOf(START_RUN, QOISpecification.HEADER_SIZE));
+    }
+
+    @Test
+    void imagesTooLargeForAnArrayAreRejected() {
+        assertNotDecoded(file(1 << 16, 1 << 15, 0xC0));
+    }
+
+    // ==================================================================================
+    // ================================ REFERENCE IMAGES ================================
+    // ==================================================================================
+
+    @Test
+    void everyDecoderAgreesOnTheReferenceImages() {
+        for (String name : References.names()) {
+            byte[] content = References.read(name);
+            int[] expected = QOIDecoder.decodePixels(content).data();
+
+            assertArrayEquals(expected, QOIDecoder.decodePixels(ByteBuffer.wrap(content)).data(), name);
+            assertArrayEquals(expected, QOIDecoder.decodePixels(
+                    ByteBuffer.allocateDirect(content.length).put(content).flip()).data(), name);
+            assertArrayEquals(expected, decodeStream(content), name);
+            assertArrayEquals(expected, decodeParallel(content, 7), name);
+            assertArrayEquals(expected, QOIParallelDecoder.decodePixels(content, ForkJoinPool.commonPool()).data(), name);
+
+            QOIIndex index = QOIIndex.build(content, 16);
+            int[] header = QOIDecoder.decodeHeader(ByteBuffer.wrap(content));
+            int width = header[0];
+            int height = header[1];
+            assertArrayEquals(Arrays.copyOfRange(expected, height / 2 * width, height * width),
+                    index.decodeRows(content, height / 2, height - height / 2).data(), name);
+        }
+    }
+}
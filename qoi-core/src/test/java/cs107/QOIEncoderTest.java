@@ -0,0 +1,106 @@
+package cs107;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Every encoding path must write the same file, which decodes back to the pixels it was given,
+ * from a single pixel up to runs longer than a QOI_OP_RUN chunk can hold
+ */
+final class QOIEncoderTest {
+
+    private static byte[] remaining(ByteBuffer buffer, int size) {
+        byte[] content = new byte[size];
+        buffer.flip().get(content);
+        return content;
+    }
+
+    private static void assertRoundTrip(PixelBuffer pixels, String name) {
+        byte[] expected = QOIEncoder.qoiFile(pixels, QOISpecification.RGBA, QOISpecification.sRGB);
+        assertArrayEquals(pixels.data(), QOIDecoder.decodePixels(expected).data(), name);
+
+        for (ByteBuffer output : new ByteBuffer[]{
+                ByteBuffer.allocate(QOIEncoder.maxFileSize(pixels.data().length)),
+                ByteBuffer.allocateDirect(QOIEncoder.maxFileSize(pixels.data().length))}) {
+            int size = QOIEncoder.qoiFile(pixels, QOISpecification.RGBA, QOISpecification.sRGB, output);
+            assertArrayEquals(expected, remaining(output, size), name);
+        }
+
+        QOIEncoderContext context = new QOIEncoderContext();
+        int size = context.encode(pixels, QOISpecification.RGBA, QOISpecification.sRGB);
+        assertArrayEquals(expected, Arrays.copyOf(context.output(), size), name);
+    }
+
+    @Test
+    void referenceImagesAreEncodedBackToTheirFiles() {
+        QOIEncoderContext context = new QOIEncoderContext();
+
+        for (String name : References.names()) {
+            byte[] content = References.read(name);
+            Helper.Image image = QOIDecoder.decodeQoiFile(content);
+            byte[] encoded = QOIEncoder.qoiFile(image);
+
+            assertEquals(image, QOIDecoder.decodeQoiFile(encoded), name);
+            assertArrayEquals(QOIDecoder.decodePixels(content).data(), QOIDecoder.decodePixels(encoded).data(), name);
+            assertArrayEquals(content, encoded, name);
+
+            // The context keeps its buffers from one image to the next, larger or smaller
+            int size = context.encode(image);
+            assertArrayEquals(encoded, Arrays.copyOf(context.output(), size), name);
+            assertRoundTrip(QOIDecoder.decodePixels(content), name);
+        }
+    }
+
+    @Test
+    void runOfTheStartPixelIsNotStoredLikeTheReferenceEncoder() {
+        int red = 0xFF0000FF;
+        int[] pixels = {QOISpecification.PACKED_START_PIXEL, QOISpecification.PACKED_START_PIXEL, red,
+                QOISpecification.PACKED_START_PIXEL};
+        byte[] output = new byte[QOIEncoder.maxDataSize(pixels.length)];
+
+        // RUN of 2, DIFF to red, then DIFF back to the start pixel rather than INDEX 53
+        int size = QOIEncoder.encodeData(pixels, output, 0);
+        assertArrayEquals(new byte[]{(byte) 0xC1, 0x5A, 0x7A}, Arrays.copyOf(output, size));
+        assertRoundTrip(new PixelBuffer(pixels, 4, 1), "start pixel run");
+    }
+
+    @Test
+    void singlePixelImagesAreEncoded() {
+        for (int pixel : new int[]{QOISpecification.PACKED_START_PIXEL, 0, 0x102030FF, 0x10203040}) {
+            assertRoundTrip(new PixelBuffer(new int[]{pixel}, 1, 1), Integer.toHexString(pixel));
+        }
+    }
+
+    @Test
+    void longRunsAreSplitInChunks() {
+        for (int length : new int[]{61, 62, 63, 124, 125, 1000}) {
+            int[] pixels = new int[length + 1];
+            Arrays.fill(pixels, 0x336699FF);
+            pixels[length] = 0x112233FF;
+            assertRoundTrip(new PixelBuffer(pixels, pixels.length, 1), "run of " + length);
+
+            // A run of the start pixel opens the image, a run still pending ends it
+            int[] start = new int[length];
+            Arrays.fill(start, QOISpecification.PACKED_START_PIXEL);
+            assertRoundTrip(new PixelBuffer(start, 1, length), "start run of " + length);
+        }
+    }
+
+    @Test
+    void dataIsEncodedIntoAnyBuffer() {
+        int[] pixels = QOIDecoder.decodePixels(References.read("dice")).data();
+        byte[] expected = QOIEncoder.encodeData(new PixelBuffer(pixels, pixels.length, 1));
+
+        for (ByteBuffer output : new ByteBuffer[]{
+                ByteBuffer.allocate(QOIEncoder.maxDataSize(pixels.length)),
+                ByteBuffer.allocateDirect(QOIEncoder.maxDataSize(pixels.length))}) {
+            int size = QOIEncoder.encodeData(pixels, output);
+            assertArrayEquals(expected, remaining(output, size));
+        }
+    }
+}
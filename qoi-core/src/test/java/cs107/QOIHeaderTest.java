@@ -0,0 +1,65 @@
+package cs107;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The header checks are format errors : they must throw a {@link RuntimeException}, which an
+ * {@link AssertionError} is not, so these tests also hold when the assertions are disabled
+ */
+final class QOIHeaderTest {
+
+    private static final byte[] VALID = QOIEncoder.qoiHeader(3, 2, QOISpecification.RGBA, QOISpecification.sRGB);
+
+    private static byte[] with(int offset, int value) {
+        byte[] header = VALID.clone();
+        header[offset] = (byte) value;
+        return header;
+    }
+
+    @Test
+    void validHeaderIsRead() {
+        QOIHeader expected = new QOIHeader(3, 2, QOISpecification.RGBA, QOISpecification.sRGB);
+
+        assertEquals(expected, QOIHeader.of(VALID));
+        assertEquals(expected, QOIHeader.of(ByteBuffer.wrap(ArrayUtils.concat(VALID, QOISpecification.QOI_EOF))));
+        assertEquals(expected, QOIHeader.probe(new ByteArrayInputStream(VALID)));
+        assertEquals(expected, QOIHeader.probe(Channels.newChannel(new ByteArrayInputStream(VALID))));
+    }
+
+    @Test
+    void badMagicIsRejected() {
+        assertThrows(RuntimeException.class, () -> QOIHeader.of(with(0, 'Q')));
+    }
+
+    @Test
+    void zeroDimensionsAreRejected() {
+        assertThrows(RuntimeException.class, () -> QOIHeader.of(with(7, 0)));
+        assertThrows(RuntimeException.class, () -> QOIHeader.of(with(11, 0)));
+        assertThrows(RuntimeException.class, () -> new QOIHeader(0, 1, QOISpecification.RGB, QOISpecification.sRGB));
+    }
+
+    @Test
+    void badChannelsAndColorSpaceAreRejected() {
+        assertThrows(RuntimeException.class, () -> QOIHeader.of(with(12, 5)));
+        assertThrows(RuntimeException.class, () -> QOIHeader.of(with(13, 2)));
+    }
+
+    @Test
+    void shortReadsAreRejected() {
+        byte[] truncated = Arrays.copyOf(VALID, VALID.length - 1);
+
+        assertThrows(RuntimeException.class, () -> QOIHeader.of(truncated));
+        assertThrows(RuntimeException.class, () -> QOIHeader.of(ByteBuffer.wrap(truncated)));
+        assertThrows(RuntimeException.class, () -> QOIHeader.probe(new ByteArrayInputStream(truncated)));
+        assertThrows(RuntimeException.class,
+                () -> QOIHeader.probe(Channels.newChannel(new ByteArrayInputStream(truncated))));
+    }
+}
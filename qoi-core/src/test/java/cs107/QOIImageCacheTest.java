@@ -0,0 +1,114 @@
+package cs107;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.IntBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The cache must never serve the image of another content, and must not let its users modify the shared pixels
+ */
+final class QOIImageCacheTest {
+
+    private static final long CAPACITY = 64L << 20;
+
+    /**
+     * @return (byte[]) - Copy of the content with the red channel of its first RGB or RGBA chunk changed
+     */
+    private static byte[] withAnotherPixel(byte[] content) {
+        byte[] copy = content.clone();
+        int index = QOISpecification.HEADER_SIZE;
+        while ((copy[index] & 0xFF) < 0xFE) index += QOIDecoder.CHUNK_SIZES[copy[index] & 0xFF];
+        copy[index + 1] ^= 1;
+        return copy;
+    }
+
+    private static IntBuffer expected(byte[] content) {
+        return IntBuffer.wrap(QOIDecoder.decodePixels(content).data());
+    }
+
+    @Test
+    void sameContentIsDecodedOnce() {
+        QOIImageCache cache = new QOIImageCache(CAPACITY);
+        byte[] content = References.read("dice");
+
+        QOIImageCache.Entry first = cache.get(content);
+        QOIImageCache.Entry second = cache.get(content.clone());
+
+        assertSame(first, second);
+        assertEquals(expected(content), second.pixels());
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    void contentsSharingAHashAreNotConfused() {
+        QOIImageCache cache = new QOIImageCache(CAPACITY);
+        byte[] first = References.read("dice");
+        byte[] second = withAnotherPixel(first);
+
+        QOIImageCache.Entry entry = cache.get(first, 42);
+        QOIImageCache.Entry other = cache.get(second, 42);
+
+        assertNotSame(entry, other);
+        assertEquals(expected(second), other.pixels());
+        assertEquals(expected(first), cache.get(first, 42).pixels());
+        assertEquals(0, cache.stats().hits());
+    }
+
+    @Test
+    void callerChangingItsArrayDoesNotChangeTheCache() {
+        QOIImageCache cache = new QOIImageCache(CAPACITY);
+        byte[] original = References.read("dice");
+        byte[] content = original.clone();
+        long hash = ArrayUtils.hash64(content);
+
+        QOIImageCache.Entry entry = cache.get(content, hash);
+        System.arraycopy(withAnotherPixel(original), 0, content, 0, content.length);
+
+        assertNotSame(entry, cache.get(content, hash));
+        assertEquals(expected(original), cache.get(original).pixels());
+    }
+
+    @Test
+    void pixelsAreReadOnlyAndImagesAreCopies() {
+        QOIImageCache cache = new QOIImageCache(CAPACITY);
+        byte[] content = References.read("dice");
+        QOIImageCache.Entry entry = cache.get(content);
+
+        IntBuffer pixels = entry.pixels();
+        assertTrue(pixels.isReadOnly());
+        assertThrows(ReadOnlyBufferException.class, () -> pixels.put(0, 0));
+
+        Helper.Image image = entry.toImage();
+        image.data()[0][0] = ~image.data()[0][0];
+        assertEquals(expected(content), cache.get(content).pixels());
+        assertEquals(QOIDecoder.decodeQoiFile(content), cache.get(content).toImage());
+    }
+
+    @Test
+    void modifiedFileIsDecodedAgain() throws Exception {
+        QOIImageCache cache = new QOIImageCache(CAPACITY);
+        Path file = Files.createTempFile("cache", ".qoi");
+        try {
+            Files.write(file, References.read("dice"));
+            QOIImageCache.Entry first = cache.get(file);
+            assertSame(first, cache.get(file));
+
+            Files.write(file, References.read("cube"));
+            Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+            assertEquals(expected(References.read("cube")), cache.get(file).pixels());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
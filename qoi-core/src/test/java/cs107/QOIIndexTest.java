@@ -0,0 +1,140 @@
+package cs107;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Rows and rectangles decoded from the start of the file or from a checkpoint of its index must be
+ * the pixels of the whole image, and the index must survive a round trip through its sidecar
+ */
+final class QOIIndexTest {
+
+    private static int[] crop(PixelBuffer pixels, int x, int y, int width, int height) {
+        int[] region = new int[width * height];
+        for (int row = 0; row < height; row++) {
+            System.arraycopy(pixels.data(), (y + row) * pixels.width() + x, region, row * width, width);
+        }
+        return region;
+    }
+
+    @Test
+    void regionsAreDecodedWithAndWithoutIndex() {
+        for (String name : References.names()) {
+            byte[] content = References.read(name);
+            PixelBuffer pixels = QOIDecoder.decodePixels(content);
+            int width = pixels.width();
+            int height = pixels.height();
+            int[][] regions = {{0, 0, 1, 1}, {width - 1, height - 1, 1, 1}, {0, 0, width, height},
+                    {width / 3, height / 4, width / 2 + 1, height / 2 + 1}, {0, height / 2, width, 1}};
+
+            for (int rows : new int[]{1, 16, height}) {
+                QOIIndex index = QOIIndex.build(content, rows);
+                assertEquals((height - 1) / rows + 1, index.checkpoints(), name);
+
+                for (int[] r : regions) {
+                    int[] expected = crop(pixels, r[0], r[1], r[2], r[3]);
+                    String region = name + " " + Arrays.toString(r);
+                    assertArrayEquals(expected, QOIDecoder.decodeRegion(content, r[0], r[1], r[2], r[3]).data(), region);
+                    assertArrayEquals(expected, QOIDecoder.decodeRegion(ByteBuffer.wrap(content), r[0], r[1], r[2], r[3]).data(), region);
+                    assertArrayEquals(expected, index.decodeRegion(content, r[0], r[1], r[2], r[3]).data(), region);
+                    assertArrayEquals(expected, index.decodeRegion(ByteBuffer.wrap(content), r[0], r[1], r[2], r[3]).data(), region);
+                }
+                assertArrayEquals(crop(pixels, 0, height - 1, width, 1), index.decodeRows(content, height - 1, 1).data(), name);
+            }
+            assertArrayEquals(crop(pixels, 0, 0, width, 1), QOIDecoder.decodeRows(content, 0, 1).data(), name);
+        }
+    }
+
+    @Test
+    void rowsAreDecodedFromATruncatedFile() {
+        byte[] content = References.read("dice");
+        PixelBuffer pixels = QOIDecoder.decodePixels(content);
+        byte[] truncated = Arrays.copyOf(content, content.length / 2);
+
+        assertArrayEquals(crop(pixels, 0, 0, pixels.width(), 3), QOIDecoder.decodeRows(truncated, 0, 3).data());
+    }
+
+    @Test
+    void runsOverCheckpointsAreResumed() {
+        // A single run covers the first pixels of several checkpoint rows
+        int[] data = new int[8 * 40];
+        Arrays.fill(data, 0x336699FF);
+        data[data.length - 1] = 0x112233FF;
+        PixelBuffer pixels = new PixelBuffer(data, 8, 40);
+        byte[] content = QOIEncoder.qoiFile(pixels, QOISpecification.RGBA, QOISpecification.sRGB);
+
+        QOIIndex index = QOIIndex.build(content, 2);
+        for (int row = 0; row < 40; row++) {
+            assertArrayEquals(crop(pixels, 0, row, 8, 1), index.decodeRows(content, row, 1).data(), "row " + row);
+        }
+    }
+
+    @Test
+    void indexIsReadBackFromItsSidecar() throws Exception {
+        Path file = Files.createTempFile("indexed", ".qoi");
+        Path sidecar = QOIIndex.sidecarOf(file);
+        try {
+            byte[] content = References.read("EPFL");
+            Files.write(file, content);
+            QOIIndex index = QOIIndex.build(file, 32);
+            index.write(sidecar);
+
+            assertEquals(file.getFileName() + QOIIndex.SIDECAR_EXTENSION, sidecar.getFileName().toString());
+            QOIIndex read = QOIIndex.read(sidecar);
+            assertArrayEquals(index.toByteArray(), read.toByteArray());
+            assertArrayEquals(index.toByteArray(), QOIIndex.of(index.toByteArray()).toByteArray());
+            assertEquals(content.length, read.fileSize());
+            assertEquals(32, read.rowsPerCheckpoint());
+
+            PixelBuffer pixels = QOIDecoder.decodePixels(content);
+            assertArrayEquals(crop(pixels, 100, 500, 300, 200), read.decodeRegion(content, 100, 500, 300, 200).data());
+            assertArrayEquals(crop(pixels, 100, 500, 300, 200), QOIFiles.decodeRegion(file, 100, 500, 300, 200).data());
+            assertArrayEquals(crop(pixels, 0, 700, pixels.width(), 45), QOIFiles.decodeRows(file, 700, 45).data());
+        } finally {
+            Files.deleteIfExists(sidecar);
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void staleFilesAreRejected() {
+        byte[] content = References.read("dice");
+        QOIIndex index = QOIIndex.build(content, 16);
+        int[] header = QOIDecoder.decodeHeader(ByteBuffer.wrap(content));
+
+        // Same size, a byte changed in the rows about to be decoded
+        byte[] changed = content.clone();
+        changed[content.length / 2] ^= 1;
+        assertThrows(RuntimeException.class, () -> index.decodeRows(changed, 0, header[1]));
+        assertThrows(RuntimeException.class, () -> index.decodeRows(ByteBuffer.wrap(changed), 0, header[1]));
+
+        // Only the bytes about to be decoded are checked, the first rows lie before the change
+        assertArrayEquals(index.decodeRows(content, 0, 1).data(), index.decodeRows(changed, 0, 1).data());
+
+        // Another file of the same image, or of another size
+        byte[] other = References.read("qoi_encode_test");
+        assertThrows(RuntimeException.class, () -> index.decodeRows(Arrays.copyOf(content, content.length + 1), 0, 1));
+        assertThrows(RuntimeException.class, () -> QOIIndex.build(other, 1).decodeRows(content, 0, 1));
+    }
+
+    @Test
+    void corruptSidecarsAreRejected() {
+        byte[] sidecar = QOIIndex.build(References.read("dice"), 16).toByteArray();
+
+        for (int[] corruption : new int[][]{{0, 'Q'}, {15, 0}, {19, 0}, {23, 99}, {24, 0x7F}}) {
+            byte[] corrupt = sidecar.clone();
+            corrupt[corruption[0]] = (byte) corruption[1];
+            assertThrows(RuntimeException.class, () -> QOIIndex.of(corrupt), "byte " + corruption[0]);
+        }
+        assertThrows(RuntimeException.class, () -> QOIIndex.of(Arrays.copyOf(sidecar, sidecar.length - 1)));
+        assertThrows(RuntimeException.class, () -> QOIIndex.of(Arrays.copyOf(sidecar, 10)));
+    }
+}
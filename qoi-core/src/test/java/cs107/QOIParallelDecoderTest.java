@@ -0,0 +1,80 @@
+package cs107;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The bands found by scanning the chunks must decode to the pixels of the sequential decoder,
+ * whatever the number of bands and wherever the runs and the index lookups fall
+ */
+final class QOIParallelDecoderTest {
+
+    private static final ForkJoinPool POOL = ForkJoinPool.commonPool();
+
+    private static int[] decode(byte[] content, int bands) {
+        int[] buffer = new int[(int) QOIHeader.of(content).pixelCount()];
+        int decoded = QOIParallelDecoder.decodeData(content, QOISpecification.HEADER_SIZE,
+                content.length - QOISpecification.QOI_EOF.length, buffer, bands, POOL);
+        assertEquals(buffer.length, decoded);
+        return buffer;
+    }
+
+    private static byte[] file(int[] pixels, int width, int height) {
+        return QOIEncoder.qoiFile(new PixelBuffer(pixels, width, height), QOISpecification.RGBA, QOISpecification.sRGB);
+    }
+
+    @Test
+    void anyNumberOfBandsIsDecoded() {
+        for (String name : new String[]{"dice", "EPFL", "random", "qoi_op_run"}) {
+            byte[] content = References.read(name);
+            int[] expected = QOIDecoder.decodePixels(content).data();
+
+            for (int bands : new int[]{1, 2, 3, 16, 1000}) {
+                assertArrayEquals(expected, decode(content, bands), name + " in " + bands + " bands");
+            }
+            assertEquals(QOIDecoder.decodeQoiFile(content), QOIParallelDecoder.decodeQoiFile(content), name);
+        }
+    }
+
+    @Test
+    void singlePixelIsDecoded() {
+        for (int pixel : new int[]{QOISpecification.PACKED_START_PIXEL, 0x10203040}) {
+            byte[] content = file(new int[]{pixel}, 1, 1);
+            assertArrayEquals(new int[]{pixel}, decode(content, 4));
+            assertArrayEquals(new int[]{pixel}, QOIParallelDecoder.decodePixels(content, POOL).data());
+        }
+    }
+
+    @Test
+    void runsAcrossBandsAreDecoded() {
+        // Long runs of a few colors, read back through the hash table far from where they were stored
+        int[] pixels = new int[1200 * 1000];
+        int[] colors = {0x336699FF, QOISpecification.PACKED_START_PIXEL, 0x112233FF, 0x33669980};
+        for (int i = 0; i < pixels.length; i++) pixels[i] = colors[i / 997 % colors.length];
+        byte[] content = file(pixels, 1200, 1000);
+
+        assertArrayEquals(pixels, decode(content, 64));
+        assertArrayEquals(pixels, QOIParallelDecoder.decodePixels(content, POOL).data());
+
+        int[] uniform = new int[1200 * 1000];
+        Arrays.fill(uniform, 0x336699FF);
+        assertArrayEquals(uniform, QOIParallelDecoder.decodePixels(file(uniform, 1200, 1000), POOL).data());
+    }
+
+    @Test
+    void missingPixelsAreAFormatError() {
+        byte[] content = References.read("EPFL");
+        byte[] data = Arrays.copyOfRange(content, QOISpecification.HEADER_SIZE,
+                content.length - QOISpecification.QOI_EOF.length);
+        byte[] header = Arrays.copyOf(content, QOISpecification.HEADER_SIZE);
+        byte[] missing = ArrayUtils.concat(header, Arrays.copyOf(data, data.length - 1), QOISpecification.QOI_EOF);
+
+        assertThrows(RuntimeException.class, () -> QOIParallelDecoder.decodePixels(missing, POOL));
+    }
+}
@@ -0,0 +1,82 @@
+package cs107;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The bands must decode back to the image, and a corrupted band table must be rejected before any band
+ * is decoded, with a {@link RuntimeException} that does not depend on the assertions
+ */
+final class QOISegmentedTest {
+
+    private static final ForkJoinPool POOL = ForkJoinPool.commonPool();
+
+    private static byte[] segmented(String name, int bandHeight) {
+        PixelBuffer pixels = QOIDecoder.decodePixels(References.read(name));
+        return QOISegmented.qoiFile(pixels, QOISpecification.RGBA, QOISpecification.sRGB, bandHeight, POOL);
+    }
+
+    private static byte[] withInt(byte[] content, int position, int value) {
+        byte[] copy = content.clone();
+        System.arraycopy(ArrayUtils.fromInt(value), 0, copy, position, 4);
+        return copy;
+    }
+
+    private static int readInt(byte[] content, int position) {
+        return ArrayUtils.toInt(ArrayUtils.extract(content, position, 4));
+    }
+
+    @Test
+    void referenceImagesAreDecoded() {
+        for (String name : References.names()) {
+            PixelBuffer pixels = QOIDecoder.decodePixels(References.read(name));
+            int[] expected = pixels.data();
+            for (int bandHeight : new int[]{1, 7, pixels.height()}) {
+                assertArrayEquals(expected, QOISegmented.decodePixels(segmented(name, bandHeight), POOL).data(), name);
+            }
+        }
+    }
+
+    @Test
+    void bandCountMustCoverTheHeight() {
+        byte[] content = segmented("dice", 16);
+        int bands = readInt(content, QOISpecification.HEADER_SIZE + 4);
+
+        assertThrows(RuntimeException.class, () -> QOISegmented.decodePixels(
+                withInt(content, QOISpecification.HEADER_SIZE + 4, bands - 1), POOL));
+        assertThrows(RuntimeException.class, () -> QOISegmented.decodePixels(
+                withInt(content, QOISpecification.HEADER_SIZE, 0), POOL));
+        assertThrows(RuntimeException.class, () -> QOISegmented.decodePixels(
+                withInt(content, QOISpecification.HEADER_SIZE, 15), POOL));
+    }
+
+    @Test
+    void bandOffsetsMustIncreaseWithinTheData() {
+        byte[] content = segmented("dice", 16);
+        int first = QOISegmented.HEADER_SIZE;
+        int second = QOISegmented.HEADER_SIZE + 4;
+
+        assertThrows(RuntimeException.class, () -> QOISegmented.decodePixels(
+                withInt(content, second, readInt(content, first)), POOL));
+        assertThrows(RuntimeException.class, () -> QOISegmented.decodePixels(
+                withInt(content, first, readInt(content, second) + 1), POOL));
+        assertThrows(RuntimeException.class, () -> QOISegmented.decodePixels(
+                withInt(content, first, -1), POOL));
+        assertThrows(RuntimeException.class, () -> QOISegmented.decodePixels(
+                withInt(content, first, Integer.MAX_VALUE), POOL));
+    }
+
+    @Test
+    void bandsMustHoldTheirPixels() {
+        byte[] content = segmented("dice", 16);
+        int first = QOISegmented.HEADER_SIZE;
+
+        // Moving the end of the first band moves its last chunk into the second band
+        assertThrows(RuntimeException.class, () -> QOISegmented.decodePixels(
+                withInt(content, first, readInt(content, first) - 1), POOL));
+    }
+}
@@ -0,0 +1,51 @@
+package cs107;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The packed hash must give the index of the specification, (r * 3 + g * 5 + b * 7 + a * 11) % 64,
+ * the same as the hash of the unpacked pixel
+ */
+final class QOISpecificationTest {
+
+    private static void assertHash(int pixel) {
+        int r = pixel >>> 24;
+        int g = pixel >>> 16 & 0xFF;
+        int b = pixel >>> 8 & 0xFF;
+        int a = pixel & 0xFF;
+
+        int expected = (r * 3 + g * 5 + b * 7 + a * 11) % 64;
+        assertEquals(expected, QOISpecification.hash(pixel), Integer.toHexString(pixel));
+        assertEquals(expected, QOISpecification.hash(new byte[]{(byte) r, (byte) g, (byte) b, (byte) a}),
+                Integer.toHexString(pixel));
+    }
+
+    @Test
+    void everyColorIsHashedAsSpecified() {
+        // Every red, green and blue, the alpha going through all its values along the way
+        for (int rgb = 0; rgb < 1 << 24; rgb++) {
+            int pixel = rgb << 8 | (rgb * 0x9E37_79B9 >>> 24);
+            int r = pixel >>> 24;
+            int g = pixel >>> 16 & 0xFF;
+            int b = pixel >>> 8 & 0xFF;
+            int a = pixel & 0xFF;
+            if (QOISpecification.hash(pixel) != (r * 3 + g * 5 + b * 7 + a * 11) % 64) assertHash(pixel);
+        }
+    }
+
+    @Test
+    void extremeChannelsAreHashedAsSpecified() {
+        // The largest products of every channel, where a carry between the lanes would show
+        for (int pixel : new int[]{0, -1, 0xFF000000, 0x00FF0000, 0x0000FF00, 0x000000FF,
+                QOISpecification.PACKED_START_PIXEL, 0xFFFFFF00, 0x00FFFFFF, 0x80808080, 0x7F7F7F7F}) {
+            assertHash(pixel);
+        }
+        for (int value = 0; value < 256; value++) {
+            assertHash(value * 0x01010101);
+            assertHash(value << 24 | 0x00FFFFFF);
+            assertHash(0xFFFFFF00 | value);
+        }
+    }
+}
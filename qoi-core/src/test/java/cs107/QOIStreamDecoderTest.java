@@ -0,0 +1,91 @@
+package cs107;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The stream decoder must decode the reference images, stop right after the "End Of File" marker
+ * and report the failures of its input as {@link UncheckedIOException}
+ */
+final class QOIStreamDecoderTest {
+
+    private static int[] decode(QOIStreamDecoder decoder) {
+        int[] pixels = new int[decoder.width() * decoder.height()];
+        decoder.decode((y, row) -> System.arraycopy(row, 0, pixels, y * row.length, row.length));
+        return pixels;
+    }
+
+    @Test
+    void referenceImagesAreDecoded() {
+        for (String name : References.names()) {
+            byte[] content = References.read(name);
+            int[] expected = QOIDecoder.decodePixels(content).data();
+
+            assertArrayEquals(expected, decode(new QOIStreamDecoder(new ByteArrayInputStream(content))), name);
+            assertArrayEquals(expected,
+                    decode(new QOIStreamDecoder(Channels.newChannel(new ByteArrayInputStream(content)))), name);
+        }
+    }
+
+    @Test
+    void streamIsNotReadPastTheEndMarker() throws IOException {
+        byte[] first = References.read("dice");
+        byte[] second = References.read("EPFL");
+        byte[] trailer = {1, 2, 3};
+        InputStream input = new ByteArrayInputStream(ArrayUtils.concat(first, second, trailer));
+
+        assertArrayEquals(QOIDecoder.decodePixels(first).data(), decode(new QOIStreamDecoder(input)));
+        assertArrayEquals(QOIDecoder.decodePixels(second).data(), decode(new QOIStreamDecoder(input)));
+        assertArrayEquals(trailer, input.readAllBytes());
+    }
+
+    @Test
+    void channelIsNotReadPastTheEndMarker() throws IOException {
+        byte[] first = References.read("qoi_encode_test");
+        byte[] second = References.read("cube");
+        ByteArrayInputStream input = new ByteArrayInputStream(ArrayUtils.concat(first, second));
+        ReadableByteChannel channel = Channels.newChannel(input);
+
+        assertArrayEquals(QOIDecoder.decodePixels(first).data(), decode(new QOIStreamDecoder(channel)));
+        assertEquals(second.length, input.available());
+        assertArrayEquals(QOIDecoder.decodePixels(second).data(), decode(new QOIStreamDecoder(channel)));
+        assertEquals(0, input.available());
+    }
+
+    @Test
+    void truncatedStreamIsAFormatError() {
+        byte[] content = References.read("dice");
+        byte[] truncated = Arrays.copyOf(content, content.length - 1);
+
+        assertThrows(RuntimeException.class, () -> decode(new QOIStreamDecoder(new ByteArrayInputStream(truncated))));
+    }
+
+    @Test
+    void inputFailuresAreUnchecked() {
+        byte[] content = References.read("dice");
+        InputStream failing = new InputStream() {
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                if (position == 4096) throw new IOException("broken input");
+                return content[position++] & 0xFF;
+            }
+        };
+
+        UncheckedIOException thrown = assertThrows(UncheckedIOException.class,
+                () -> decode(new QOIStreamDecoder(failing)));
+        assertEquals("broken input", thrown.getCause().getMessage());
+    }
+}
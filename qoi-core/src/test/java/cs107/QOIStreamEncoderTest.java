@@ -0,0 +1,82 @@
+package cs107;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The stream encoder must write the same bytes as {@link QOIEncoder}, and only {@link QOIStreamEncoder#close()}
+ * may close the output
+ */
+final class QOIStreamEncoderTest {
+
+    /**
+     * Output remembering whether it was closed
+     */
+    private static final class Output extends ByteArrayOutputStream {
+        private boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @Test
+    void referenceImagesAreEncodedLikeTheEncoder() {
+        for (String name : References.names()) {
+            Helper.Image image = QOIDecoder.decodeQoiFile(References.read(name));
+            byte[] expected = QOIEncoder.qoiFile(image);
+
+            Output stream = new Output();
+            QOIStreamEncoder.encodeQoiStream(image, stream);
+            assertArrayEquals(expected, stream.toByteArray(), name);
+
+            Output channel = new Output();
+            QOIStreamEncoder.encodeQoiStream(image, Channels.newChannel(channel));
+            assertArrayEquals(expected, channel.toByteArray(), name);
+        }
+    }
+
+    @Test
+    void staticHelpersLeaveTheOutputOpen() {
+        Helper.Image first = QOIDecoder.decodeQoiFile(References.read("dice"));
+        Helper.Image second = QOIDecoder.decodeQoiFile(References.read("qoi_encode_test"));
+
+        Output output = new Output();
+        QOIStreamEncoder.encodeQoiStream(first, output);
+        QOIStreamEncoder.encodeQoiStream(second, output);
+        assertFalse(output.closed);
+
+        ByteArrayInputStream input = new ByteArrayInputStream(output.toByteArray());
+        assertArrayEquals(QOIEncoder.qoiFile(first), QOIEncoder.qoiFile(QOIStreamDecoder.decodeQoiStream(input)));
+        assertArrayEquals(QOIEncoder.qoiFile(second), QOIEncoder.qoiFile(QOIStreamDecoder.decodeQoiStream(input)));
+    }
+
+    @Test
+    void finishKeepsTheOutputOpenAndCloseClosesIt() {
+        int[] row = {0x102030FF, 0x102030FF, 0x405060FF};
+        int[] image = {0x102030FF, 0x102030FF, 0x405060FF, 0x102030FF, 0x102030FF, 0x405060FF};
+        byte[] expected = QOIEncoder.qoiFile(new PixelBuffer(image, 3, 2), QOISpecification.RGBA, QOISpecification.sRGB);
+
+        Output output = new Output();
+        QOIStreamEncoder encoder = new QOIStreamEncoder(output, 3, 2, QOISpecification.RGBA, QOISpecification.sRGB);
+        encoder.writeRow(row);
+        encoder.writeRow(row);
+
+        encoder.finish();
+        encoder.finish();
+        assertFalse(output.closed);
+        assertArrayEquals(expected, output.toByteArray());
+
+        encoder.close();
+        assertTrue(output.closed);
+        assertArrayEquals(expected, output.toByteArray());
+    }
+}
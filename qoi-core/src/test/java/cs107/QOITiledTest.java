@@ -0,0 +1,134 @@
+package cs107;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The tiles must decode back to the image whatever their size, read whole, by tile, by pixel or by rectangle,
+ * from memory or from a file written a row of tiles at a time
+ */
+final class QOITiledTest {
+
+    private static final ForkJoinPool POOL = ForkJoinPool.commonPool();
+
+    private static byte[] tiled(PixelBuffer pixels, int tileWidth, int tileHeight) {
+        return QOITiled.qoiFile(pixels, QOISpecification.RGBA, QOISpecification.sRGB, tileWidth, tileHeight, POOL);
+    }
+
+    private static int[] crop(PixelBuffer pixels, int x, int y, int width, int height) {
+        int[] region = new int[width * height];
+        for (int row = 0; row < height; row++) {
+            System.arraycopy(pixels.data(), (y + row) * pixels.width() + x, region, row * width, width);
+        }
+        return region;
+    }
+
+    @Test
+    void referenceImagesAreDecoded() {
+        for (String name : References.names()) {
+            byte[] content = References.read(name);
+            PixelBuffer pixels = QOIDecoder.decodePixels(content);
+
+            assertEquals(QOIDecoder.decodeQoiFile(content), QOITiled.decodeQoiFile(QOITiled.qoiFile(
+                    QOIDecoder.decodeQoiFile(content))), name);
+            for (int[] size : new int[][]{{7, 5}, {64, 64}, {pixels.width(), 1}, {1 << 16, 1 << 14}}) {
+                assertArrayEquals(pixels.data(), QOITiled.decodePixels(tiled(pixels, size[0], size[1]), POOL).data(),
+                        name + " in tiles of " + size[0] + "x" + size[1]);
+            }
+        }
+    }
+
+    @Test
+    void singlePixelTilesAreDecoded() {
+        PixelBuffer pixels = QOIDecoder.decodePixels(References.read("qoi_encode_test"));
+        PixelBuffer single = new PixelBuffer(new int[]{0x10203040}, 1, 1);
+
+        assertArrayEquals(single.data(), QOITiled.decodePixels(tiled(single, 1, 1), POOL).data());
+        assertArrayEquals(single.data(), QOITiled.decodePixels(tiled(single, 512, 512), POOL).data());
+        assertArrayEquals(pixels.data(), QOITiled.decodePixels(tiled(pixels, 1, 1), POOL).data());
+    }
+
+    @Test
+    void runsAreCutAtTheBordersOfTheTiles() {
+        int[] data = new int[300 * 200];
+        Arrays.fill(data, 0x336699FF);
+        Arrays.fill(data, 150 * 300, 150 * 300 + 10, QOISpecification.PACKED_START_PIXEL);
+        PixelBuffer pixels = new PixelBuffer(data, 300, 200);
+
+        byte[] content = tiled(pixels, 70, 30);
+        assertArrayEquals(data, QOITiled.decodePixels(content, POOL).data());
+
+        try (QOITiledImage image = QOITiledImage.of(ByteBuffer.wrap(content), 2)) {
+            assertArrayEquals(crop(pixels, 210, 30, 70, 30), image.tile(3, 1).data());
+            assertArrayEquals(crop(pixels, 280, 180, 20, 20), image.tile(4, 6).data());
+            assertEquals(QOISpecification.PACKED_START_PIXEL, image.pixel(5, 150));
+            assertEquals(0x336699FF, image.pixel(299, 199));
+        }
+    }
+
+    @Test
+    void regionsOverlappingSeveralTilesAreRead() {
+        PixelBuffer pixels = QOIDecoder.decodePixels(References.read("dice"));
+        byte[] content = tiled(pixels, 100, 70);
+        ByteBuffer direct = ByteBuffer.allocateDirect(content.length).put(content).flip();
+
+        try (QOITiledImage image = QOITiledImage.of(direct, 3)) {
+            assertEquals(pixels.width(), image.width());
+            assertEquals(pixels.height(), image.height());
+            assertArrayEquals(crop(pixels, 95, 65, 120, 80), image.region(95, 65, 120, 80, POOL).data());
+            assertArrayEquals(crop(pixels, 0, 0, 1, 1), image.region(0, 0, 1, 1).data());
+
+            image.clearCache();
+            assertArrayEquals(pixels.data(), image.region(0, 0, pixels.width(), pixels.height()).data());
+        }
+    }
+
+    @Test
+    void fileWrittenByRowsOfTilesIsRead() throws Exception {
+        PixelBuffer pixels = QOIDecoder.decodePixels(References.read("EPFL"));
+        Path file = Files.createTempFile("tiled", ".qoit");
+        try {
+            QOITiled.write(file, pixels.width(), pixels.height(), QOISpecification.RGBA, QOISpecification.sRGB, 33, 17,
+                    (x, y, width, height, tile) -> System.arraycopy(crop(pixels, x, y, width, height), 0, tile, 0,
+                            width * height), POOL);
+            assertArrayEquals(tiled(pixels, 33, 17), Files.readAllBytes(file));
+
+            try (QOITiledImage image = QOITiledImage.open(file, 4)) {
+                assertEquals(33, image.tileWidth());
+                assertEquals(17, image.tileHeight());
+                assertArrayEquals(crop(pixels, 20, 10, 50, 40), image.region(20, 10, 50, 40).data());
+                assertEquals(pixels.data()[pixels.data().length - 1], image.pixel(pixels.width() - 1, pixels.height() - 1));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void corruptHeadersAndDirectoriesAreRejected() {
+        PixelBuffer pixels = QOIDecoder.decodePixels(References.read("qoi_encode_test"));
+        byte[] content = tiled(pixels, 4, 4);
+        int directory = QOITiled.HEADER_SIZE;
+
+        for (int[] corruption : new int[][]{{0, 'Q'}, {12, 5}, {13, 2}, {17, 0}, {directory + 7, 0},
+                {directory + 8 + 7, 0}, {directory + 32 + 7, 0xFF}}) {
+            byte[] corrupt = content.clone();
+            corrupt[corruption[0]] = (byte) corruption[1];
+            assertThrows(RuntimeException.class, () -> QOITiledImage.of(ByteBuffer.wrap(corrupt), 0),
+                    "byte " + corruption[0]);
+        }
+        assertThrows(RuntimeException.class,
+                () -> QOITiledImage.of(ByteBuffer.wrap(Arrays.copyOf(content, directory + 8)), 0));
+        assertThrows(RuntimeException.class,
+                () -> QOITiledImage.of(ByteBuffer.wrap(Arrays.copyOf(content, content.length - 1)), 0));
+    }
+}
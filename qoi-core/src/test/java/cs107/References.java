@@ -0,0 +1,63 @@
+package cs107;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Access to the reference images shared by the tests.
+ * The folder is given by the system property "qoi.references", set by the build,
+ * and defaults to "references/" in the working directory or its parent
+ */
+final class References {
+
+    // Hide default constructor
+    private References() {}
+
+    /**
+     * @return (Path) - Folder holding the reference images
+     */
+    static Path folder() {
+        String folder = System.getProperty("qoi.references");
+        if (folder != null) return Path.of(folder);
+        return Files.isDirectory(Path.of("references")) ? Path.of("references") : Path.of("..", "references");
+    }
+
+    /**
+     * @return (List) - Names of every reference "Quite Ok Image" file, without extension, sorted
+     */
+    static List<String> names() {
+        try (Stream<Path> files = Files.list(folder())) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(".qoi"))
+                    .map(name -> name.substring(0, name.length() - ".qoi".length()))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param name (String) - Name of a reference image, without extension
+     * @return (Path) - Path to its "Quite Ok Image" file
+     */
+    static Path qoi(String name) {
+        return folder().resolve(name + ".qoi");
+    }
+
+    /**
+     * @param name (String) - Name of a reference image, without extension
+     * @return (byte[]) - Content of its "Quite Ok Image" file
+     */
+    static byte[] read(String name) {
+        try {
+            return Files.readAllBytes(qoi(name));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
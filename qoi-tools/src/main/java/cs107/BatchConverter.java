@@ -0,0 +1,374 @@
+package cs107;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Batch conversion of a directory tree : every "png" file becomes a "qoi" file and every "qoi" file
+ * becomes a "png" file, at the same relative path in the target directory.
+ * <p>
+ * Every file goes through a pipeline of three stages :
+ * <ol>
+ * <li>read the source file, on the I/O threads ;</li>
+ * <li>decode and encode in memory, on the CPU threads ;</li>
+ * <li>write the target file, on the I/O threads.</li>
+ * </ol>
+ * At most {@code maxInFlight} files are in the pipeline at the same time, the walk of the tree waits
+ * for a file to be written before reading a new one. A failing file does not stop the batch,
+ * its error is reported at the end.
+ * @apiNote The I/O stages use a fixed pool of platform threads, the project targets Java 17
+ */
+public final class BatchConverter implements AutoCloseable {
+
+    /**
+     * Record of the conversion of one file
+     * @param source (Path) - Converted file
+     * @param target (Path) - Written file, null if the conversion failed before knowing it
+     * @param bytesRead (long) - Size of the source file
+     * @param bytesWritten (long) - Size of the target file
+     * @param readNanos (long) - Time spent reading the source file
+     * @param convertNanos (long) - Time spent decoding and encoding
+     * @param writeNanos (long) - Time spent writing the target file
+     * @param failure (String) - Error message, null if the conversion succeeded
+     */
+    public record FileResult(Path source, Path target, long bytesRead, long bytesWritten,
+                             long readNanos, long convertNanos, long writeNanos, String failure) {
+
+        /**
+         * @return (boolean) - true if the file was converted
+         */
+        public boolean succeeded() {
+            return failure == null;
+        }
+    }
+
+    /**
+     * Summary of a batch conversion
+     * @param files (List of FileResult) - Result of every file, in the order they were found
+     * @param wallNanos (long) - Total time of the batch
+     * @param peakInFlight (int) - Highest number of files in the pipeline at the same time
+     */
+    public record Report(List<FileResult> files, long wallNanos, int peakInFlight) {
+
+        /**
+         * @return (List of FileResult) - Results of the files that could not be converted
+         */
+        public List<FileResult> failures() {
+            return files.stream().filter(f -> !f.succeeded()).toList();
+        }
+
+        /**
+         * @return (long) - Total size of the converted source files
+         */
+        public long bytesRead() {
+            return files.stream().filter(FileResult::succeeded).mapToLong(FileResult::bytesRead).sum();
+        }
+
+        /**
+         * @return (long) - Total size of the written files
+         */
+        public long bytesWritten() {
+            return files.stream().filter(FileResult::succeeded).mapToLong(FileResult::bytesWritten).sum();
+        }
+
+        /**
+         * Print the summary, the timing of every file if asked and the failures
+         * @param out (PrintStream) - Where to print
+         * @param perFile (boolean) - Print the timings of every file
+         */
+        public void print(PrintStream out, boolean perFile) {
+            double seconds = wallNanos / 1e9;
+            int converted = files.size() - failures().size();
+
+            if (perFile) {
+                for (FileResult file : files) {
+                    if (!file.succeeded()) continue;
+                    out.printf(Locale.ROOT, "%-60s %10d -> %10d bytes  read %8.2f ms  convert %8.2f ms  write %8.2f ms%n",
+                            file.source(), file.bytesRead(), file.bytesWritten(),
+                            file.readNanos() / 1e6, file.convertNanos() / 1e6, file.writeNanos() / 1e6);
+                }
+            }
+            out.printf(Locale.ROOT, "%d files converted, %d failed in %.2f s, at most %d in flight%n",
+                    converted, files.size() - converted, seconds, peakInFlight);
+            out.printf(Locale.ROOT, "%.1f files/s, %.2f MB/s read, %.2f MB/s written%n",
+                    converted / seconds, bytesRead() / 1e6 / seconds, bytesWritten() / 1e6 / seconds);
+            for (FileResult failure : failures()) {
+                out.printf("FAILED %s : %s%n", failure.source(), failure.failure());
+            }
+        }
+    }
+
+    private final ExecutorService cpu;
+    private final ExecutorService io;
+    private final int maxInFlight;
+
+    /**
+     * Create a converter with one CPU thread per processor
+     */
+    public BatchConverter() {
+        this(Runtime.getRuntime().availableProcessors(), 2 * Runtime.getRuntime().availableProcessors(),
+                4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a converter
+     * @param cpuThreads (int) - Number of threads decoding and encoding
+     * @param ioThreads (int) - Number of threads reading and writing files
+     * @param maxInFlight (int) - Maximal number of files in the pipeline at the same time
+     * @throws AssertionError if one of the parameters is not positive
+     */
+    public BatchConverter(int cpuThreads, int ioThreads, int maxInFlight) {
+        assert cpuThreads > 0 && ioThreads > 0 && maxInFlight > 0;
+        this.cpu = Executors.newFixedThreadPool(cpuThreads, threads("qoi-cpu-"));
+        this.io = Executors.newFixedThreadPool(ioThreads, threads("qoi-io-"));
+        this.maxInFlight = maxInFlight;
+    }
+
+    // ==================================================================================
+    // =============================== BATCH METHODS ====================================
+    // ==================================================================================
+
+    /**
+     * Convert every "png" and "qoi" file of the source tree into the target tree
+     * @param source (Path) - Root of the tree to convert
+     * @param target (Path) - Root of the tree to write, created if needed
+     * @return (Report) - Result of every file
+     * @throws AssertionError if source is not a directory or target is null
+     */
+    public Report convert(Path source, Path target) {
+        assert source != null && Files.isDirectory(source);
+        assert target != null;
+
+        long start = System.nanoTime();
+        Semaphore permits = new Semaphore(maxInFlight);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<CompletableFuture<FileResult>> pending = new ArrayList<>();
+
+        try (Stream<Path> walk = Files.walk(source)) {
+            for (Path file : (Iterable<Path>) walk.filter(Files::isRegularFile).filter(BatchConverter::isConvertible)
+                    .sorted(Comparator.naturalOrder())::iterator) {
+                permits.acquire();
+                peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                Path output = target.resolve(source.relativize(file).toString()).resolveSibling(targetName(file));
+                CompletableFuture<FileResult> result = submit(file, output);
+                result.whenComplete((r, e) -> {
+                    inFlight.decrementAndGet();
+                    permits.release();
+                });
+                pending.add(result);
+            }
+        } catch (IOException e) {
+            return Helper.fail("An error occurred while walking : \"%s\"%n", source);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Helper.fail("Interrupted while converting : \"%s\"%n", source);
+        }
+
+        List<FileResult> results = new ArrayList<>(pending.size());
+        for (CompletableFuture<FileResult> result : pending) results.add(result.join());
+
+        return new Report(Collections.unmodifiableList(results), System.nanoTime() - start, peak.get());
+    }
+
+    /**
+     * Shut the threads of the converter down
+     */
+    @Override
+    public void close() {
+        cpu.shutdown();
+        io.shutdown();
+        try {
+            cpu.awaitTermination(1, TimeUnit.MINUTES);
+            io.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<FileResult> submit(Path source, Path target) {
+        long[] nanos = new long[3];
+        long[] sizes = new long[2];
+
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            byte[] content = readAll(source);
+            nanos[0] = System.nanoTime() - start;
+            sizes[0] = content.length;
+            return content;
+        }, io).thenApplyAsync(content -> {
+            long start = System.nanoTime();
+            byte[] converted = isPng(source) ? pngToQoi(content) : qoiToPng(content);
+            nanos[1] = System.nanoTime() - start;
+            sizes[1] = converted.length;
+            return converted;
+        }, cpu).thenApplyAsync(converted -> {
+            long start = System.nanoTime();
+            writeAll(target, converted);
+            nanos[2] = System.nanoTime() - start;
+            return new FileResult(source, target, sizes[0], sizes[1], nanos[0], nanos[1], nanos[2], null);
+        }, io).exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            return new FileResult(source, target, sizes[0], 0, nanos[0], nanos[1], nanos[2], String.valueOf(cause));
+        });
+    }
+
+    // ==================================================================================
+    // ============================= CONVERSION METHODS =================================
+    // ==================================================================================
+
+    /**
+     * Convert the content of a "png" file into a "Quite Ok Image" file
+     * @param content (byte[]) - Content of the "png" file
+     * @return (byte[]) - Content of the "qoi" file
+     */
+    public static byte[] pngToQoi(byte[] content) {
+        try {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(content));
+            if (image == null) return Helper.fail("Not a readable image");
+
+            return QOIEncoder.qoiFile(ImageRasters.toPixels(image), ImageRasters.channels(image), QOISpecification.sRGB);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Convert the content of a "Quite Ok Image" file into a "png" file
+     * @param content (byte[]) - Content of the "qoi" file
+     * @return (byte[]) - Content of the "png" file
+     */
+    public static byte[] qoiToPng(byte[] content) {
+        QOIHeader header = QOIHeader.of(content);
+        return toPng(ImageRasters.fromPixels(QOIDecoder.decodePixels(content), header.channels()));
+    }
+
+    /**
+     * Convert the content of a "Quite Ok Image" file into a "png" file, decoding it only
+     * if the same content is not already in the cache
+     * @param content (byte[]) - Content of the "qoi" file
+     * @param cache (QOIImageCache) - Cache of the decoded images
+     * @return (byte[]) - Content of the "png" file
+     */
+    public static byte[] qoiToPng(byte[] content, QOIImageCache cache) {
+        QOIImageCache.Entry entry = cache.get(content);
+        QOIHeader header = entry.header();
+        return toPng(ImageRasters.fromPixels(entry.pixels(), header.width(), header.height(), header.channels()));
+    }
+
+    private static byte[] toPng(BufferedImage image) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+
+    // ==================================================================================
+    // =============================== HELPER METHODS ===================================
+    // ==================================================================================
+
+    private static boolean isConvertible(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".png") || name.endsWith(".qoi");
+    }
+
+    private static boolean isPng(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".png");
+    }
+
+    private static String targetName(Path file) {
+        String name = file.getFileName().toString();
+        return name.substring(0, name.length() - 4) + (isPng(file) ? ".qoi" : ".png");
+    }
+
+    private static byte[] readAll(Path file) {
+        try {
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeAll(Path file, byte[] content) {
+        try {
+            Path parent = file.getParent();
+            if (parent != null) Files.createDirectories(parent);
+            Files.write(file, content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ThreadFactory threads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // ==================================================================================
+    // ============================== COMMAND LINE ======================================
+    // ==================================================================================
+
+    /**
+     * Convert a directory tree from the command line
+     * <pre>
+     * BatchConverter source target [--threads n] [--io-threads n] [--in-flight n] [--verbose]
+     * </pre>
+     * @param args (String[]) - Arguments passed to the program via the command line
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("usage: BatchConverter source target [--threads n] [--io-threads n] [--in-flight n] [--verbose]");
+            System.exit(2);
+        }
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        int cpuThreads = processors;
+        int ioThreads = 2 * processors;
+        int inFlight = 4 * processors;
+        boolean verbose = false;
+
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> cpuThreads = Integer.parseInt(args[++i]);
+                case "--io-threads" -> ioThreads = Integer.parseInt(args[++i]);
+                case "--in-flight" -> inFlight = Integer.parseInt(args[++i]);
+                case "--verbose" -> verbose = true;
+                default -> Helper.fail("Unknown option : %s", args[i]);
+            }
+        }
+
+        try (BatchConverter converter = new BatchConverter(cpuThreads, ioThreads, inFlight)) {
+            Report report = converter.convert(Path.of(args[0]), Path.of(args[1]));
+            report.print(System.out, verbose);
+            if (!report.failures().isEmpty()) System.exit(1);
+        }
+    }
+}
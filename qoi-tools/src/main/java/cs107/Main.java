@@ -2,6 +2,7 @@ package cs107;
 
 import org.w3c.dom.ls.LSOutput;
 
+import java.nio.file.Path;
 import java.util.Arrays;
 
 /**
@@ -200,10 +201,8 @@ public final class Main {
      * @param outputFile (String) - The path where to store the generated "PNG" Image
      */
     public static void qoiToPng(String inputFile, String outputFile){
-        // Read in binary mode the file 'input_file'
-        var inputFileContent = Helper.read(inputFile);
-        // Decode the file using the 'QOI' decoder
-        var computedImage = QOIDecoder.decodeQoiFile(inputFileContent);
+        // Map the file 'input_file' and decode it in place using the 'QOI' decoder
+        var computedImage = QOIFiles.decodeQoiFile(Path.of(inputFile));
         // Write an image to 'output_file'
         Helper.writeImage(outputFile, computedImage);
     }
@@ -0,0 +1,114 @@
+package cs107;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A batch must convert every readable file of the tree whatever the others, never hold more files than allowed
+ * in its pipeline, and report the sizes and timings of every file along with the failures
+ */
+final class BatchConverterTest {
+
+    private static final List<String> IMAGES = List.of("qoi_op_diff", "qoi_op_index", "qoi_op_run", "dice");
+
+    /**
+     * Folder of the reference images, given by the build, or "references/" in the working directory or its parent
+     */
+    private static Path references() {
+        String folder = System.getProperty("qoi.references");
+        if (folder != null) return Path.of(folder);
+        return Files.isDirectory(Path.of("references")) ? Path.of("references") : Path.of("..", "references");
+    }
+
+    private static void delete(Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(file);
+        }
+    }
+
+    private static int[] pngPixels(Path file) {
+        try {
+            return ImageRasters.toPixels(ImageIO.read(file.toFile())).data();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Test
+    void corruptFilesAreReportedWithoutStoppingTheBatch() throws IOException {
+        Path source = Files.createTempDirectory("batch-source");
+        Path target = Files.createTempDirectory("batch-target");
+        try {
+            Path nested = Files.createDirectories(source.resolve("nested"));
+            for (String name : IMAGES) {
+                Files.copy(references().resolve(name + ".qoi"), nested.resolve(name + ".qoi"));
+                Files.copy(references().resolve(name + ".png"), source.resolve(name + ".png"));
+            }
+            byte[] dice = Files.readAllBytes(references().resolve("dice.qoi"));
+            Files.write(source.resolve("corrupt.qoi"), Arrays.copyOf(dice, dice.length / 2));
+            Files.write(source.resolve("corrupt.png"), new byte[]{1, 2, 3});
+            Files.writeString(source.resolve("notes.txt"), "not an image");
+
+            BatchConverter.Report report;
+            try (BatchConverter converter = new BatchConverter(2, 2, 2)) {
+                report = converter.convert(source, target);
+            }
+
+            // Every image is reported, the text file is skipped
+            assertEquals(2 * IMAGES.size() + 2, report.files().size());
+            assertEquals(List.of(source.resolve("corrupt.png"), source.resolve("corrupt.qoi")),
+                    report.failures().stream().map(BatchConverter.FileResult::source).toList());
+            for (BatchConverter.FileResult failure : report.failures()) {
+                assertFalse(failure.succeeded());
+                assertTrue(failure.failure() != null && !failure.failure().isEmpty(), failure.failure());
+                assertEquals(0, failure.bytesWritten());
+            }
+
+            // Backpressure : the walk never runs ahead of the pipeline
+            assertTrue(report.peakInFlight() >= 1 && report.peakInFlight() <= 2, "peak " + report.peakInFlight());
+
+            long read = 0;
+            long written = 0;
+            for (BatchConverter.FileResult file : report.files()) {
+                if (!file.succeeded()) continue;
+                assertNull(file.failure());
+                assertEquals(Files.size(file.source()), file.bytesRead(), file.source().toString());
+                assertEquals(Files.size(file.target()), file.bytesWritten(), file.target().toString());
+                assertTrue(file.readNanos() >= 0 && file.convertNanos() > 0 && file.writeNanos() >= 0,
+                        file.source().toString());
+                assertTrue(file.readNanos() + file.convertNanos() + file.writeNanos() <= report.wallNanos(),
+                        file.source().toString());
+                read += file.bytesRead();
+                written += file.bytesWritten();
+            }
+            assertEquals(read, report.bytesRead());
+            assertEquals(written, report.bytesWritten());
+
+            // Both directions write the pixels of the reference images
+            for (String name : IMAGES) {
+                int[] expected = QOIDecoder.decodePixels(Files.readAllBytes(references().resolve(name + ".qoi"))).data();
+                assertArrayEquals(expected, QOIDecoder.decodePixels(Files.readAllBytes(target.resolve(name + ".qoi"))).data(), name);
+                assertArrayEquals(expected, pngPixels(target.resolve("nested").resolve(name + ".png")), name);
+            }
+            assertFalse(Files.exists(target.resolve("notes.txt")));
+        } finally {
+            delete(source);
+            delete(target);
+        }
+    }
+}